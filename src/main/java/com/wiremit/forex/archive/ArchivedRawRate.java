@@ -0,0 +1,18 @@
+package com.wiremit.forex.archive;
+
+import com.wiremit.forex.model.FetchStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A raw provider rate as stored in an archive segment
+ */
+public record ArchivedRawRate(
+        long id,
+        long currencyPairId,
+        String apiSource,
+        FetchStatus status,
+        BigDecimal rate,
+        LocalDateTime createdAt) {
+}
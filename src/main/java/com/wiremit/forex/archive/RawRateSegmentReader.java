@@ -0,0 +1,194 @@
+package com.wiremit.forex.archive;
+
+import com.wiremit.forex.archive.SegmentFormat.BlockIndex;
+import com.wiremit.forex.model.FetchStatus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Memory-maps an archive segment and answers range queries by currency pair
+ * and api source. Only the blocks selected through the footer index are inflated.
+ */
+public class RawRateSegmentReader implements Closeable {
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final String[] sources;
+    private final FetchStatus[] statuses;
+    private final BlockIndex[] blocks;
+
+    private RawRateSegmentReader(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            long size = channel.size();
+            if (size < SegmentFormat.HEADER_LENGTH + SegmentFormat.TRAILER_LENGTH
+                    || !hasMagic(0) || !hasMagic((int) size - SegmentFormat.MAGIC.length)) {
+                throw new IOException("Not a raw rate archive segment: " + file);
+            }
+            int version = buffer.getInt(SegmentFormat.MAGIC.length);
+            if (version != SegmentFormat.VERSION) {
+                throw new IOException("Unsupported segment version " + version + " in " + file);
+            }
+
+            ByteBuffer footer = buffer.duplicate();
+            footer.position((int) buffer.getLong((int) size - SegmentFormat.TRAILER_LENGTH));
+
+            this.sources = new String[(int) SegmentFormat.readVarLong(footer)];
+            for (int i = 0; i < sources.length; i++) {
+                sources[i] = readString(footer);
+            }
+
+            this.statuses = new FetchStatus[(int) SegmentFormat.readVarLong(footer)];
+            for (int i = 0; i < statuses.length; i++) {
+                statuses[i] = FetchStatus.valueOf(readString(footer));
+            }
+
+            this.blocks = new BlockIndex[(int) SegmentFormat.readVarLong(footer)];
+            for (int i = 0; i < blocks.length; i++) {
+                long pairId = SegmentFormat.readVarLong(footer);
+                int source = (int) SegmentFormat.readVarLong(footer);
+                int rowCount = (int) SegmentFormat.readVarLong(footer);
+                long minMicros = SegmentFormat.unZigZag(SegmentFormat.readVarLong(footer));
+                long maxMicros = minMicros + SegmentFormat.readVarLong(footer);
+                long offset = SegmentFormat.readVarLong(footer);
+                int compressedLength = (int) SegmentFormat.readVarLong(footer);
+                int rawLength = (int) SegmentFormat.readVarLong(footer);
+                blocks[i] = new BlockIndex(pairId, source, rowCount, minMicros, maxMicros,
+                        offset, compressedLength, rawLength);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static RawRateSegmentReader open(Path file) throws IOException {
+        return new RawRateSegmentReader(file);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getRowCount() {
+        return Arrays.stream(blocks).mapToLong(BlockIndex::rowCount).sum();
+    }
+
+    /**
+     * Rows of a currency pair created in [from, to), optionally restricted to one api source
+     *
+     * @param apiSource api source to match, or null for every source
+     */
+    public List<ArchivedRawRate> query(long currencyPairId, String apiSource, LocalDateTime from, LocalDateTime to)
+            throws IOException {
+        long fromMicros = SegmentFormat.toMicros(from);
+        long toMicros = SegmentFormat.toMicros(to);
+        int sourceIndex = apiSource == null ? -1 : Arrays.asList(sources).indexOf(apiSource);
+        if (apiSource != null && sourceIndex < 0) {
+            return List.of();
+        }
+
+        List<ArchivedRawRate> rows = new ArrayList<>();
+        Inflater inflater = new Inflater();
+        try {
+            for (BlockIndex block : blocks) {
+                if (block.currencyPairId() != currencyPairId
+                        || (sourceIndex >= 0 && block.sourceIndex() != sourceIndex)
+                        || block.maxMicros() < fromMicros
+                        || block.minMicros() >= toMicros) {
+                    continue;
+                }
+                readBlock(block, inflater, fromMicros, toMicros, rows);
+            }
+        } finally {
+            inflater.end();
+        }
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readBlock(BlockIndex block, Inflater inflater, long fromMicros, long toMicros,
+                           List<ArchivedRawRate> rows) throws IOException {
+        ByteBuffer compressed = buffer.slice((int) block.offset(), block.compressedLength());
+        ByteBuffer columns = ByteBuffer.allocate(block.rawLength());
+
+        inflater.reset();
+        inflater.setInput(compressed);
+        try {
+            while (columns.hasRemaining() && !inflater.finished()) {
+                inflater.inflate(columns);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt block in " + file + " at offset " + block.offset(), e);
+        }
+        columns.flip();
+
+        int count = block.rowCount();
+        long[] micros = new long[count];
+        long[] rates = new long[count];
+        long[] ids = new long[count];
+
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += SegmentFormat.readVarLong(columns);
+            micros[i] = previous;
+        }
+        previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += SegmentFormat.unZigZag(SegmentFormat.readVarLong(columns));
+            rates[i] = previous;
+        }
+        previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += SegmentFormat.unZigZag(SegmentFormat.readVarLong(columns));
+            ids[i] = previous;
+        }
+        int statusOffset = columns.position();
+
+        String source = sources[block.sourceIndex()];
+        for (int i = 0; i < count; i++) {
+            if (micros[i] >= fromMicros && micros[i] < toMicros) {
+                rows.add(new ArchivedRawRate(ids[i], block.currencyPairId(), source,
+                        statuses[columns.get(statusOffset + i)],
+                        SegmentFormat.fromUnscaled(rates[i]),
+                        SegmentFormat.fromMicros(micros[i])));
+            }
+        }
+    }
+
+    private boolean hasMagic(int offset) {
+        for (int i = 0; i < SegmentFormat.MAGIC.length; i++) {
+            if (buffer.get(offset + i) != SegmentFormat.MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[(int) SegmentFormat.readVarLong(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,197 @@
+package com.wiremit.forex.archive;
+
+import com.wiremit.forex.archive.SegmentFormat.BlockIndex;
+import com.wiremit.forex.model.FetchStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Writes an immutable archive segment. Rows must be appended ordered by
+ * currency pair, api source and creation time; every (pair, source) run
+ * becomes one compressed columnar block.
+ */
+public class RawRateSegmentWriter implements Closeable {
+
+    private static final int INITIAL_BLOCK_CAPACITY = 1024;
+
+    private final FileChannel channel;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final Map<String, Integer> sources = new LinkedHashMap<>();
+    private final List<BlockIndex> blocks = new ArrayList<>();
+
+    private long position;
+    private boolean closed;
+
+    // Current block, kept as primitive columns
+    private long blockPairId = -1;
+    private int blockSource = -1;
+    private int rowCount;
+    private long[] ids = new long[INITIAL_BLOCK_CAPACITY];
+    private long[] micros = new long[INITIAL_BLOCK_CAPACITY];
+    private long[] rates = new long[INITIAL_BLOCK_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_BLOCK_CAPACITY];
+
+    private RawRateSegmentWriter(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(SegmentFormat.HEADER_LENGTH);
+        header.put(SegmentFormat.MAGIC).putInt(SegmentFormat.VERSION).flip();
+        write(header);
+    }
+
+    public static RawRateSegmentWriter create(Path file) throws IOException {
+        return new RawRateSegmentWriter(FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+    }
+
+    public void append(ArchivedRawRate rate) throws IOException {
+        int source = sources.computeIfAbsent(rate.apiSource(), key -> sources.size());
+        long timestamp = SegmentFormat.toMicros(rate.createdAt());
+
+        if (rate.currencyPairId() != blockPairId || source != blockSource) {
+            flushBlock();
+            blockPairId = rate.currencyPairId();
+            blockSource = source;
+        } else if (timestamp < micros[rowCount - 1]) {
+            throw new IllegalArgumentException("Rows must be appended in creation time order within a block");
+        }
+
+        if (rowCount == ids.length) {
+            int capacity = rowCount * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            micros = Arrays.copyOf(micros, capacity);
+            rates = Arrays.copyOf(rates, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+        }
+
+        ids[rowCount] = rate.id();
+        micros[rowCount] = timestamp;
+        rates[rowCount] = SegmentFormat.toUnscaled(rate.rate());
+        statuses[rowCount] = (byte) rate.status().ordinal();
+        rowCount++;
+    }
+
+    public int getBlockCount() {
+        return blocks.size() + (rowCount > 0 ? 1 : 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushBlock();
+            writeFooter();
+            channel.force(true);
+        } finally {
+            deflater.end();
+            channel.close();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (rowCount == 0) {
+            return;
+        }
+
+        ByteArrayOutputStream columns = new ByteArrayOutputStream(rowCount * 12);
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            SegmentFormat.writeVarLong(columns, micros[i] - previous);
+            previous = micros[i];
+        }
+        previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            SegmentFormat.writeVarLong(columns, SegmentFormat.zigZag(rates[i] - previous));
+            previous = rates[i];
+        }
+        previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            SegmentFormat.writeVarLong(columns, SegmentFormat.zigZag(ids[i] - previous));
+            previous = ids[i];
+        }
+        columns.write(statuses, 0, rowCount);
+
+        byte[] raw = columns.toByteArray();
+        byte[] compressed = compress(raw);
+
+        blocks.add(new BlockIndex(blockPairId, blockSource, rowCount,
+                micros[0], micros[rowCount - 1], position, compressed.length, raw.length));
+        write(ByteBuffer.wrap(compressed));
+        rowCount = 0;
+    }
+
+    private byte[] compress(byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 64);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            int length = deflater.deflate(buffer);
+            out.write(buffer, 0, length);
+        }
+        return out.toByteArray();
+    }
+
+    private void writeFooter() throws IOException {
+        long footerOffset = position;
+        ByteArrayOutputStream footer = new ByteArrayOutputStream();
+
+        SegmentFormat.writeVarLong(footer, sources.size());
+        for (String source : sources.keySet()) {
+            writeString(footer, source);
+        }
+
+        FetchStatus[] statusValues = FetchStatus.values();
+        SegmentFormat.writeVarLong(footer, statusValues.length);
+        for (FetchStatus status : statusValues) {
+            writeString(footer, status.name());
+        }
+
+        SegmentFormat.writeVarLong(footer, blocks.size());
+        for (BlockIndex block : blocks) {
+            SegmentFormat.writeVarLong(footer, block.currencyPairId());
+            SegmentFormat.writeVarLong(footer, block.sourceIndex());
+            SegmentFormat.writeVarLong(footer, block.rowCount());
+            SegmentFormat.writeVarLong(footer, SegmentFormat.zigZag(block.minMicros()));
+            SegmentFormat.writeVarLong(footer, block.maxMicros() - block.minMicros());
+            SegmentFormat.writeVarLong(footer, block.offset());
+            SegmentFormat.writeVarLong(footer, block.compressedLength());
+            SegmentFormat.writeVarLong(footer, block.rawLength());
+        }
+
+        write(ByteBuffer.wrap(footer.toByteArray()));
+
+        ByteBuffer trailer = ByteBuffer.allocate(SegmentFormat.TRAILER_LENGTH);
+        trailer.putLong(footerOffset).put(SegmentFormat.MAGIC).flip();
+        write(trailer);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        SegmentFormat.writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+    }
+}
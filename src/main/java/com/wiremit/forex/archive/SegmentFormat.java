@@ -0,0 +1,86 @@
+package com.wiremit.forex.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Layout shared by {@link RawRateSegmentWriter} and {@link RawRateSegmentReader}.
+ *
+ * <pre>
+ * header   : MAGIC (8 bytes) | VERSION (int)
+ * blocks   : one deflated block per (currency pair, api source), rows sorted by time.
+ *            Inside a block the columns are stored one after another:
+ *            created_at (delta varlong, micros) | rate (zig-zag delta varlong, scale 6)
+ *            | id (zig-zag delta varlong) | status (1 byte each)
+ * footer   : api source dictionary | status dictionary | block index entries
+ * trailer  : footer offset (long) | MAGIC (8 bytes)
+ * </pre>
+ */
+final class SegmentFormat {
+
+    static final byte[] MAGIC = "WFXRAWS1".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = MAGIC.length + Integer.BYTES;
+    static final int TRAILER_LENGTH = Long.BYTES + MAGIC.length;
+    static final int RATE_SCALE = 6;
+
+    private SegmentFormat() {
+    }
+
+    static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    static long toUnscaled(BigDecimal rate) {
+        return rate.setScale(RATE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    static BigDecimal fromUnscaled(long unscaled) {
+        return BigDecimal.valueOf(unscaled, RATE_SCALE);
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Index entry of one block, kept in the footer
+     */
+    record BlockIndex(long currencyPairId, int sourceIndex, int rowCount,
+                      long minMicros, long maxMicros, long offset, int compressedLength, int rawLength) {
+    }
+}
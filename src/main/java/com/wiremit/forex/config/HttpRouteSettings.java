@@ -0,0 +1,84 @@
+package com.wiremit.forex.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.routing.RoutingSupport;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.util.Timeout;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-host timeouts and pool limits of the shared HTTP client. Hosts that were
+ * not registered use the defaults.
+ */
+@Slf4j
+public class HttpRouteSettings {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final RequestConfig defaultRequestConfig;
+    private final ConnectionConfig defaultConnectionConfig;
+    private final Map<HttpHost, RequestConfig> requestConfigs = new ConcurrentHashMap<>();
+    private final Map<HttpHost, ConnectionConfig> connectionConfigs = new ConcurrentHashMap<>();
+
+    public HttpRouteSettings(PoolingHttpClientConnectionManager connectionManager,
+                             RequestConfig defaultRequestConfig, ConnectionConfig defaultConnectionConfig) {
+        this.connectionManager = connectionManager;
+        this.defaultRequestConfig = defaultRequestConfig;
+        this.defaultConnectionConfig = defaultConnectionConfig;
+        connectionManager.setConnectionConfigResolver(route ->
+                connectionConfigs.getOrDefault(route.getTargetHost(), defaultConnectionConfig));
+    }
+
+    /**
+     * Apply a provider's HTTP settings to the host of its base url
+     */
+    public void register(String baseUrl, RateProviderProperties.Provider settings) {
+        HttpHost host = toHost(baseUrl);
+        if (host == null) {
+            log.warn("Cannot apply HTTP settings to invalid base url {}", baseUrl);
+            return;
+        }
+
+        requestConfigs.put(host, RequestConfig.copy(defaultRequestConfig)
+                .setConnectionRequestTimeout(Timeout.of(settings.getConnectTimeout()))
+                .setResponseTimeout(Timeout.of(settings.getResponseTimeout()))
+                .build());
+        connectionConfigs.put(host, ConnectionConfig.copy(defaultConnectionConfig)
+                .setConnectTimeout(Timeout.of(settings.getConnectTimeout()))
+                .setSocketTimeout(Timeout.of(settings.getResponseTimeout()))
+                .build());
+        connectionManager.setMaxPerRoute(
+                new HttpRoute(host, null, URIScheme.HTTPS.same(host.getSchemeName())),
+                Math.max(1, settings.getMaxConnections()));
+    }
+
+    public RequestConfig requestConfig(URI uri) {
+        HttpHost host = toHost(uri);
+        return host != null ? requestConfigs.getOrDefault(host, defaultRequestConfig) : defaultRequestConfig;
+    }
+
+    private static HttpHost toHost(String url) {
+        try {
+            return toHost(new URI(url));
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static HttpHost toHost(URI uri) {
+        if (uri.getHost() == null) {
+            return null;
+        }
+        // Routes carry the resolved default port, so keys must too
+        return RoutingSupport.normalize(HttpHost.create(uri), DefaultSchemePortResolver.INSTANCE);
+    }
+}
@@ -0,0 +1,68 @@
+package com.wiremit.forex.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-provider settings, keyed by api source (e.g. {@code app.providers.fixer-io.weight=2}).
+ * Providers without an entry run with the defaults.
+ */
+@Data
+@ConfigurationProperties(prefix = "app")
+public class RateProviderProperties {
+
+    private Map<String, Provider> providers = new HashMap<>();
+
+    public Provider forSource(String apiSource) {
+        return providers.getOrDefault(apiSource, new Provider());
+    }
+
+    @Data
+    public static class Provider {
+
+        private boolean enabled = true;
+
+        /** Upper bound for one fetch, after which the provider is recorded as unavailable */
+        private Duration timeout = Duration.ofSeconds(30);
+
+        /** Lower bound of the adaptive timeout derived from observed p99 latency */
+        private Duration minTimeout = Duration.ofSeconds(2);
+
+        /** Adaptive timeout as a multiple of the observed p99 latency */
+        private double timeoutMultiplier = 3.0;
+
+        /** Send a second request when the first is slower than the observed p95 latency */
+        private boolean hedging = true;
+
+        /** Consecutive failed fetches that open the circuit breaker */
+        private int failureThreshold = 3;
+
+        /** How long an open circuit rejects fetches before letting a probe through */
+        private Duration openDuration = Duration.ofMinutes(5);
+
+        /** Fetches allowed in flight against the provider at the same time */
+        private int maxConcurrency = 2;
+
+        /** Pooled HTTP connections kept to the provider host */
+        private int maxConnections = 4;
+
+        private Duration connectTimeout = Duration.ofSeconds(10);
+
+        /** Socket read timeout of a single HTTP response */
+        private Duration responseTimeout = Duration.ofSeconds(30);
+
+        /** Weight of the provider's rates in the aggregated average */
+        private BigDecimal weight = BigDecimal.ONE;
+
+        /** Minimum time between fetches, zero fetches on every run */
+        private Duration refreshInterval = Duration.ZERO;
+
+        /** API calls allowed per calendar month, spread evenly over it; zero for no limit */
+        private int monthlyQuota = 0;
+    }
+}
@@ -0,0 +1,72 @@
+package com.wiremit.forex.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Routes read-only transactions to the replica; write transactions and
+ * non-transactional access go to the primary.
+ * <p>
+ * Reads started within {@code replicaLagTolerance} of the last committed write go to
+ * the primary as well, so callers never read state older than what they just wrote.
+ * Must be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * so the connection is only fetched once the transaction's read-only flag is known.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final long replicaLagToleranceNanos;
+    private final boolean hasReplica;
+
+    private volatile long lastWriteNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration replicaLagTolerance) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        if (replica != null) {
+            targets.put(Route.REPLICA, replica);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.hasReplica = replica != null;
+        this.replicaLagToleranceNanos = replicaLagTolerance.toNanos();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Route.PRIMARY;
+        }
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            markWrite();
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        markWrite();
+                    }
+                });
+            }
+            return Route.PRIMARY;
+        }
+
+        if (!hasReplica || System.nanoTime() - lastWriteNanos < replicaLagToleranceNanos) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    private void markWrite() {
+        lastWriteNanos = System.nanoTime();
+    }
+}
@@ -1,20 +1,95 @@
 package com.wiremit.forex.config;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 
 import java.time.Duration;
 
+/**
+ * Provider calls share one pooled Apache HttpClient: connections are kept alive
+ * between runs and responses are requested gzip/deflate compressed (the client
+ * sends Accept-Encoding and decompresses transparently).
+ */
 @Configuration
 public class RestTemplateConfig {
 
+    @Value("${app.http.max-total-connections:50}")
+    private int maxTotalConnections;
+
+    @Value("${app.http.max-connections-per-route:4}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${app.http.connect-timeout:10s}")
+    private Duration connectTimeout;
+
+    @Value("${app.http.response-timeout:30s}")
+    private Duration responseTimeout;
+
+    @Value("${app.http.keep-alive:30s}")
+    private Duration keepAlive;
+
+    @Value("${app.http.idle-eviction:60s}")
+    private Duration idleEviction;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotalConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
+    public HttpRouteSettings httpRouteSettings(PoolingHttpClientConnectionManager httpConnectionManager) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(connectTimeout))
+                .setResponseTimeout(Timeout.of(responseTimeout))
+                // Used when the server sends no Keep-Alive header
+                .setConnectionKeepAlive(TimeValue.of(keepAlive))
+                .build();
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(connectTimeout))
+                .setSocketTimeout(Timeout.of(responseTimeout))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(5))
+                .build();
+        return new HttpRouteSettings(httpConnectionManager, requestConfig, connectionConfig);
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setConnectionManagerShared(true)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleEviction))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient httpClient,
+                                     HttpRouteSettings httpRouteSettings) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setHttpContextFactory((method, uri) -> {
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(httpRouteSettings.requestConfig(uri));
+            return context;
+        });
+
         return builder
-                .connectTimeout(Duration.ofSeconds(10))
-                .readTimeout(Duration.ofSeconds(30))
+                .requestFactory(() -> requestFactory)
                 .build();
     }
 }
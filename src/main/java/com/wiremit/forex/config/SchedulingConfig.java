@@ -1,9 +1,47 @@
 package com.wiremit.forex.config;
 
+import com.wiremit.forex.util.AggregationEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Clock;
 
 @Configuration
 @EnableScheduling
 public class SchedulingConfig {
+
+    /**
+     * Time source of refresh planning and provider quotas, replaceable in tests
+     */
+    @Bean
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
+
+    /**
+     * Threads the {@code @Scheduled} jobs run on. With Spring's default single thread
+     * a slow job would hold back lease renewal, cache version polling and quote expiry.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${app.scheduling.pool-size:4}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduling-");
+        return scheduler;
+    }
+
+    /**
+     * How provider rates are combined into the aggregated rate of each pair
+     */
+    @Bean
+    public AggregationEngine aggregationEngine(
+            @Value("${app.rates.aggregation.method:MEAN}") AggregationEngine.Method method,
+            @Value("${app.rates.aggregation.trim-fraction:0.2}") double trimFraction,
+            @Value("${app.rates.aggregation.outlier-tolerance:0}") double outlierTolerance,
+            @Value("${app.rates.aggregation.parallel:true}") boolean parallel) {
+        return new AggregationEngine(method, trimFraction, outlierTolerance, parallel);
+    }
 }
@@ -0,0 +1,152 @@
+package com.wiremit.forex.controller;
+
+import com.wiremit.forex.archive.ArchivedRawRate;
+import com.wiremit.forex.dto.CacheStatisticsDTO;
+import com.wiremit.forex.dto.HttpPoolStatisticsDTO;
+import com.wiremit.forex.dto.PipelineStatisticsDTO;
+import com.wiremit.forex.dto.ProviderHealthDTO;
+import com.wiremit.forex.dto.RefreshRunDTO;
+import com.wiremit.forex.model.ProviderOutage;
+import com.wiremit.forex.scheduler.RateIngestionPipeline;
+import com.wiremit.forex.scheduler.RefreshCoordinator;
+import com.wiremit.forex.service.CacheStatisticsService;
+import com.wiremit.forex.service.HttpPoolStatisticsService;
+import com.wiremit.forex.service.ProviderHealthService;
+import com.wiremit.forex.service.RawRateArchiveService;
+import com.wiremit.forex.util.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@Tag(name = "Administration", description = "Operational endpoints for administrators")
+public class AdminController {
+
+    private final RawRateArchiveService rawRateArchiveService;
+    private final CacheStatisticsService cacheStatisticsService;
+    private final HttpPoolStatisticsService httpPoolStatisticsService;
+    private final ProviderHealthService providerHealthService;
+    private final RateIngestionPipeline rateIngestionPipeline;
+    private final RefreshCoordinator refreshCoordinator;
+
+    @GetMapping("/raw-rates/archive/{pairCode}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Query archived raw rates", description = "Retrieves provider raw rates of a currency pair from the on-disk archive segments")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Archived rates retrieved successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Currency pair not found"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Forbidden - admin role required")
+    })
+    public ResponseEntity<ApiResponse<List<ArchivedRawRate>>> getArchivedRawRates(
+            @Parameter(description = "Currency pair code", example = "USDZAR")
+            @PathVariable String pairCode,
+            @Parameter(description = "Only return rates from this api source", example = "fixer-io")
+            @RequestParam(required = false) String apiSource,
+            @Parameter(description = "Start of the window (inclusive)", example = "2025-01-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the window (exclusive)", example = "2025-02-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            HttpServletRequest request) {
+        return rawRateArchiveService.getArchivedRates(pairCode, apiSource, from, to, request);
+    }
+
+    @GetMapping("/cache/statistics")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get cache statistics", description = "Retrieves Hibernate second-level cache hit, miss and put counters per region")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Cache statistics retrieved successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Forbidden - admin role required")
+    })
+    public ResponseEntity<ApiResponse<CacheStatisticsDTO>> getCacheStatistics(HttpServletRequest request) {
+        return cacheStatisticsService.getCacheStatistics(request);
+    }
+
+    @GetMapping("/http/pool")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get HTTP connection pool statistics", description = "Retrieves leased, pending and available connections of the provider HTTP client, in total and per host")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Pool statistics retrieved successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Forbidden - admin role required")
+    })
+    public ResponseEntity<ApiResponse<HttpPoolStatisticsDTO>> getHttpPoolStatistics(HttpServletRequest request) {
+        return httpPoolStatisticsService.getPoolStatistics(request);
+    }
+
+    @GetMapping("/providers/health")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get provider health", description = "Retrieves circuit breaker state, adaptive timeout, hedging counters and any open outage of every rate provider")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Provider health retrieved successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Forbidden - admin role required")
+    })
+    public ResponseEntity<ApiResponse<List<ProviderHealthDTO>>> getProviderHealth(HttpServletRequest request) {
+        return providerHealthService.getProviderHealth(request);
+    }
+
+    @GetMapping("/providers/outages")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get provider outages", description = "Retrieves the 50 most recent periods during which a rate provider could not be read")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Provider outages retrieved successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Forbidden - admin role required")
+    })
+    public ResponseEntity<ApiResponse<List<ProviderOutage>>> getProviderOutages(HttpServletRequest request) {
+        return providerHealthService.getRecentOutages(request);
+    }
+
+    @GetMapping("/pipeline")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get rate pipeline statistics", description = "Retrieves queue depth, throughput and queue-wait and service-time percentiles of every rate ingestion pipeline stage")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Pipeline statistics retrieved successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Forbidden - admin role required")
+    })
+    public ResponseEntity<ApiResponse<PipelineStatisticsDTO>> getPipelineStatistics(HttpServletRequest request) {
+        return rateIngestionPipeline.getStatistics(request);
+    }
+
+    @PostMapping("/rates/refresh")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Refresh rates now", description = "Fetches and aggregates rates for the selected pairs, or every active pair, outside the schedule. Requests arriving while a run covering them is in flight join that run")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Refresh finished while waiting"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "202", description = "Refresh accepted, poll the run id for its outcome"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Currency pair not found or inactive"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Forbidden - admin role required")
+    })
+    public ResponseEntity<ApiResponse<RefreshRunDTO>> refreshRates(
+            @Parameter(description = "Pairs to refresh, all active pairs when omitted", example = "USDZAR,USDGBP")
+            @RequestParam(required = false) List<String> pairs,
+            @Parameter(description = "Wait for the run to finish, up to the run timeout")
+            @RequestParam(defaultValue = "false") boolean wait,
+            HttpServletRequest request) {
+        return refreshCoordinator.triggerRefresh(pairs, wait, request);
+    }
+
+    @GetMapping("/rates/refresh/{runId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get refresh run", description = "Retrieves status, pairs and coalesced requests of one of the 50 most recent refresh runs")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Refresh run retrieved successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Refresh run not found"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Forbidden - admin role required")
+    })
+    public ResponseEntity<ApiResponse<RefreshRunDTO>> getRefreshRun(
+            @Parameter(description = "Run id returned by the refresh request")
+            @PathVariable String runId,
+            HttpServletRequest request) {
+        return refreshCoordinator.getRun(runId, request);
+    }
+}
@@ -1,6 +1,8 @@
 package com.wiremit.forex.controller;
 
 import com.wiremit.forex.dto.ForexRateDTO;
+import com.wiremit.forex.dto.RateSnapshotDTO;
+import com.wiremit.forex.service.BatchConversionService;
 import com.wiremit.forex.service.ForexRateService;
 import com.wiremit.forex.util.ApiResponse;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,14 +15,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Size;
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -30,18 +35,23 @@ import java.util.List;
 public class ForexRateController {
 
     private final ForexRateService forexRateService;
+    private final BatchConversionService batchConversionService;
 
     @GetMapping("/latest")
     @PreAuthorize("isAuthenticated()")
-    @Operation(summary = "Get all latest forex rates", description = "Retrieves the most recent exchange rates for all currency pairs")
+    @Operation(summary = "Get all latest forex rates", description = "Retrieves the exchange rates of all currency pairs from the latest aggregation run snapshot, or from the snapshot of an earlier run")
     @SecurityRequirement(name = "Bearer Authentication")
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Latest rates retrieved successfully"),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized - authentication required"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Aggregation run not found"),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<ApiResponse<List<ForexRateDTO>>> getAllLatestRates(HttpServletRequest request) {
-        return forexRateService.getAllLatestRates(request);
+    public ResponseEntity<ApiResponse<RateSnapshotDTO>> getAllLatestRates(
+            @Parameter(description = "Aggregation run to read the snapshot of, the latest run when omitted", example = "42")
+            @RequestParam(required = false) Long runId,
+            HttpServletRequest request) {
+        return forexRateService.getAllLatestRates(runId, request);
     }
 
     @GetMapping("/latest/{pairCode}")
@@ -78,17 +88,32 @@ public class ForexRateController {
 
     @PostMapping("/latest/batch")
     @PreAuthorize("isAuthenticated()")
-    @Operation(summary = "Get latest rates for multiple pairs", description = "Retrieves the most recent exchange rates for multiple currency pairs in a single request")
+    @Operation(summary = "Get latest rates for multiple pairs", description = "Retrieves the exchange rates of multiple currency pairs in a single request, all from the same aggregation run snapshot")
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Batch rates retrieved successfully"),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid request data or too many pair codes"),
-            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "One or more currency pairs not found")
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "One or more currency pairs or the aggregation run not found")
     })
-    public ResponseEntity<ApiResponse<List<ForexRateDTO>>> getLatestRatesForPairs(
+    public ResponseEntity<ApiResponse<RateSnapshotDTO>> getLatestRatesForPairs(
             @Parameter(description = "Batch request containing list of currency pair codes")
             @Valid @RequestBody BatchRateRequest request,
             HttpServletRequest httpRequest) {
-        return forexRateService.getLatestRatesForPairs(request.getPairCodes(), httpRequest);
+        return forexRateService.getLatestRatesForPairs(request.getPairCodes(), request.getRunId(), httpRequest);
+    }
+
+    @PostMapping(value = "/convert/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Convert a batch of amounts", description = "Converts a payout batch of [pairCode, amount] entries with the rates of a single aggregation run, streaming the converted amounts back in request order")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Batch converted, entries of pairs without a rate are null"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Malformed batch, invalid amount or too many entries"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Invalid currency pair code or aggregation run not found")
+    })
+    public ResponseEntity<StreamingResponseBody> convertBatch(
+            @Parameter(description = "Aggregation run to convert with, defaults to the latest one", example = "42")
+            @RequestParam(required = false) Long runId,
+            HttpServletRequest request) throws IOException {
+        return batchConversionService.convert(request.getInputStream(), runId, request);
     }
 
     @GetMapping("/history/{pairCode}")
@@ -120,5 +145,8 @@ public class ForexRateController {
         @Schema(description = "List of currency pair codes to retrieve rates for",
                 example = "[\"USDEUR\", \"GBPJPY\", \"AUDCAD\"]")
         private List<String> pairCodes;
+
+        @Schema(description = "Aggregation run to read the snapshot of, the latest run when omitted", example = "42")
+        private Long runId;
     }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.wiremit.forex.controller;
+
+import com.wiremit.forex.dto.QuoteDTO;
+import com.wiremit.forex.service.QuoteService;
+import com.wiremit.forex.util.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/quotes")
+@RequiredArgsConstructor
+@Tag(name = "Quotes", description = "Rate locking for remittances: issue a quote, then redeem it at execution")
+public class QuoteController {
+
+    private final QuoteService quoteService;
+
+    @PostMapping
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Issue a quote", description = "Locks the current final rate of a currency pair for an amount until the quote expires")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "201", description = "Quote issued"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid request data"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Invalid currency pair or no rate available")
+    })
+    public ResponseEntity<ApiResponse<QuoteDTO>> createQuote(
+            @Valid @RequestBody QuoteRequest request,
+            HttpServletRequest httpRequest) {
+        return quoteService.createQuote(request.getPairCode(), request.getAmount(), httpRequest);
+    }
+
+    @GetMapping("/{quoteId}")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Get a quote", description = "Retrieves an outstanding quote")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Quote retrieved successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Quote not found, expired or already redeemed")
+    })
+    public ResponseEntity<ApiResponse<QuoteDTO>> getQuote(
+            @Parameter(description = "Quote id returned when the quote was issued")
+            @PathVariable UUID quoteId,
+            HttpServletRequest request) {
+        return quoteService.getQuote(quoteId, request);
+    }
+
+    @PostMapping("/{quoteId}/redeem")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Redeem a quote", description = "Honors the locked rate at execution; the pair and amount must be those of the quote and a quote can be redeemed once")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Quote redeemed"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Pair or amount differ from the quote"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Quote not found, expired or already redeemed")
+    })
+    public ResponseEntity<ApiResponse<QuoteDTO>> redeemQuote(
+            @Parameter(description = "Quote id returned when the quote was issued")
+            @PathVariable UUID quoteId,
+            @Valid @RequestBody QuoteRequest request,
+            HttpServletRequest httpRequest) {
+        return quoteService.redeemQuote(quoteId, request.getPairCode(), request.getAmount(), httpRequest);
+    }
+
+    /**
+     * Pair and amount of a quote, when issuing and when redeeming it
+     */
+    @Setter
+    @Getter
+    @Schema(description = "Currency pair and amount of a quote")
+    public static class QuoteRequest {
+        @NotBlank(message = "Currency pair code is required")
+        @Schema(description = "Currency pair code", example = "USDZAR")
+        private String pairCode;
+
+        @NotNull(message = "Amount is required")
+        @DecimalMin(value = "0", inclusive = false, message = "Amount must be positive")
+        @Digits(integer = 15, fraction = 4, message = "Amount can have at most 15 digits and 4 decimals")
+        @Schema(description = "Amount in the base currency", example = "1250.00")
+        private BigDecimal amount;
+    }
+}
@@ -21,4 +21,14 @@ public class ForexRateDTO {
     private String targetCurrency;
     private String pairCode;
     private String displayName;
+
+    // The rate holds from timestamp until at least lastConfirmedAt, unchanged runs do not add a new rate
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime timestamp;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime lastConfirmedAt;
+
+    // Aggregation run that stored the rate
+    private Long runId;
 }
@@ -0,0 +1,35 @@
+package com.wiremit.forex.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HttpPoolStatisticsDTO {
+
+    private int leased;
+    private int pending;
+    private int available;
+    private int max;
+
+    private List<RouteStatistics> routes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class RouteStatistics {
+
+        private String route;
+        private int leased;
+        private int pending;
+        private int available;
+        private int max;
+    }
+}
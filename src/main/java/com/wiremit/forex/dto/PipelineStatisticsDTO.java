@@ -0,0 +1,39 @@
+package com.wiremit.forex.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PipelineStatisticsDTO {
+
+    private long runs;
+    private long failedRuns;
+
+    private List<StageStatistics> stages;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class StageStatistics {
+
+        private String stage;
+        private int queued;
+        private int capacity;
+        private long processed;
+        private long failed;
+
+        // Percentiles over the most recent items, null until the stage has handled one
+        private Long queueWaitP50Micros;
+        private Long queueWaitP99Micros;
+        private Long serviceTimeP50Micros;
+        private Long serviceTimeP99Micros;
+    }
+}
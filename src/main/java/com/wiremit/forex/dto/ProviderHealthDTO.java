@@ -0,0 +1,34 @@
+package com.wiremit.forex.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProviderHealthDTO {
+
+    private String apiSource;
+    private boolean enabled;
+    private String circuitState;
+    private int consecutiveFailures;
+    private Instant circuitRetryAt;
+    private long effectiveTimeoutMillis;
+    private Long hedgeDelayMillis;
+    private long hedgedFetches;
+    private long unchangedFetches;
+    private Instant lastFetchedAt;
+    private int quotaUsed;
+    private int monthlyQuota;
+
+    // Open outage, if any
+    private LocalDateTime outageSince;
+    private Integer outageFailedFetches;
+    private String outageLastError;
+}
@@ -0,0 +1,27 @@
+package com.wiremit.forex.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QuoteDTO {
+
+    private String quoteId;
+    private String pairCode;
+    private BigDecimal amount;
+    private BigDecimal rate; // Final rate locked until expiresAt
+    private BigDecimal convertedAmount;
+    private Long runId; // Aggregation run the rate was taken from
+
+    private Instant createdAt;
+    private Instant expiresAt;
+    private Instant redeemedAt;
+}
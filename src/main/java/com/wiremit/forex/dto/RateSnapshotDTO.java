@@ -0,0 +1,28 @@
+package com.wiremit.forex.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Rates of several pairs as they stood once one aggregation run was stored
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RateSnapshotDTO {
+
+    // Run the snapshot is pinned to, null before the first run; pass it back as runId to read the same snapshot
+    private Long runId;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime runTimestamp;
+
+    private List<ForexRateDTO> rates;
+}
@@ -0,0 +1,27 @@
+package com.wiremit.forex.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshRunDTO {
+
+    private String runId;
+    private String status; // PENDING, RUNNING, COMPLETED, FAILED
+    private List<String> triggers; // Who asked for it: scheduler and/or admin
+    private List<String> pairCodes;
+    private int coalescedRequests; // Requests served by this run besides the first one
+
+    private Instant requestedAt;
+    private Instant startedAt;
+    private Instant completedAt;
+    private String error;
+}
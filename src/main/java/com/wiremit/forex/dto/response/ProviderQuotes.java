@@ -0,0 +1,17 @@
+package com.wiremit.forex.dto.response;
+
+import com.wiremit.forex.util.QuoteVector;
+
+/**
+ * Provider payload reduced to the quotes that were asked for
+ *
+ * @param quotes     requested quotes against {@code baseCurrency}, null on error
+ * @param quoteCount number of rates in the payload, requested or not
+ */
+public record ProviderQuotes(String baseCurrency, Long timestamp, QuoteVector quotes, int quoteCount,
+                             String errorMessage) {
+
+    public boolean isSuccess() {
+        return errorMessage == null && quotes != null;
+    }
+}
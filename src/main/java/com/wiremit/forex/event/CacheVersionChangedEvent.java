@@ -0,0 +1,15 @@
+package com.wiremit.forex.event;
+
+/**
+ * Published by {@link com.wiremit.forex.service.CacheVersions} when it sees that a node,
+ * this one or another, committed a change to data that is cached locally.
+ *
+ * @param data    what changed
+ * @param version version of that data now in the database
+ */
+public record CacheVersionChangedEvent(CachedData data, long version) {
+
+    public enum CachedData {
+        CURRENCY_PAIRS, FOREX_RATES
+    }
+}
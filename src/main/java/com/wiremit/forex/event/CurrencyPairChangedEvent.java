@@ -0,0 +1,25 @@
+package com.wiremit.forex.event;
+
+import com.wiremit.forex.model.CurrencyPair;
+
+/**
+ * Published by {@link com.wiremit.forex.service.CurrencyPairService} whenever a currency pair
+ * is created, updated, (de)activated or deleted.
+ *
+ * @param pairId id of the changed pair
+ * @param pair   state of the pair after the change, or null when it was deleted
+ */
+public record CurrencyPairChangedEvent(Long pairId, CurrencyPair pair) {
+
+    public static CurrencyPairChangedEvent saved(CurrencyPair pair) {
+        return new CurrencyPairChangedEvent(pair.getId(), pair);
+    }
+
+    public static CurrencyPairChangedEvent deleted(Long pairId) {
+        return new CurrencyPairChangedEvent(pairId, null);
+    }
+
+    public boolean isDeleted() {
+        return pair == null;
+    }
+}
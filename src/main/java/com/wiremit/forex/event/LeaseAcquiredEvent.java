@@ -0,0 +1,11 @@
+package com.wiremit.forex.event;
+
+/**
+ * Published by {@link com.wiremit.forex.service.SchedulerLease} when this node takes the
+ * rate ingestion lease, at startup or when it takes over from another node.
+ *
+ * @param nodeId       this node
+ * @param fencingToken token the lease is now held under
+ */
+public record LeaseAcquiredEvent(String nodeId, long fencingToken) {
+}
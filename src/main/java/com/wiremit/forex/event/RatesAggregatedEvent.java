@@ -0,0 +1,15 @@
+package com.wiremit.forex.event;
+
+import com.wiremit.forex.model.ForexRate;
+
+import java.util.List;
+
+/**
+ * Published by the rate ingestion pipeline once an aggregation run is persisted.
+ *
+ * @param rates     aggregated rates of the run, stored or confirmed; empty when the run was skipped
+ *                  because no provider had new data
+ * @param confirmed how many of them only confirmed the rate already stored
+ */
+public record RatesAggregatedEvent(List<ForexRate> rates, int confirmed) {
+}
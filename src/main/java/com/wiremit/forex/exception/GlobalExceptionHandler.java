@@ -97,6 +97,30 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
 
+    @ExceptionHandler(RefreshRunNotFoundException.class)
+    public ResponseEntity<ApiResponse<Object>> handleRefreshRunNotFound(
+            RefreshRunNotFoundException ex,
+            HttpServletRequest request) {
+
+        ApiResponse<Object> response = ApiResponse
+                .error(ex.getMessage(), HttpStatus.NOT_FOUND.value())
+                .path(request.getRequestURI());
+
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+
+    @ExceptionHandler(QuoteNotFoundException.class)
+    public ResponseEntity<ApiResponse<Object>> handleQuoteNotFound(
+            QuoteNotFoundException ex,
+            HttpServletRequest request) {
+
+        ApiResponse<Object> response = ApiResponse
+                .error(ex.getMessage(), HttpStatus.NOT_FOUND.value())
+                .path(request.getRequestURI());
+
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+
     @ExceptionHandler(ForexServiceException.class)
     public ResponseEntity<ApiResponse<Object>> handleForexServiceException(
             ForexServiceException ex,
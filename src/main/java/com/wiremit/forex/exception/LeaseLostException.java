@@ -0,0 +1,8 @@
+package com.wiremit.forex.exception;
+
+public class LeaseLostException extends RuntimeException {
+    public LeaseLostException(String message) {
+
+        super(message);
+    }
+}
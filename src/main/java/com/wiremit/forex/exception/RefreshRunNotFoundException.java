@@ -0,0 +1,8 @@
+package com.wiremit.forex.exception;
+
+public class RefreshRunNotFoundException extends RuntimeException {
+    public RefreshRunNotFoundException(String message) {
+
+        super(message);
+    }
+}
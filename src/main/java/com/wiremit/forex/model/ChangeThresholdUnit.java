@@ -0,0 +1,5 @@
+package com.wiremit.forex.model;
+
+public enum ChangeThresholdUnit {
+    ABSOLUTE, BASIS_POINTS
+}
@@ -2,11 +2,15 @@ package com.wiremit.forex.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 
 @Entity
 @Table(name = "currency_pairs")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "currency-pairs")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,6 +35,14 @@ public class CurrencyPair extends BaseEntity {
     @Column(name = "custom_markup", precision = 5, scale = 4)
     private BigDecimal customMarkup;
 
+    // Smallest move of the final rate that is stored as a new rate, null uses app.rates.change-threshold
+    @Column(name = "change_threshold", precision = 12, scale = 6)
+    private BigDecimal changeThreshold;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_threshold_unit", length = 20)
+    private ChangeThresholdUnit changeThresholdUnit;
+
     @PrePersist
     protected void onCreate() {
         if (pairCode == null) {
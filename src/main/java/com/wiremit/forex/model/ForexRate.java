@@ -32,4 +32,10 @@ public class ForexRate extends BaseEntity {
 
     @Column(name = "sources_count")
     private Integer sourcesCount; // How many APIs provided data
+
+    @Column(name = "last_confirmed_at")
+    private LocalDateTime lastConfirmedAt; // Last run that produced this same rate, it holds from createdAt until then
+
+    @Column(name = "run_id")
+    private Long runId; // Run that stored this rate, it stays in effect in the snapshots of later runs until replaced
 }
@@ -0,0 +1,36 @@
+package com.wiremit.forex.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A period during which a rate provider could not be read
+ */
+@Entity
+@Table(name = "provider_outages")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class ProviderOutage extends BaseEntity {
+
+    @Column(name = "api_source", nullable = false, length = 50)
+    private String apiSource;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "ended_at")
+    private LocalDateTime endedAt; // null while the outage lasts
+
+    @Column(name = "failed_fetches", nullable = false)
+    @Builder.Default
+    private Integer failedFetches = 1;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+}
@@ -0,0 +1,37 @@
+package com.wiremit.forex.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored aggregation run; its id versions the rate snapshot, see {@link ForexRate#getRunId()}
+ */
+@Entity
+@Table(name = "rate_runs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class RateRun extends BaseEntity {
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "pairs_requested", nullable = false)
+    private Integer pairsRequested;
+
+    @Column(name = "rates_stored", nullable = false)
+    @Builder.Default
+    private Integer ratesStored = 0;
+
+    @Column(name = "rates_confirmed", nullable = false)
+    @Builder.Default
+    private Integer ratesConfirmed = 0;
+
+    @Column(name = "fencing_token")
+    private Long fencingToken; // Lease token the run was stored under
+}
@@ -4,9 +4,12 @@ import com.wiremit.forex.model.CurrencyPair;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CurrencyPairRepository extends JpaRepository<CurrencyPair, Long> {
 
     List<CurrencyPair> findByIsActiveTrue();
+
+    Optional<CurrencyPair> findByPairCode(String pairCode);
 }
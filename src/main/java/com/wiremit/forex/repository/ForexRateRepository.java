@@ -3,6 +3,7 @@ package com.wiremit.forex.repository;
 import com.wiremit.forex.model.ForexRate;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -13,66 +14,50 @@ import java.util.Optional;
 @Repository
 public interface ForexRateRepository extends JpaRepository<ForexRate, Long> {
 
+    /**
+     * Find the latest rate for each of the given currency pair IDs
+     */
     @Query(value = """
         SELECT fr.*
         FROM forex_rates fr
         INNER JOIN (
             SELECT currency_pair_id, MAX(created_at) as latest_created_at
             FROM forex_rates
+            WHERE currency_pair_id IN :currencyPairIds
             GROUP BY currency_pair_id
-        ) latest ON fr.currency_pair_id = latest.currency_pair_id 
+        ) latest ON fr.currency_pair_id = latest.currency_pair_id
                  AND fr.created_at = latest.latest_created_at
-        INNER JOIN currency_pairs cp ON fr.currency_pair_id = cp.id
-        WHERE cp.is_active = true
         ORDER BY fr.created_at DESC
         """, nativeQuery = true)
-    List<ForexRate> findLatestRateForAllPairs();
+    List<ForexRate> findLatestRatesByCurrencyPairIds(@Param("currencyPairIds") List<Long> currencyPairIds);
 
     /**
-     * Find the latest rate for a specific currency pair by pair code
-     */
-    @Query("""
-        SELECT fr FROM ForexRate fr
-        JOIN FETCH fr.currencyPair cp
-        WHERE cp.pairCode = :pairCode
-        AND cp.isActive = true
-        ORDER BY fr.createdAt DESC
-        LIMIT 1
-        """)
-    Optional<ForexRate> findLatestRateByPairCode(@Param("pairCode") String pairCode);
-
-    /**
-     * Find the latest rates for multiple currency pairs by their pair codes
+     * Find the rates in effect for the given currency pair IDs once the given run was stored:
+     * per pair, the newest rate stored by that run or an earlier one
      */
     @Query(value = """
-            SELECT fr.*
-            FROM forex_rates fr
-            INNER JOIN (
-                SELECT currency_pair_id, MAX(created_at) as latest_created_at
-                FROM forex_rates fr2
-                INNER JOIN currency_pairs cp2 ON fr2.currency_pair_id = cp2.id
-                WHERE cp2.pair_code IN :pairCodes
-                AND cp2.is_active = true
-                GROUP BY currency_pair_id
-            ) latest ON fr.currency_pair_id = latest.currency_pair_id 
-                     AND fr.created_at = latest.latest_created_at
-            INNER JOIN currency_pairs cp ON fr.currency_pair_id = cp.id
-            WHERE cp.pair_code IN :pairCodes
-            ORDER BY fr.created_at DESC
-            """, nativeQuery = true)
-    List<ForexRate> findLatestRatesByPairCodes(@Param("pairCodes") List<String> pairCodes);
+        SELECT fr.*
+        FROM forex_rates fr
+        INNER JOIN (
+            SELECT currency_pair_id, MAX(id) as latest_id
+            FROM forex_rates
+            WHERE currency_pair_id IN :currencyPairIds
+              AND run_id <= :runId
+            GROUP BY currency_pair_id
+        ) latest ON fr.id = latest.latest_id
+        """, nativeQuery = true)
+    List<ForexRate> findRatesAtRun(@Param("currencyPairIds") List<Long> currencyPairIds, @Param("runId") Long runId);
 
     /**
-     * Find rate history for a specific currency pair with pagination
+     * Find rate history for a specific currency pair ID with pagination
      */
     @Query("""
         SELECT fr FROM ForexRate fr
-        JOIN FETCH fr.currencyPair cp
-        WHERE cp.pairCode = :pairCode
-        AND cp.isActive = true
+        WHERE fr.currencyPair.id = :currencyPairId
         ORDER BY fr.createdAt DESC
         """)
-    List<ForexRate> findRateHistoryByPairCode(@Param("pairCode") String pairCode, Pageable pageable);
+    List<ForexRate> findRateHistoryByCurrencyPairId(@Param("currencyPairId") Long currencyPairId, Pageable pageable);
+
     /**
      * Find the latest rate for a specific currency pair ID
      */
@@ -86,17 +71,26 @@ public interface ForexRateRepository extends JpaRepository<ForexRate, Long> {
 
 
     /**
-     * Find rates within a date range for a specific pair
+     * Find rates in effect at any time within a date range for a specific pair,
+     * including the one that was created before the range and confirmed into it
      */
     @Query("""
         SELECT fr FROM ForexRate fr
         JOIN FETCH fr.currencyPair cp
         WHERE cp.pairCode = :pairCode
-        AND fr.createdAt BETWEEN :startDate AND :endDate
+        AND fr.createdAt <= :endDate
+        AND COALESCE(fr.lastConfirmedAt, fr.createdAt) >= :startDate
         ORDER BY fr.createdAt DESC
         """)
     List<ForexRate> findByPairCodeAndDateRange(
             @Param("pairCode") String pairCode,
             @Param("startDate") java.time.LocalDateTime startDate,
             @Param("endDate") java.time.LocalDateTime endDate);
+
+    /**
+     * Record that an aggregation run produced the same rates again
+     */
+    @Modifying
+    @Query("UPDATE ForexRate fr SET fr.lastConfirmedAt = :confirmedAt WHERE fr.id IN :ids")
+    int confirmRates(@Param("ids") List<Long> ids, @Param("confirmedAt") java.time.LocalDateTime confirmedAt);
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.wiremit.forex.repository;
+
+import com.wiremit.forex.model.ProviderOutage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProviderOutageRepository extends JpaRepository<ProviderOutage, Long> {
+
+    Optional<ProviderOutage> findFirstByApiSourceAndEndedAtIsNullOrderByStartedAtDesc(String apiSource);
+
+    List<ProviderOutage> findTop50ByOrderByStartedAtDesc();
+}
@@ -0,0 +1,22 @@
+package com.wiremit.forex.repository;
+
+import com.wiremit.forex.model.RateRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface RateRunRepository extends JpaRepository<RateRun, Long> {
+
+    /**
+     * Find the most recently stored run
+     */
+    @Query("""
+        SELECT r FROM RateRun r
+        ORDER BY r.id DESC
+        LIMIT 1
+        """)
+    Optional<RateRun> findLatestRun();
+}
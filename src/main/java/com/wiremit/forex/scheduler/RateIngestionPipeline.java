@@ -0,0 +1,514 @@
+package com.wiremit.forex.scheduler;
+
+import com.wiremit.forex.dto.PipelineStatisticsDTO;
+import com.wiremit.forex.event.CurrencyPairChangedEvent;
+import com.wiremit.forex.event.RatesAggregatedEvent;
+import com.wiremit.forex.exception.LeaseLostException;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.model.FetchStatus;
+import com.wiremit.forex.model.ForexRate;
+import com.wiremit.forex.model.RateRun;
+import com.wiremit.forex.model.RawApiRate;
+import com.wiremit.forex.repository.ForexRateRepository;
+import com.wiremit.forex.repository.RateRunRepository;
+import com.wiremit.forex.service.CacheVersions;
+import com.wiremit.forex.service.ProviderHealthService;
+import com.wiremit.forex.service.RateChangeThreshold;
+import com.wiremit.forex.service.RateProvider;
+import com.wiremit.forex.service.RateProviderRegistry;
+import com.wiremit.forex.service.RateProviderRegistry.ProviderRates;
+import com.wiremit.forex.service.RawApiRateWriter;
+import com.wiremit.forex.service.RefreshPlanner;
+import com.wiremit.forex.service.SchedulerLease;
+import com.wiremit.forex.util.AggregationEngine;
+import com.wiremit.forex.util.ApiResponse;
+import com.wiremit.forex.util.PipelineStage;
+import com.wiremit.forex.util.RateMatrix;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Turns provider responses into stored aggregated rates through a chain of
+ * stages connected by bounded queues:
+ * fetch -> normalize -> validate -> aggregate -> persist -> publish.
+ * <p>
+ * Every provider response enters the pipeline as soon as it arrives and is
+ * normalized and validated on its own; the aggregate stage collects a run's
+ * responses until every provider answered or a quorum agrees, later responses
+ * are only kept for audit. Each stage runs on its own thread, and a stage that
+ * falls behind blocks the one feeding it once its queue is full.
+ * <p>
+ * A pair that becomes active without a current rate is quoted straight away from
+ * the providers' last payloads, through the same stages but without any provider call.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RateIngestionPipeline {
+
+    private final RateProviderRegistry rateProviderRegistry;
+    private final ProviderHealthService providerHealthService;
+    private final RawApiRateWriter rawApiRateWriter;
+    private final RefreshPlanner refreshPlanner;
+    private final RateChangeThreshold rateChangeThreshold;
+    private final AggregationEngine aggregationEngine;
+    private final ForexRateRepository forexRateRepository;
+    private final RateRunRepository rateRunRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SchedulerLease schedulerLease;
+    private final CacheVersions cacheVersions;
+    private final Clock clock;
+
+    private static final BigDecimal DEFAULT_MARKUP = BigDecimal.valueOf(0.10);
+
+    // Providers whose agreeing rates are enough to aggregate without waiting for the rest, 0 or 1 waits for all
+    @Value("${app.rates.quorum:2}")
+    private int quorum;
+
+    // Largest relative spread, (max - min) / min, between rates that count as agreeing
+    @Value("${app.rates.quorum-tolerance:0.005}")
+    private BigDecimal quorumTolerance;
+
+    @Value("${app.rates.pipeline.queue-capacity:64}")
+    private int queueCapacity;
+
+    private PipelineStage<ProviderBatch> normalizeStage;
+    private PipelineStage<ProviderBatch> validateStage;
+    private PipelineStage<ProviderBatch> aggregateStage;
+    private PipelineStage<AggregatedRun> persistStage;
+    private PipelineStage<AggregatedRun> publishStage;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong failedRuns = new AtomicLong();
+
+    /**
+     * State of one aggregation run, only touched by the aggregate stage once fetching has started
+     */
+    private static final class Run {
+
+        private final List<CurrencyPair> pairs;
+        private final Map<Long, Integer> pairIndexes = new HashMap<>();
+        private final Instant startedAt;
+        // Lease token the run's writes are fenced with
+        private final long fencingToken;
+        private final RateMatrix matrix;
+        private final List<ProviderRates> arrived = new ArrayList<>();
+        private final int providers;
+        // Quoted from the providers' last payloads rather than fetched
+        private final boolean fromLastPayloads;
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private boolean aggregated;
+
+        Run(List<CurrencyPair> pairs, int providers, Instant startedAt, long fencingToken, boolean fromLastPayloads) {
+            this.pairs = pairs;
+            this.providers = providers;
+            this.startedAt = startedAt;
+            this.fencingToken = fencingToken;
+            this.fromLastPayloads = fromLastPayloads;
+            this.matrix = new RateMatrix(providers, pairs.size());
+            for (int i = 0; i < pairs.size(); i++) {
+                pairIndexes.put(pairs.get(i).getId(), i);
+            }
+        }
+    }
+
+    /**
+     * @param quotes rates of the provider by run pair index, NaN where it had none
+     */
+    private record ProviderBatch(Run run, int provider, ProviderRates rates, double[] quotes) {
+    }
+
+    /**
+     * @param rates aggregated rates, null when the run was skipped because nothing changed upstream
+     */
+    private record AggregatedRun(Run run, List<ForexRate> rates, int confirmed) {
+    }
+
+    @PostConstruct
+    void start() {
+        // Built back to front, every stage hands its output to the next one
+        publishStage = new PipelineStage<>("publish", queueCapacity, this::publish, failRun(AggregatedRun::run));
+        persistStage = new PipelineStage<>("persist", queueCapacity, this::persist, failRun(AggregatedRun::run));
+        aggregateStage = new PipelineStage<>("aggregate", queueCapacity, this::aggregate, failRun(ProviderBatch::run));
+        validateStage = new PipelineStage<>("validate", queueCapacity, this::validate, failRun(ProviderBatch::run));
+        normalizeStage = new PipelineStage<>("normalize", queueCapacity, this::normalize, failRun(ProviderBatch::run));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (PipelineStage<?> stage : stages()) {
+            stage.close();
+        }
+    }
+
+    /**
+     * Fetch stage: start every provider's fetch and feed each response into the
+     * pipeline as it arrives
+     *
+     * @return completes once the run's aggregates are persisted and published
+     * @throws LeaseLostException when this node does not hold the rate ingestion lease
+     */
+    public CompletableFuture<Void> submit(List<CurrencyPair> pairs) {
+        long fencingToken = leaseToken();
+        Instant startedAt = clock.instant();
+        List<CompletableFuture<ProviderRates>> fetches = rateProviderRegistry.startFetches(pairs);
+        return start(new Run(pairs, fetches.size(), startedAt, fencingToken, false), fetches);
+    }
+
+    /**
+     * Aggregate rates for the pairs from the providers' last payloads, without calling
+     * any provider. Nothing is recorded about provider health or raw rates, and the
+     * pairs stay due for their first real fetch.
+     */
+    public CompletableFuture<Void> submitFromLastPayloads(List<CurrencyPair> pairs) {
+        long fencingToken = leaseToken();
+        List<CompletableFuture<ProviderRates>> quotes = rateProviderRegistry.ratesFromLastPayloads(pairs).stream()
+                .map(CompletableFuture::completedFuture)
+                .toList();
+        return start(new Run(pairs, quotes.size(), clock.instant(), fencingToken, true), quotes);
+    }
+
+    /**
+     * Quote a pair that was just created or activated straight away, unless it already
+     * has a rate at least as recent as the providers' last payloads
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCurrencyPairChanged(CurrencyPairChangedEvent event) {
+        // Followers leave the new pair to the leader's next run
+        if (event.isDeleted() || !Boolean.TRUE.equals(event.pair().getIsActive()) || !schedulerLease.isLeader()) {
+            return;
+        }
+        try {
+            Instant lastPayloadAt = rateProviderRegistry.getEnabledProviders().stream()
+                    .map(RateProvider::getLastFetchedAt)
+                    .filter(Objects::nonNull)
+                    .max(Comparator.naturalOrder())
+                    .orElse(null);
+            if (lastPayloadAt == null) {
+                return;
+            }
+            boolean current = forexRateRepository.findLatestRateByCurrencyPairId(event.pairId())
+                    .map(ForexRate::getLastConfirmedAt)
+                    .map(confirmedAt -> !confirmedAt.toInstant(ZoneOffset.UTC).isBefore(lastPayloadAt))
+                    .orElse(false);
+            if (!current) {
+                log.info("Quoting {} from the providers' last payloads", event.pair().getPairCode());
+                submitFromLastPayloads(List.of(event.pair()));
+            }
+        } catch (Exception e) {
+            log.error("Could not quote {} from cached payloads: {}", event.pair().getPairCode(), e.getMessage());
+        }
+    }
+
+    private long leaseToken() {
+        return schedulerLease.currentToken().orElseThrow(() -> new LeaseLostException(
+                "Node " + schedulerLease.getNodeId() + " does not hold the rate ingestion lease"));
+    }
+
+    private CompletableFuture<Void> start(Run run, List<CompletableFuture<ProviderRates>> fetches) {
+        runs.incrementAndGet();
+
+        if (fetches.isEmpty()) {
+            run.completion.complete(null);
+            return run.completion;
+        }
+        for (int provider = 0; provider < fetches.size(); provider++) {
+            int index = provider;
+            fetches.get(provider).whenComplete((rates, error) -> {
+                if (error != null) {
+                    fail(run, error);
+                } else {
+                    normalizeStage.put(new ProviderBatch(run, index, rates, null));
+                }
+            });
+        }
+        return run.completion;
+    }
+
+    public ResponseEntity<ApiResponse<PipelineStatisticsDTO>> getStatistics(HttpServletRequest request) {
+        PipelineStatisticsDTO statistics = PipelineStatisticsDTO.builder()
+                .runs(runs.get())
+                .failedRuns(failedRuns.get())
+                .stages(Arrays.stream(stages())
+                        .map(stage -> PipelineStatisticsDTO.StageStatistics.builder()
+                                .stage(stage.getName())
+                                .queued(stage.size())
+                                .capacity(stage.capacity())
+                                .processed(stage.getProcessedCount())
+                                .failed(stage.getFailedCount())
+                                .queueWaitP50Micros(micros(stage.queueWaitPercentile(0.5)))
+                                .queueWaitP99Micros(micros(stage.queueWaitPercentile(0.99)))
+                                .serviceTimeP50Micros(micros(stage.serviceTimePercentile(0.5)))
+                                .serviceTimeP99Micros(micros(stage.serviceTimePercentile(0.99)))
+                                .build())
+                        .toList())
+                .build();
+
+        return ResponseEntity.ok(
+                ApiResponse.success("Pipeline statistics fetched successfully", statistics)
+                        .path(request.getRequestURI())
+        );
+    }
+
+    /**
+     * Record the provider's health, queue its fresh raw rates for audit and lay
+     * its successful rates out by run pair index
+     */
+    private void normalize(ProviderBatch batch) {
+        ProviderRates rates = batch.rates();
+
+        if (!batch.run().fromLastPayloads) {
+            // An unreachable provider is recorded once as an outage rather than as a failed rate per pair
+            providerHealthService.recordOutcomes(List.of(rates));
+
+            // Rates reused from an earlier fetch have already been written
+            if (rates.fresh() && rates.available() && !rates.rates().isEmpty()) {
+                rawApiRateWriter.submit(rates.rates());
+            }
+        }
+
+        double[] quotes = new double[batch.run().pairs.size()];
+        Arrays.fill(quotes, Double.NaN);
+        for (RawApiRate rate : rates.rates()) {
+            Integer pairIndex = batch.run().pairIndexes.get(rate.getCurrencyPair().getId());
+            if (pairIndex != null && rate.getStatus() == FetchStatus.SUCCESS && rate.getRate() != null) {
+                quotes[pairIndex] = rate.getRate().doubleValue();
+            }
+        }
+        validateStage.put(new ProviderBatch(batch.run(), batch.provider(), rates, quotes));
+    }
+
+    /**
+     * Drop quotes that cannot be a rate
+     */
+    private void validate(ProviderBatch batch) {
+        double[] quotes = batch.quotes();
+        int rejected = 0;
+        for (int i = 0; i < quotes.length; i++) {
+            if (!Double.isNaN(quotes[i]) && (!(quotes[i] > 0) || Double.isInfinite(quotes[i]))) {
+                quotes[i] = Double.NaN;
+                rejected++;
+            }
+        }
+        if (rejected > 0) {
+            log.warn("Rejected {} invalid rates from {}", rejected, batch.rates().provider().getApiSource());
+        }
+        aggregateStage.put(batch);
+    }
+
+    /**
+     * Collect the run's responses and aggregate once every provider answered or a quorum agrees
+     */
+    private void aggregate(ProviderBatch batch) {
+        Run run = batch.run();
+        if (run.aggregated) {
+            // Late providers do not change the run's aggregates, their raw rates are kept for audit
+            log.info("Late rates from {} kept for audit only", batch.rates().provider().getApiSource());
+            return;
+        }
+
+        run.arrived.add(batch.rates());
+        run.matrix.setWeight(batch.provider(), batch.rates().provider().getWeight().doubleValue());
+        double[] quotes = batch.quotes();
+        for (int i = 0; i < quotes.length; i++) {
+            if (!Double.isNaN(quotes[i])) {
+                run.matrix.set(batch.provider(), i, quotes[i]);
+            }
+        }
+
+        boolean allArrived = run.arrived.size() == run.providers;
+        boolean quorumReached = quorum >= 2 && quorum < run.providers
+                && RateProviderRegistry.hasQuorum(run.arrived, run.pairs, quorum, quorumTolerance);
+        if (!allArrived && !quorumReached) {
+            return;
+        }
+        run.aggregated = true;
+        if (!allArrived) {
+            log.info("Quorum of {} reached with {} of {} providers", quorum, run.arrived.size(), run.providers);
+        }
+
+        // Nothing new upstream, the stored aggregates are still current
+        if (run.arrived.stream().noneMatch(rates -> rates.fresh() && rates.available())) {
+            log.info("No provider has new data. Skipping rate aggregation.");
+            persistStage.put(new AggregatedRun(run, null, 0));
+            return;
+        }
+        persistStage.put(new AggregatedRun(run, calculateAggregatedRates(run), 0));
+    }
+
+    private void persist(AggregatedRun aggregatedRun) {
+        Run run = aggregatedRun.run();
+        if (aggregatedRun.rates() == null) {
+            // Pairs stay due, and are retried on the next tick, until a provider has actually
+            // answered for them; reused rates of paced-out or failing providers do not count
+            if (run.arrived.stream().anyMatch(rates -> rates.provider().answeredSince(run.startedAt))) {
+                refreshPlanner.refreshed(run.pairs);
+            }
+            publishStage.put(new AggregatedRun(run, List.of(), 0));
+            return;
+        }
+
+        Integer confirmed = aggregatedRun.rates().isEmpty() ? 0
+                : transactionTemplate.execute(status -> {
+                    schedulerLease.verify(run.fencingToken);
+                    RateRun rateRun = rateRunRepository.save(RateRun.builder()
+                            .startedAt(LocalDateTime.ofInstant(run.startedAt, ZoneOffset.UTC))
+                            .pairsRequested(run.pairs.size())
+                            .fencingToken(run.fencingToken)
+                            .build());
+                    int confirmedRates = storeAggregatedRates(aggregatedRun.rates(), rateRun.getId());
+                    rateRun.setRatesStored(aggregatedRun.rates().size() - confirmedRates);
+                    rateRun.setRatesConfirmed(confirmedRates);
+                    cacheVersions.forexRatesChanged();
+                    return confirmedRates;
+                });
+        if (!run.fromLastPayloads) {
+            refreshPlanner.refreshed(run.pairs);
+        }
+        publishStage.put(new AggregatedRun(run, aggregatedRun.rates(), confirmed == null ? 0 : confirmed));
+    }
+
+    private void publish(AggregatedRun aggregatedRun) {
+        eventPublisher.publishEvent(new RatesAggregatedEvent(aggregatedRun.rates(), aggregatedRun.confirmed()));
+        aggregatedRun.run().completion.complete(null);
+    }
+
+    private <T> BiConsumer<T, RuntimeException> failRun(Function<T, Run> run) {
+        return (item, error) -> fail(run.apply(item), error);
+    }
+
+    private void fail(Run run, Throwable error) {
+        if (run.completion.completeExceptionally(error)) {
+            failedRuns.incrementAndGet();
+        }
+    }
+
+    /**
+     * Calculate aggregated rates for each currency pair of the run from its rate matrix
+     */
+    private List<ForexRate> calculateAggregatedRates(Run run) {
+        AggregationEngine.Result result = aggregationEngine.aggregate(run.matrix);
+
+        List<ForexRate> aggregatedRates = new ArrayList<>();
+        for (int i = 0; i < run.pairs.size(); i++) {
+            CurrencyPair pair = run.pairs.get(i);
+            double averageRate = result.rates()[i];
+            if (Double.isNaN(averageRate)) {
+                log.warn("No successful rates found for pair: {}", pair.getPairCode());
+                continue;
+            }
+
+            ForexRate aggregatedRate = applyMarkup(pair, averageRate, result.sourceCounts()[i]);
+            if (aggregatedRate != null) {
+                aggregatedRates.add(aggregatedRate);
+                log.debug("Calculated aggregated rate for {}: {} (from {} sources)",
+                        pair.getPairCode(), aggregatedRate.getFinalRate(), aggregatedRate.getSourcesCount());
+            }
+        }
+        log.info("Aggregated {} of {} pairs ({})", aggregatedRates.size(), run.pairs.size(), aggregationEngine);
+
+        return aggregatedRates;
+    }
+
+    /**
+     * Insert the rates that moved past their pair's change threshold; for the others
+     * the latest stored rate only has its last-confirmed time moved forward
+     *
+     * @param runId run the inserted rates belong to
+     * @return number of rates that were only confirmed
+     */
+    private int storeAggregatedRates(List<ForexRate> aggregatedRates, Long runId) {
+        LocalDateTime confirmedAt = LocalDateTime.now(clock);
+        List<Long> pairIds = aggregatedRates.stream().map(rate -> rate.getCurrencyPair().getId()).toList();
+        Map<Long, ForexRate> latestRates = forexRateRepository.findLatestRatesByCurrencyPairIds(pairIds).stream()
+                .collect(Collectors.toMap(rate -> rate.getCurrencyPair().getId(), rate -> rate, (first, second) -> first));
+
+        List<ForexRate> changedRates = new ArrayList<>();
+        List<Long> confirmedRateIds = new ArrayList<>();
+        for (ForexRate rate : aggregatedRates) {
+            ForexRate latest = latestRates.get(rate.getCurrencyPair().getId());
+            if (rateChangeThreshold.hasMoved(rate.getCurrencyPair(), latest, rate)) {
+                rate.setLastConfirmedAt(confirmedAt);
+                rate.setRunId(runId);
+                changedRates.add(rate);
+            } else {
+                confirmedRateIds.add(latest.getId());
+            }
+        }
+
+        if (!changedRates.isEmpty()) {
+            forexRateRepository.saveAll(changedRates);
+        }
+        if (!confirmedRateIds.isEmpty()) {
+            forexRateRepository.confirmRates(confirmedRateIds, confirmedAt);
+        }
+        log.info("Saved {} aggregated forex rates to database, {} unchanged rates confirmed",
+                changedRates.size(), confirmedRateIds.size());
+        return confirmedRateIds.size();
+    }
+
+    /**
+     * Apply the pair's markup to its aggregated rate
+     */
+    private ForexRate applyMarkup(CurrencyPair pair, double aggregatedRate, int sourcesCount) {
+        try {
+            BigDecimal averageRate = BigDecimal.valueOf(aggregatedRate).setScale(8, RoundingMode.HALF_UP);
+
+            BigDecimal markup = pair.getCustomMarkup() != null ? pair.getCustomMarkup() : DEFAULT_MARKUP;
+
+            // Apply percentage markup: finalRate = averageRate * (1 + markupPercentage/100)
+            BigDecimal markupMultiplier = BigDecimal.ONE.add(markup.divide(BigDecimal.valueOf(100), 8, RoundingMode.HALF_UP));
+            BigDecimal finalRate = averageRate.multiply(markupMultiplier).setScale(8, RoundingMode.HALF_UP);
+
+            return ForexRate.builder()
+                    .currencyPair(pair)
+                    .averageRate(averageRate)
+                    .finalRate(finalRate)
+                    .markupApplied(markup)
+                    .sourcesCount(sourcesCount)
+                    .build();
+
+        } catch (Exception e) {
+            log.error("Error calculating average rate for {}: {}", pair.getPairCode(), e.getMessage());
+            return null;
+        }
+    }
+
+    private PipelineStage<?>[] stages() {
+        return new PipelineStage<?>[]{normalizeStage, validateStage, aggregateStage, persistStage, publishStage};
+    }
+
+    private static Long micros(Duration duration) {
+        return duration == null ? null : duration.toNanos() / 1_000;
+    }
+}
@@ -0,0 +1,104 @@
+package com.wiremit.forex.scheduler;
+
+import com.wiremit.forex.event.LeaseAcquiredEvent;
+import com.wiremit.forex.service.RawApiRatePartitionService;
+import com.wiremit.forex.service.RawRateArchiveService;
+import com.wiremit.forex.service.SchedulerLease;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.YearMonth;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RawApiRateRetentionScheduler {
+
+    private final RawApiRatePartitionService partitionService;
+    private final RawRateArchiveService archiveService;
+    private final SchedulerLease schedulerLease;
+    private final Clock clock;
+
+    @Value("${app.raw-rates.retention.enabled:true}")
+    private boolean retentionEnabled;
+
+    @Value("${app.raw-rates.retention.months:3}")
+    private int retentionMonths;
+
+    @Value("${app.raw-rates.archive.enabled:true}")
+    private boolean archiveEnabled;
+
+    /**
+     * Make sure the upcoming monthly partitions exist as soon as this node becomes the
+     * rate ingestion leader, at startup before its first fetch or on taking over, rather
+     * than at the next daily run. Like retention this is left to the leader.
+     */
+    @EventListener
+    public void preparePartitions(LeaseAcquiredEvent event) {
+        try {
+            partitionService.ensureMonthlyPartitions();
+        } catch (Exception e) {
+            log.error("Failed to prepare raw_api_rates partitions: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Daily maintenance: pre-create upcoming partitions and drop the ones past retention.
+     * Keeps the current month plus the previous {@code retentionMonths} full months.
+     * When archiving is enabled a month is only dropped once its archive segment exists.
+     * Only the rate ingestion leader runs it, so nodes never archive or drop the same month at once.
+     */
+    @Scheduled(cron = "${app.raw-rates.retention.cron:0 30 2 * * ?}")
+    public void enforceRetention() {
+        if (!schedulerLease.isLeader()) {
+            log.debug("Node {} is not the rate ingestion leader, skipping raw API rate retention", schedulerLease.getNodeId());
+            return;
+        }
+        try {
+            partitionService.ensureMonthlyPartitions();
+
+            if (!retentionEnabled) {
+                return;
+            }
+
+            YearMonth cutoff = YearMonth.now(clock).minusMonths(retentionMonths);
+            if (archiveEnabled) {
+                cutoff = archiveMonthsBefore(cutoff);
+            }
+
+            log.info("Enforcing raw API rate retention: removing months before {}", cutoff);
+            partitionService.dropMonthsBefore(cutoff);
+
+        } catch (Exception e) {
+            log.error("Error during raw API rate retention: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Archive every month before the cutoff that has no segment yet
+     *
+     * @return the month up to which rows are safe to drop
+     */
+    private YearMonth archiveMonthsBefore(YearMonth cutoff) {
+        YearMonth oldest = partitionService.findOldestMonth().orElse(cutoff);
+
+        for (YearMonth month = oldest; month.isBefore(cutoff); month = month.plusMonths(1)) {
+            if (archiveService.isArchived(month)) {
+                continue;
+            }
+            try {
+                archiveService.archiveMonth(month);
+            } catch (Exception e) {
+                log.error("Failed to archive raw API rates for {}, keeping it and later months: {}",
+                        month, e.getMessage(), e);
+                return month;
+            }
+        }
+        return cutoff;
+    }
+}
@@ -0,0 +1,318 @@
+package com.wiremit.forex.scheduler;
+
+import com.wiremit.forex.dto.RefreshRunDTO;
+import com.wiremit.forex.exception.CurrencyPairNotFoundException;
+import com.wiremit.forex.exception.RefreshRunNotFoundException;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.service.CurrencyPairRegistry;
+import com.wiremit.forex.util.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Single entry point for rate refreshes, scheduled or requested by an admin.
+ * <p>
+ * At most one run is in flight. A request whose pairs the in-flight run already
+ * covers joins it; any other request is merged into the one pending run, which
+ * starts as soon as the in-flight run finishes. A burst of triggers therefore
+ * costs at most two pipeline runs, and never calls a provider twice at once.
+ * A run that overruns the run timeout is reported as failed straight away, but
+ * the pending run only starts once the pipeline is actually done with it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshCoordinator {
+
+    public enum Trigger {
+        SCHEDULED, MANUAL
+    }
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    private static final int RECENT_RUNS = 50;
+
+    private final RateIngestionPipeline rateIngestionPipeline;
+    private final CurrencyPairRegistry currencyPairRegistry;
+    private final Clock clock;
+
+    // Longest a run may take before it is reported as failed
+    @Value("${app.rates.pipeline.run-timeout:2m}")
+    private Duration runTimeout;
+
+    private final Object lock = new Object();
+    private RefreshRun inFlight;
+    private RefreshRun pending;
+    private final Map<String, RefreshRun> recentRuns = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RefreshRun> eldest) {
+            return size() > RECENT_RUNS;
+        }
+    };
+
+    /**
+     * A pipeline run shared by every request coalesced into it. Mutable state is
+     * guarded by the coordinator's lock.
+     */
+    public static final class RefreshRun {
+
+        private final String id = UUID.randomUUID().toString();
+        private final Map<Long, CurrencyPair> pairs = new LinkedHashMap<>();
+        private final Set<Trigger> triggers = EnumSet.noneOf(Trigger.class);
+        private final Instant requestedAt;
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private Status status = Status.PENDING;
+        private int coalescedRequests;
+        private Instant startedAt;
+        private Instant completedAt;
+        private String error;
+
+        private RefreshRun(List<CurrencyPair> pairs, Trigger trigger, Instant requestedAt) {
+            this.requestedAt = requestedAt;
+            add(pairs, trigger);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Completes once the run's aggregates are persisted, exceptionally if the run failed
+         */
+        public CompletableFuture<Void> completion() {
+            return completion;
+        }
+
+        private boolean covers(List<CurrencyPair> requested) {
+            return requested.stream().allMatch(pair -> pairs.containsKey(pair.getId()));
+        }
+
+        private void add(List<CurrencyPair> requested, Trigger trigger) {
+            requested.forEach(pair -> pairs.putIfAbsent(pair.getId(), pair));
+            triggers.add(trigger);
+        }
+
+        private void coalesce(List<CurrencyPair> requested, Trigger trigger) {
+            add(requested, trigger);
+            coalescedRequests++;
+        }
+
+        private RefreshRunDTO toDTO() {
+            return RefreshRunDTO.builder()
+                    .runId(id)
+                    .status(status.name())
+                    .triggers(triggers.stream().map(Trigger::name).toList())
+                    .pairCodes(pairs.values().stream().map(CurrencyPair::getPairCode).toList())
+                    .coalescedRequests(coalescedRequests)
+                    .requestedAt(requestedAt)
+                    .startedAt(startedAt)
+                    .completedAt(completedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+
+    /**
+     * Refresh the pairs, joining the in-flight run when it covers them and the
+     * pending run otherwise
+     */
+    public RefreshRun request(List<CurrencyPair> pairs, Trigger trigger) {
+        RefreshRun run;
+        boolean start = false;
+        synchronized (lock) {
+            // A run that timed out is still in flight but no longer joinable
+            if (inFlight != null && !inFlight.completion.isDone() && inFlight.covers(pairs)) {
+                inFlight.coalesce(pairs, trigger);
+                run = inFlight;
+            } else if (inFlight == null) {
+                run = inFlight = newRun(pairs, trigger);
+                start = true;
+            } else if (pending == null) {
+                run = pending = newRun(pairs, trigger);
+            } else {
+                pending.coalesce(pairs, trigger);
+                run = pending;
+            }
+        }
+        log.debug("Refresh requested by {} for {} pairs, served by run {}", trigger, pairs.size(), run.id);
+        if (start) {
+            start(run);
+        }
+        return run;
+    }
+
+    /**
+     * Admin trigger: refresh the selected pairs, or every active pair, whether or not
+     * the refresh planner considers them due. With {@code wait} the response is sent
+     * once the run finished or the run timeout passed.
+     */
+    public ResponseEntity<ApiResponse<RefreshRunDTO>> triggerRefresh(List<String> pairCodes, boolean wait,
+                                                                     HttpServletRequest request) {
+        List<CurrencyPair> pairs = resolvePairs(pairCodes);
+        RefreshRun run = request(pairs, Trigger.MANUAL);
+
+        if (wait) {
+            try {
+                run.completion().get(runTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // The run reports its own failure, and a timeout leaves it running
+            }
+        }
+
+        RefreshRunDTO dto = snapshot(run);
+        boolean done = dto.getCompletedAt() != null;
+        ApiResponse<RefreshRunDTO> response = ApiResponse
+                .success(done ? "Rate refresh finished" : "Rate refresh accepted", dto)
+                .status(done ? HttpStatus.OK.value() : HttpStatus.ACCEPTED.value())
+                .path(request.getRequestURI());
+
+        return ResponseEntity.status(done ? HttpStatus.OK : HttpStatus.ACCEPTED).body(response);
+    }
+
+    public ResponseEntity<ApiResponse<RefreshRunDTO>> getRun(String runId, HttpServletRequest request) {
+        RefreshRunDTO dto;
+        synchronized (lock) {
+            RefreshRun run = recentRuns.get(runId);
+            if (run == null) {
+                throw new RefreshRunNotFoundException("Refresh run not found: " + runId);
+            }
+            dto = run.toDTO();
+        }
+
+        ApiResponse<RefreshRunDTO> response = ApiResponse
+                .success("Refresh run retrieved successfully", dto)
+                .path(request.getRequestURI());
+
+        return ResponseEntity.ok(response);
+    }
+
+    public RefreshRunDTO snapshot(RefreshRun run) {
+        synchronized (lock) {
+            return run.toDTO();
+        }
+    }
+
+    private List<CurrencyPair> resolvePairs(List<String> pairCodes) {
+        if (pairCodes == null || pairCodes.isEmpty()) {
+            List<CurrencyPair> activePairs = currencyPairRegistry.getActivePairs();
+            if (activePairs.isEmpty()) {
+                throw new CurrencyPairNotFoundException("No active currency pairs to refresh");
+            }
+            return activePairs;
+        }
+
+        List<CurrencyPair> pairs = new ArrayList<>();
+        List<String> unknown = new ArrayList<>();
+        for (String pairCode : pairCodes) {
+            String normalized = pairCode.trim().toUpperCase();
+            currencyPairRegistry.findActiveByPairCode(normalized)
+                    .ifPresentOrElse(pairs::add, () -> unknown.add(normalized));
+        }
+        if (!unknown.isEmpty()) {
+            throw new CurrencyPairNotFoundException("Active currency pair not found: " + String.join(", ", unknown));
+        }
+        return pairs;
+    }
+
+    private RefreshRun newRun(List<CurrencyPair> pairs, Trigger trigger) {
+        RefreshRun run = new RefreshRun(pairs, trigger, clock.instant());
+        recentRuns.put(run.id, run);
+        return run;
+    }
+
+    private void start(RefreshRun run) {
+        List<CurrencyPair> pairs;
+        synchronized (lock) {
+            run.status = Status.RUNNING;
+            run.startedAt = clock.instant();
+            pairs = List.copyOf(run.pairs.values());
+        }
+
+        CompletableFuture<Void> result;
+        try {
+            result = rateIngestionPipeline.submit(pairs);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture.delayedExecutor(runTimeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> timeOut(run));
+        result.whenComplete((ignored, error) -> finish(run, error));
+    }
+
+    private void finish(RefreshRun run, Throwable error) {
+        RefreshRun next;
+        boolean timedOut;
+        synchronized (lock) {
+            timedOut = run.status != Status.RUNNING;
+            if (!timedOut) {
+                run.completedAt = clock.instant();
+                if (error == null) {
+                    run.status = Status.COMPLETED;
+                } else {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    run.status = Status.FAILED;
+                    run.error = cause.getMessage();
+                }
+            }
+            next = pending;
+            pending = null;
+            inFlight = next;
+        }
+
+        if (timedOut) {
+            // Already reported as failed, the outcome only frees the slot
+            log.warn("Refresh run {} finished after it timed out{}", run.id,
+                    error == null ? "" : ": " + error.getMessage());
+        } else if (error == null) {
+            log.info("Refresh run {} completed for {} pairs ({} coalesced requests)",
+                    run.id, run.pairs.size(), run.coalescedRequests);
+            run.completion.complete(null);
+        } else {
+            log.error("Refresh run {} failed: {}", run.id, run.error);
+            run.completion.completeExceptionally(error);
+        }
+
+        if (next != null) {
+            start(next);
+        }
+    }
+
+    /**
+     * Report an overrunning run as failed. It keeps the in-flight slot, and new
+     * requests stop joining it, until the pipeline completes it.
+     */
+    private void timeOut(RefreshRun run) {
+        synchronized (lock) {
+            if (run.status != Status.RUNNING) {
+                return;
+            }
+            run.completedAt = clock.instant();
+            run.status = Status.FAILED;
+            run.error = "Run did not complete within " + runTimeout;
+        }
+        log.error("Refresh run {} failed: {}, the next run waits until it is done", run.id, run.error);
+        run.completion.completeExceptionally(new TimeoutException(run.error));
+    }
+}
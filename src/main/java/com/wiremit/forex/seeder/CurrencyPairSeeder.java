@@ -2,6 +2,7 @@ package com.wiremit.forex.seeder;
 
 import com.wiremit.forex.model.CurrencyPair;
 import com.wiremit.forex.repository.CurrencyPairRepository;
+import com.wiremit.forex.service.CurrencyPairRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
@@ -16,6 +17,7 @@ import java.util.List;
 public class CurrencyPairSeeder implements CommandLineRunner {
 
     private final CurrencyPairRepository currencyPairRepository;
+    private final CurrencyPairRegistry currencyPairRegistry;
 
     @Override
     public void run(String... args) throws Exception {
@@ -84,6 +86,7 @@ public class CurrencyPairSeeder implements CommandLineRunner {
 
         // Save currency pairs
         List<CurrencyPair> savedPairs = currencyPairRepository.saveAll(currencyPairs);
+        currencyPairRegistry.reload();
 
         log.info("Successfully seeded {} currency pairs:", savedPairs.size());
         savedPairs.forEach(pair ->
@@ -1,11 +1,18 @@
 package com.wiremit.forex.service;
 
-import com.wiremit.forex.dto.response.ForexApiResponse;
+import com.wiremit.forex.dto.response.ProviderQuotes;
 import com.wiremit.forex.model.CurrencyPair;
 import com.wiremit.forex.model.FetchStatus;
 import com.wiremit.forex.model.RawApiRate;
+import com.wiremit.forex.util.CurrencyCode;
+import com.wiremit.forex.util.ProviderPayloadParser;
+import com.wiremit.forex.util.QuoteVector;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.RestClientException;
 
@@ -13,8 +20,8 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 @RequiredArgsConstructor
 @Slf4j
@@ -22,62 +29,198 @@ public abstract class BaseForexApiService {
 
     protected final RestTemplate restTemplate;
 
-    protected abstract String getApiSource();
+    public abstract String getApiSource();
+    public abstract String getBaseUrl();
     protected abstract String buildApiUrl(List<CurrencyPair> currencyPairs);
-    protected abstract Class<? extends ForexApiResponse> getResponseClass();
 
     /**
-     * Common method to fetch rates for all currency pairs
+     * Validators and publish time of the last payload that was turned into rates
+     *
+     * @param pairKeys packed pairs the rates were computed for, sorted
      */
-    public List<RawApiRate> fetchRatesForPairs(List<CurrencyPair> currencyPairs) {
+    private record UpstreamSnapshot(String eTag, String lastModified, Long timestamp, int[] pairKeys) {
+
+        boolean covers(int[] keys) {
+            for (int key : keys) {
+                if (Arrays.binarySearch(pairKeys, key) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Response body together with the validators it was served with
+     */
+    private record Payload(ProviderQuotes quotes, boolean notModified, String eTag, String lastModified) {
+    }
+
+    /**
+     * Rates of one fetch
+     *
+     * @param unchanged    true when the provider had nothing newer than the last fetch, rates is then empty
+     * @param errorMessage why the provider as a whole could not be read, rates is then empty
+     */
+    public record FetchResult(List<RawApiRate> rates, boolean unchanged, String errorMessage) {
+
+        public static FetchResult changed(List<RawApiRate> rates) {
+            return new FetchResult(rates, false, null);
+        }
+
+        public static FetchResult noChange() {
+            return new FetchResult(List.of(), true, null);
+        }
+
+        public static FetchResult failed(String errorMessage) {
+            return new FetchResult(List.of(), false, errorMessage);
+        }
+
+        public boolean isFailed() {
+            return errorMessage != null;
+        }
+    }
+
+    // Currencies read from a payload by CurrencyCode ordinal, null reads every currency
+    private volatile boolean[] parsedCurrencies;
+
+    private volatile UpstreamSnapshot lastSnapshot;
+    private volatile QuoteVector lastQuotes;
+
+    /**
+     * Fetch rates unless the provider still serves the payload of the last fetch.
+     * The request carries If-None-Match / If-Modified-Since from the previous
+     * response, and a 304 or a body with an unchanged timestamp ends the fetch
+     * before any rate is computed.
+     */
+    public FetchResult fetchIfChanged(List<CurrencyPair> currencyPairs) {
         List<RawApiRate> rawRates = new ArrayList<>();
 
         try {
             String url = buildApiUrl(currencyPairs);
 
-            ForexApiResponse response = restTemplate.getForObject(url, getResponseClass());
+            // A snapshot only stands in for pairs whose rates it produced
+            int[] pairKeys = pairKeys(currencyPairs);
+            UpstreamSnapshot previous = lastSnapshot != null && lastSnapshot.covers(pairKeys)
+                    ? lastSnapshot
+                    : null;
+
+            Payload payload = restTemplate.execute(url, HttpMethod.GET,
+                    request -> {
+                        HttpHeaders headers = request.getHeaders();
+                        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+                        if (previous != null && previous.eTag() != null) {
+                            headers.setIfNoneMatch(previous.eTag());
+                        }
+                        if (previous != null && previous.lastModified() != null) {
+                            headers.set(HttpHeaders.IF_MODIFIED_SINCE, previous.lastModified());
+                        }
+                    },
+                    httpResponse -> {
+                        HttpHeaders headers = httpResponse.getHeaders();
+                        boolean notModified = httpResponse.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value();
+                        ProviderQuotes quotes = notModified
+                                ? null
+                                : ProviderPayloadParser.parse(httpResponse.getBody(), parsedCurrencies, "USD");
+                        return new Payload(quotes, notModified, headers.getETag(),
+                                headers.getFirst(HttpHeaders.LAST_MODIFIED));
+                    });
 
+            if (payload != null && payload.notModified()) {
+                if (previous != null) {
+                    log.info("{} returned 304 Not Modified, keeping previous rates", getApiSource());
+                    return FetchResult.noChange();
+                }
+                // Only reachable when a proxy answers 304 to a request without validators
+                payload = null;
+            }
+
+            ProviderQuotes response = payload != null ? payload.quotes() : null;
             if (response != null && response.isSuccess()) {
-                log.info("Successfully fetched {} rates from {}", response.getRates().size(), getApiSource());
+                if (previous != null && response.timestamp() != null && response.timestamp().equals(previous.timestamp())) {
+                    log.info("{} data unchanged since {}, keeping previous rates", getApiSource(), response.timestamp());
+                    return FetchResult.noChange();
+                }
+
+                log.info("Successfully fetched {} rates from {}", response.quoteCount(), getApiSource());
+
+                QuoteVector usdQuotes = response.quotes().rebase(CurrencyCode.USD);
+                if (usdQuotes == null) {
+                    return FetchResult.failed("USD rate not found in " + getApiSource() + " response");
+                }
+                lastQuotes = usdQuotes;
 
                 // Process each currency pair
                 for (CurrencyPair pair : currencyPairs) {
-                    RawApiRate rawRate = calculateRateForPair(pair, response);
+                    RawApiRate rawRate = calculateRateForPair(pair, usdQuotes);
                     if (rawRate != null) {
                         rawRates.add(rawRate);
                     }
                 }
+
+                // Partial results are not remembered, the next fetch recomputes every pair
+                boolean complete = rawRates.size() == currencyPairs.size()
+                        && rawRates.stream().allMatch(rate -> rate.getStatus() == FetchStatus.SUCCESS);
+                lastSnapshot = complete
+                        ? new UpstreamSnapshot(payload.eTag(), payload.lastModified(), response.timestamp(), pairKeys)
+                        : null;
             } else {
-                String errorMsg = response != null ? response.getErrorMessage() : "Null response from API";
+                String errorMsg = response != null ? response.errorMessage() : "Null response from API";
                 log.error("{} API returned error: {}", getApiSource(), errorMsg);
-
-                // Create failed entries for all pairs
-                for (CurrencyPair pair : currencyPairs) {
-                    rawRates.add(createFailedRate(pair, errorMsg));
-                }
+                return FetchResult.failed(errorMsg);
             }
 
         } catch (RestClientException e) {
             log.error("Failed to fetch rates from {}: {}", getApiSource(), e.getMessage());
-            // Create failed entries for all pairs
-            for (CurrencyPair pair : currencyPairs) {
-                rawRates.add(createFailedRate(pair, e.getMessage()));
-            }
+            return FetchResult.failed(e.getMessage());
         }
 
-        return rawRates;
+        return FetchResult.changed(rawRates);
+    }
+
+    /**
+     * Rates of the pairs computed from the last successful payload, without calling
+     * the provider. Pairs whose currencies the payload did not quote are left out.
+     */
+    public List<RawApiRate> ratesFromLastPayload(List<CurrencyPair> currencyPairs) {
+        QuoteVector usdQuotes = lastQuotes;
+        if (usdQuotes == null) {
+            return List.of();
+        }
+        return currencyPairs.stream()
+                .map(pair -> calculateRateForPair(pair, usdQuotes))
+                .filter(rate -> rate.getStatus() == FetchStatus.SUCCESS)
+                .toList();
+    }
+
+    private static int[] pairKeys(List<CurrencyPair> currencyPairs) {
+        return currencyPairs.stream()
+                .mapToInt(pair -> CurrencyCode.parsePair(pair.getPairCode()))
+                .sorted()
+                .toArray();
+    }
+
+    /**
+     * Read only these currencies, indexed by {@link CurrencyCode} ordinal, from the payloads
+     * to come. The last payload was read with the previous set, so it no longer stands in
+     * for a fetch and the next one reads the body again.
+     */
+    public void parseOnly(boolean[] currencies) {
+        parsedCurrencies = currencies;
+        lastSnapshot = null;
     }
 
     /**
      * Common rate calculation logic for currency pairs
      */
-    protected RawApiRate calculateRateForPair(CurrencyPair pair, ForexApiResponse response) {
+    protected RawApiRate calculateRateForPair(CurrencyPair pair, QuoteVector usdQuotes) {
         try {
-            String baseCurrency = pair.getBaseCurrency();
-            String targetCurrency = pair.getTargetCurrency();
-            Map<String, BigDecimal> rates = response.getRates();
+            int baseCurrency = CurrencyCode.parse(pair.getBaseCurrency());
+            int targetCurrency = CurrencyCode.parse(pair.getTargetCurrency());
 
-            BigDecimal rate = calculateCurrencyRate(baseCurrency, targetCurrency, rates);
+            BigDecimal rate = baseCurrency != CurrencyCode.INVALID && targetCurrency != CurrencyCode.INVALID
+                    ? calculateCurrencyRate(baseCurrency, targetCurrency, usdQuotes)
+                    : null;
 
             if (rate == null) {
                 return createFailedRate(pair, "Rate calculation failed for " + pair.getPairCode());
@@ -100,29 +243,24 @@ public abstract class BaseForexApiService {
      * Common currency rate calculation logic
      * Handles USD base scenarios and cross-currency calculations
      */
-    protected BigDecimal calculateCurrencyRate(String baseCurrency, String targetCurrency, Map<String, BigDecimal> rates) {
-        try {
-            if ("USD".equals(baseCurrency)) {
-                // Direct rate: USD to target currency
-                return rates.get(targetCurrency);
-            } else if ("USD".equals(targetCurrency)) {
-                // Inverse rate: non-USD to USD
-                BigDecimal baseRate = rates.get(baseCurrency);
-                return baseRate != null ? BigDecimal.ONE.divide(baseRate, 8, RoundingMode.HALF_UP) : null;
-            } else {
-                // Cross rate: non-USD to non-USD
-                BigDecimal baseRate = rates.get(baseCurrency);
-                BigDecimal targetRate = rates.get(targetCurrency);
+    protected BigDecimal calculateCurrencyRate(int baseCurrency, int targetCurrency, QuoteVector usdQuotes) {
+        double rate;
+        if (baseCurrency == CurrencyCode.USD) {
+            // Direct rate: USD to target currency
+            rate = usdQuotes.get(targetCurrency);
+        } else if (targetCurrency == CurrencyCode.USD) {
+            // Inverse rate: non-USD to USD
+            rate = 1.0 / usdQuotes.get(baseCurrency);
+        } else {
+            // Cross rate: non-USD to non-USD
+            rate = usdQuotes.get(targetCurrency) / usdQuotes.get(baseCurrency);
+        }
 
-                if (baseRate != null && targetRate != null) {
-                    return targetRate.divide(baseRate, 8, RoundingMode.HALF_UP);
-                }
-                return null;
-            }
-        } catch (ArithmeticException e) {
-            log.error("Rate calculation error for {}-{}: {}", baseCurrency, targetCurrency, e.getMessage());
+        // Missing quotes read as NaN and propagate through the division
+        if (!(rate > 0) || Double.isInfinite(rate)) {
             return null;
         }
+        return BigDecimal.valueOf(rate).setScale(8, RoundingMode.HALF_UP);
     }
 
     /**
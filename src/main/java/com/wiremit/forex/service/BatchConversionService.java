@@ -0,0 +1,166 @@
+package com.wiremit.forex.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.wiremit.forex.dto.ForexRateDTO;
+import com.wiremit.forex.util.ConversionBatch;
+import com.wiremit.forex.util.CurrencyCode;
+import com.wiremit.forex.util.FixedPoint;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Converts payout batches of amounts in one pass.
+ * <p>
+ * Rates come from a single {@link RateSnapshotService} snapshot and are resolved
+ * once per distinct pair of the batch. Amounts and rates are multiplied as
+ * fixed-point longs, with a BigDecimal fallback for products that would overflow,
+ * and the results are written to the response as they are computed, in the
+ * {@link com.wiremit.forex.util.ApiResponse} layout.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchConversionService {
+
+    /**
+     * Scale of {@code forex_rates.final_rate}, which snapshot rates are loaded from, so
+     * converting them to fixed point never rounds and batches match quotes exactly
+     */
+    public static final int RATE_SCALE = 6;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final long NO_RATE = Long.MIN_VALUE;
+
+    private final RateSnapshotService rateSnapshotService;
+    private final CurrencyPairRegistry currencyPairRegistry;
+
+    @Value("${app.conversion.max-batch-size:100000}")
+    private int maxBatchSize;
+
+    /**
+     * Convert a batch read from the request body. The body is read and validated
+     * before anything is written, so a bad entry still gets a proper error response.
+     *
+     * @param runId aggregation run to take the rates from, the latest run when null
+     */
+    public ResponseEntity<StreamingResponseBody> convert(InputStream body, Long runId, HttpServletRequest request)
+            throws IOException {
+        ConversionBatch batch = ConversionBatch.read(body, maxBatchSize);
+        RateSnapshotService.RateSnapshot snapshot = runId == null
+                ? rateSnapshotService.latest()
+                : rateSnapshotService.at(runId);
+        long[] rates = resolveRates(batch, snapshot);
+        String path = request.getRequestURI();
+
+        log.debug("Converting {} amounts over {} pairs with the rates of run {}",
+                batch.size(), batch.pairCount(), snapshot.runId());
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> write(out, batch, snapshot, rates, path));
+    }
+
+    /**
+     * Rate of every distinct pair of the batch as a fixed-point long with {@link #RATE_SCALE}
+     * decimals, {@link #NO_RATE} when the pair is inactive or has no rate in the snapshot
+     */
+    private long[] resolveRates(ConversionBatch batch, RateSnapshotService.RateSnapshot snapshot) {
+        long[] rates = new long[batch.pairCount()];
+        for (int pair = 0; pair < rates.length; pair++) {
+            ForexRateDTO rate = currencyPairRegistry.findActiveByPairKey(batch.pairKey(pair))
+                    .map(currencyPair -> snapshot.rates().get(currencyPair.getId()))
+                    .orElse(null);
+            rates[pair] = rate == null || rate.getRate() == null ? NO_RATE
+                    : rate.getRate().setScale(RATE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        }
+        return rates;
+    }
+
+    void write(OutputStream out, ConversionBatch batch, RateSnapshotService.RateSnapshot snapshot,
+               long[] rates, String path) throws IOException {
+        char[][] pairCodes = new char[batch.pairCount()][];
+        for (int pair = 0; pair < pairCodes.length; pair++) {
+            pairCodes[pair] = CurrencyCode.toPairCode(batch.pairKey(pair)).toCharArray();
+        }
+        char[] number = new char[FixedPoint.MAX_LENGTH];
+        int converted = 0;
+
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeBooleanField("success", true);
+            json.writeNumberField("status", HttpStatus.OK.value());
+            json.writeStringField("path", path);
+            json.writeStringField("timestamp", LocalDateTime.now().toString());
+
+            json.writeObjectFieldStart("data");
+            if (snapshot.runId() != null) {
+                json.writeNumberField("runId", snapshot.runId());
+                json.writeStringField("runTimestamp", TIMESTAMP.format(snapshot.timestamp()));
+            }
+
+            // Every rate used, once per pair
+            json.writeObjectFieldStart("rates");
+            for (int pair = 0; pair < pairCodes.length; pair++) {
+                if (rates[pair] != NO_RATE) {
+                    json.writeFieldName(new String(pairCodes[pair]));
+                    json.writeRawValue(number, 0, FixedPoint.format(rates[pair], RATE_SCALE, number));
+                }
+            }
+            json.writeEndObject();
+
+            // [pairCode, convertedAmount] per entry in request order, null when the pair has no rate
+            json.writeArrayFieldStart("results");
+            for (int entry = 0; entry < batch.size(); entry++) {
+                int pair = batch.pairOf(entry);
+                json.writeStartArray();
+                json.writeString(pairCodes[pair], 0, pairCodes[pair].length);
+                if (rates[pair] == NO_RATE) {
+                    json.writeNull();
+                } else {
+                    writeConverted(json, batch.amount(entry), rates[pair], number);
+                    converted++;
+                }
+                json.writeEndArray();
+            }
+            json.writeEndArray();
+
+            json.writeNumberField("converted", converted);
+            json.writeNumberField("unavailable", batch.size() - converted);
+            json.writeEndObject();
+
+            json.writeStringField("message", String.format("Converted %d of %d amounts", converted, batch.size()));
+            json.writeEndObject();
+        }
+    }
+
+    private static void writeConverted(JsonGenerator json, long amount, long rate, char[] number) throws IOException {
+        long result;
+        try {
+            result = FixedPoint.multiply(amount, rate, RATE_SCALE);
+        } catch (ArithmeticException e) {
+            // Amount times rate beyond 64 bits, rare enough to take the slow path
+            json.writeNumber(BigDecimal.valueOf(amount, ConversionBatch.AMOUNT_SCALE)
+                    .multiply(BigDecimal.valueOf(rate, RATE_SCALE))
+                    .setScale(ConversionBatch.AMOUNT_SCALE, RoundingMode.HALF_UP));
+            return;
+        }
+        json.writeRawValue(number, 0, FixedPoint.format(result, ConversionBatch.AMOUNT_SCALE, number));
+    }
+}
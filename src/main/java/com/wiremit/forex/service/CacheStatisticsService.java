@@ -0,0 +1,67 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.dto.CacheStatisticsDTO;
+import com.wiremit.forex.util.ApiResponse;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Exposes Hibernate second-level cache statistics
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CacheStatisticsService {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public ResponseEntity<ApiResponse<CacheStatisticsDTO>> getCacheStatistics(HttpServletRequest request) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<CacheStatisticsDTO.RegionStatistics> regions = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(name -> toRegionStatistics(name, statistics.getCacheRegionStatistics(name)))
+                .filter(Objects::nonNull)
+                .toList();
+
+        CacheStatisticsDTO cacheStatistics = CacheStatisticsDTO.builder()
+                .secondLevelCacheHitCount(statistics.getSecondLevelCacheHitCount())
+                .secondLevelCacheMissCount(statistics.getSecondLevelCacheMissCount())
+                .secondLevelCachePutCount(statistics.getSecondLevelCachePutCount())
+                .regions(regions)
+                .build();
+
+        String message = statistics.isStatisticsEnabled()
+                ? "Cache statistics fetched successfully"
+                : "Hibernate statistics are disabled, counters are not collected";
+
+        return ResponseEntity.ok(
+                ApiResponse.success(message, cacheStatistics)
+                        .path(request.getRequestURI())
+        );
+    }
+
+    private CacheStatisticsDTO.RegionStatistics toRegionStatistics(String name, CacheRegionStatistics region) {
+        if (region == null) {
+            return null;
+        }
+        return CacheStatisticsDTO.RegionStatistics.builder()
+                .name(name)
+                .hitCount(region.getHitCount())
+                .missCount(region.getMissCount())
+                .putCount(region.getPutCount())
+                .elementCountInMemory(region.getElementCountInMemory())
+                .build();
+    }
+}
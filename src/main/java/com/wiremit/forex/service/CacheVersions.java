@@ -0,0 +1,86 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.event.CacheVersionChangedEvent;
+import com.wiremit.forex.event.CacheVersionChangedEvent.CachedData;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Cluster-wide invalidation of local caches through the single row of cache_versions.
+ * <p>
+ * Writers bump the version of what they change within their own transaction, so the
+ * new version becomes visible exactly when the change does. Every node reads the row
+ * once per poll interval, a primary key lookup on the primary database, and
+ * publishes a {@link CacheVersionChangedEvent} for each version that moved; caches
+ * reload only the data whose version changed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CacheVersions {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Clock clock;
+
+    // Versions seen by the last poll, only touched by the polling thread
+    private final Map<CachedData, Long> seen = new EnumMap<>(CachedData.class);
+
+    /**
+     * Bump the currency pair version, within the caller's transaction
+     */
+    public void currencyPairsChanged() {
+        bump("currency_pairs");
+    }
+
+    /**
+     * Bump the forex rate version, within the caller's transaction
+     */
+    public void forexRatesChanged() {
+        bump("forex_rates");
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.version-poll-interval:1s}")
+    public void poll() {
+        Map<String, Object> row;
+        try {
+            row = jdbcTemplate.queryForMap("SELECT currency_pairs, forex_rates FROM cache_versions WHERE id = 1");
+        } catch (DataAccessException e) {
+            log.warn("Could not read cache versions: {}", e.getMessage());
+            return;
+        }
+        check(CachedData.CURRENCY_PAIRS, ((Number) row.get("currency_pairs")).longValue());
+        check(CachedData.FOREX_RATES, ((Number) row.get("forex_rates")).longValue());
+    }
+
+    private void check(CachedData data, long version) {
+        Long previous = seen.get(data);
+        // The first poll only records where this node starts, its caches load lazily
+        if (previous != null && previous != version) {
+            log.debug("{} changed from version {} to {}", data, previous, version);
+            try {
+                eventPublisher.publishEvent(new CacheVersionChangedEvent(data, version));
+            } catch (RuntimeException e) {
+                // Retried on the next poll
+                log.error("Could not reload {} caches: {}", data, e.getMessage(), e);
+                return;
+            }
+        }
+        seen.put(data, version);
+    }
+
+    private void bump(String column) {
+        jdbcTemplate.update("UPDATE cache_versions SET " + column + " = " + column + " + 1, updated_at = ? WHERE id = 1",
+                LocalDateTime.now(clock));
+    }
+}
@@ -0,0 +1,174 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.event.CacheVersionChangedEvent;
+import com.wiremit.forex.event.CurrencyPairChangedEvent;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.repository.CurrencyPairRepository;
+import com.wiremit.forex.util.CurrencyCode;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory view of all currency pairs, indexed by id and pair code with the
+ * active set precomputed. The view is an immutable snapshot that is replaced
+ * (copy-on-write) after every committed change, so readers never lock.
+ * Pair codes are indexed by their packed {@link CurrencyCode} key, so a lookup
+ * is a binary search over an int array without allocating.
+ * Changes committed by other nodes are picked up through {@link CacheVersions}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CurrencyPairRegistry {
+
+    private final CurrencyPairRepository currencyPairRepository;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private volatile Snapshot snapshot;
+
+    public List<CurrencyPair> getAllPairs() {
+        return snapshot().all();
+    }
+
+    public List<CurrencyPair> getActivePairs() {
+        return snapshot().active();
+    }
+
+    public Optional<CurrencyPair> findById(Long id) {
+        return Optional.ofNullable(snapshot().byId().get(id));
+    }
+
+    public Optional<CurrencyPair> findByPairCode(String pairCode) {
+        return findByPairKey(CurrencyCode.parsePair(pairCode));
+    }
+
+    /**
+     * Find a pair by its packed key, see {@link CurrencyCode#parsePair(CharSequence)}
+     */
+    public Optional<CurrencyPair> findByPairKey(int pairKey) {
+        if (pairKey == CurrencyCode.INVALID) {
+            return Optional.empty();
+        }
+        Snapshot current = snapshot();
+        int index = Arrays.binarySearch(current.pairKeys(), pairKey);
+        return index >= 0 ? Optional.of(current.pairsByKey()[index]) : Optional.empty();
+    }
+
+    public Optional<CurrencyPair> findActiveByPairCode(String pairCode) {
+        return findByPairCode(pairCode).filter(CurrencyPair::getIsActive);
+    }
+
+    public Optional<CurrencyPair> findActiveByPairKey(int pairKey) {
+        return findByPairKey(pairKey).filter(CurrencyPair::getIsActive);
+    }
+
+    /**
+     * Rebuild the registry from the database
+     */
+    public synchronized void reload() {
+        List<CurrencyPair> pairs = currencyPairRepository.findAll();
+        snapshot = Snapshot.of(pairs);
+        log.info("Loaded {} currency pairs into registry ({} active)", pairs.size(), snapshot.active().size());
+    }
+
+    /**
+     * Apply a committed change to a copy of the current snapshot
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCurrencyPairChanged(CurrencyPairChangedEvent event) {
+        if (snapshot == null) {
+            reload();
+            return;
+        }
+
+        Map<Long, CurrencyPair> pairs = new HashMap<>(snapshot.byId());
+        if (event.isDeleted()) {
+            pairs.remove(event.pairId());
+        } else {
+            pairs.put(event.pairId(), event.pair());
+        }
+        snapshot = Snapshot.of(pairs.values());
+        log.debug("Currency pair registry updated for pair {}", event.pairId());
+    }
+
+    /**
+     * Pairs changed somewhere in the cluster: drop the second-level cache entries of
+     * pairs, which only this node's own writes invalidate, and reload
+     */
+    @EventListener
+    public void onCacheVersionChanged(CacheVersionChangedEvent event) {
+        if (event.data() != CacheVersionChangedEvent.CachedData.CURRENCY_PAIRS) {
+            return;
+        }
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictEntityData(CurrencyPair.class);
+        reload();
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private record Snapshot(List<CurrencyPair> all, List<CurrencyPair> active, Map<Long, CurrencyPair> byId,
+                            int[] pairKeys, CurrencyPair[] pairsByKey) {
+
+        static Snapshot of(Iterable<CurrencyPair> pairs) {
+            Map<Long, CurrencyPair> byId = new HashMap<>();
+            for (CurrencyPair pair : pairs) {
+                byId.put(pair.getId(), pair);
+            }
+
+            List<CurrencyPair> all = byId.values().stream()
+                    .sorted(Comparator.comparing(CurrencyPair::getId))
+                    .toList();
+            List<CurrencyPair> active = all.stream()
+                    .filter(CurrencyPair::getIsActive)
+                    .toList();
+
+            // Sorted parallel arrays: packed pair key -> pair
+            CurrencyPair[] keyed = all.stream()
+                    .filter(pair -> pairKey(pair) != CurrencyCode.INVALID)
+                    .sorted(Comparator.comparingInt(Snapshot::pairKey))
+                    .toArray(CurrencyPair[]::new);
+            int[] keys = new int[keyed.length];
+            for (int i = 0; i < keyed.length; i++) {
+                keys[i] = pairKey(keyed[i]);
+            }
+            if (keyed.length < all.size()) {
+                log.warn("{} currency pairs have non ISO 4217 codes and cannot be looked up by pair code",
+                        all.size() - keyed.length);
+            }
+
+            return new Snapshot(all, active, Map.copyOf(byId), keys, keyed);
+        }
+
+        private static int pairKey(CurrencyPair pair) {
+            int base = CurrencyCode.parse(pair.getBaseCurrency());
+            int target = CurrencyCode.parse(pair.getTargetCurrency());
+            return base == CurrencyCode.INVALID || target == CurrencyCode.INVALID
+                    ? CurrencyCode.INVALID
+                    : CurrencyCode.pair(base, target);
+        }
+    }
+}
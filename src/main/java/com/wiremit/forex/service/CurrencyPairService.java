@@ -1,12 +1,15 @@
 package com.wiremit.forex.service;
 
+import com.wiremit.forex.event.CurrencyPairChangedEvent;
 import com.wiremit.forex.exception.CurrencyPairNotFoundException;
 import com.wiremit.forex.exception.ForexServiceException;
 import com.wiremit.forex.model.CurrencyPair;
 import com.wiremit.forex.repository.CurrencyPairRepository;
 import com.wiremit.forex.util.ApiResponse;
+import com.wiremit.forex.util.CurrencyCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,13 +26,16 @@ import java.util.Optional;
 public class CurrencyPairService {
 
     private final CurrencyPairRepository currencyPairRepository;
+    private final CurrencyPairRegistry currencyPairRegistry;
+    private final CacheVersions cacheVersions;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Get all currency pairs
      */
     public ResponseEntity<ApiResponse<List<CurrencyPair>>> getAllCurrencyPairs(HttpServletRequest request) {
         log.debug("Fetching all currency pairs");
-        List<CurrencyPair> pairs = currencyPairRepository.findAll();
+        List<CurrencyPair> pairs = currencyPairRegistry.getAllPairs();
 
         String message = pairs.isEmpty() ? "No currency pairs found" : "Currency pairs fetched successfully";
 
@@ -44,7 +50,7 @@ public class CurrencyPairService {
      */
     public ResponseEntity<ApiResponse<List<CurrencyPair>>> getActiveCurrencyPairs(HttpServletRequest request) {
         log.debug("Fetching active currency pairs");
-        List<CurrencyPair> activePairs = currencyPairRepository.findByIsActiveTrue();
+        List<CurrencyPair> activePairs = currencyPairRegistry.getActivePairs();
 
         String message = activePairs.isEmpty() ? "No active currency pairs found" : "Active currency pairs fetched successfully";
 
@@ -62,7 +68,7 @@ public class CurrencyPairService {
 
         validateId(id);
 
-        Optional<CurrencyPair> pair = currencyPairRepository.findById(id);
+        Optional<CurrencyPair> pair = currencyPairRegistry.findById(id);
         CurrencyPair currencyPair = pair.orElseThrow(() ->
                 new CurrencyPairNotFoundException("Currency pair not found with ID: " + id));
 
@@ -87,6 +93,8 @@ public class CurrencyPairService {
         }
 
         CurrencyPair savedPair = currencyPairRepository.save(currencyPair);
+        cacheVersions.currencyPairsChanged();
+        eventPublisher.publishEvent(CurrencyPairChangedEvent.saved(savedPair));
 
         return ResponseEntity.ok(
                 ApiResponse.success("Currency pair created successfully", savedPair)
@@ -120,6 +128,12 @@ public class CurrencyPairService {
         if (currencyPair.getCustomMarkup() != null) {
             existingPair.setCustomMarkup(currencyPair.getCustomMarkup());
         }
+        if (currencyPair.getChangeThreshold() != null) {
+            existingPair.setChangeThreshold(currencyPair.getChangeThreshold());
+        }
+        if (currencyPair.getChangeThresholdUnit() != null) {
+            existingPair.setChangeThresholdUnit(currencyPair.getChangeThresholdUnit());
+        }
 
         // Update pair code if currencies changed
         if (currencyPair.getBaseCurrency() != null || currencyPair.getTargetCurrency() != null) {
@@ -127,6 +141,8 @@ public class CurrencyPairService {
         }
 
         CurrencyPair updatedPair = currencyPairRepository.save(existingPair);
+        cacheVersions.currencyPairsChanged();
+        eventPublisher.publishEvent(CurrencyPairChangedEvent.saved(updatedPair));
 
         return ResponseEntity.ok(
                 ApiResponse.success("Currency pair updated successfully", updatedPair)
@@ -148,6 +164,8 @@ public class CurrencyPairService {
 
         pair.setIsActive(true);
         CurrencyPair updatedPair = currencyPairRepository.save(pair);
+        cacheVersions.currencyPairsChanged();
+        eventPublisher.publishEvent(CurrencyPairChangedEvent.saved(updatedPair));
 
         return ResponseEntity.ok(
                 ApiResponse.success("Currency pair activated successfully", updatedPair)
@@ -169,6 +187,8 @@ public class CurrencyPairService {
 
         pair.setIsActive(false);
         CurrencyPair updatedPair = currencyPairRepository.save(pair);
+        cacheVersions.currencyPairsChanged();
+        eventPublisher.publishEvent(CurrencyPairChangedEvent.saved(updatedPair));
 
         return ResponseEntity.ok(
                 ApiResponse.success("Currency pair deactivated successfully", updatedPair)
@@ -190,6 +210,8 @@ public class CurrencyPairService {
         }
 
         currencyPairRepository.deleteById(id);
+        cacheVersions.currencyPairsChanged();
+        eventPublisher.publishEvent(CurrencyPairChangedEvent.deleted(id));
 
         return ResponseEntity.ok(
                 ApiResponse.<String>success("Currency pair deleted successfully")
@@ -221,6 +243,10 @@ public class CurrencyPairService {
             validateMarkup(currencyPair.getCustomMarkup());
         }
 
+        if (currencyPair.getChangeThreshold() != null && currencyPair.getChangeThreshold().signum() < 0) {
+            throw new ForexServiceException("Change threshold cannot be negative");
+        }
+
         // Normalize to uppercase
         currencyPair.setBaseCurrency(currencyPair.getBaseCurrency().toUpperCase());
         currencyPair.setTargetCurrency(currencyPair.getTargetCurrency().toUpperCase());
@@ -247,6 +273,10 @@ public class CurrencyPairService {
         if (currencyPair.getCustomMarkup() != null) {
             validateMarkup(currencyPair.getCustomMarkup());
         }
+
+        if (currencyPair.getChangeThreshold() != null && currencyPair.getChangeThreshold().signum() < 0) {
+            throw new ForexServiceException("Change threshold cannot be negative");
+        }
     }
 
     private void validateCurrencyCode(String currencyCode, String fieldName) {
@@ -258,8 +288,8 @@ public class CurrencyPairService {
             throw new ForexServiceException(fieldName + " must be exactly 3 characters");
         }
 
-        if (!currencyCode.trim().matches("[A-Za-z]{3}")) {
-            throw new ForexServiceException(fieldName + " must contain only alphabetic characters");
+        if (CurrencyCode.parse(currencyCode.trim()) == CurrencyCode.INVALID) {
+            throw new ForexServiceException(fieldName + " must be a valid ISO 4217 currency code");
         }
     }
 
@@ -1,7 +1,5 @@
 package com.wiremit.forex.service;
 
-import com.wiremit.forex.dto.response.ExchangeRateApiResponse;
-import com.wiremit.forex.dto.response.ForexApiResponse;
 import com.wiremit.forex.model.CurrencyPair;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -23,17 +21,17 @@ public class ExchangeRateApiService extends BaseForexApiService {
     }
 
     @Override
-    protected String getApiSource() {
+    public String getApiSource() {
         return "exchangerate-api";
     }
 
     @Override
-    protected String buildApiUrl(List<CurrencyPair> currencyPairs) {
-        return String.format("%s/%s/latest/USD", baseUrl, apiKey);
+    public String getBaseUrl() {
+        return baseUrl;
     }
 
     @Override
-    protected Class<? extends ForexApiResponse> getResponseClass() {
-        return ExchangeRateApiResponse.class;
+    protected String buildApiUrl(List<CurrencyPair> currencyPairs) {
+        return String.format("%s/%s/latest/USD", baseUrl, apiKey);
     }
 }
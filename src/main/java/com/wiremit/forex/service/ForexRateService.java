@@ -1,13 +1,16 @@
 package com.wiremit.forex.service;
 
 import com.wiremit.forex.dto.ForexRateDTO;
+import com.wiremit.forex.dto.RateSnapshotDTO;
 import com.wiremit.forex.exception.CurrencyPairNotFoundException;
 import com.wiremit.forex.exception.ForexRateNotFoundException;
 import com.wiremit.forex.exception.ForexServiceException;
 import com.wiremit.forex.util.ForexRateMapper;
+import com.wiremit.forex.model.CurrencyPair;
 import com.wiremit.forex.model.ForexRate;
 import com.wiremit.forex.repository.ForexRateRepository;
 import com.wiremit.forex.util.ApiResponse;
+import com.wiremit.forex.util.CurrencyCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
@@ -19,9 +22,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -31,18 +35,23 @@ public class ForexRateService {
 
     private final ForexRateRepository forexRateRepository;
     private final ForexRateMapper forexRateMapper;
+    private final CurrencyPairRegistry currencyPairRegistry;
+    private final RateSnapshotService rateSnapshotService;
 
     /**
-     * Get all latest forex rates for all currency pairs
+     * Get the rates of all active currency pairs from one snapshot, the latest one
+     * unless pinned to an earlier run
      */
-    public ResponseEntity<ApiResponse<List<ForexRateDTO>>> getAllLatestRates(HttpServletRequest request) {
-        log.debug("Fetching all latest forex rates");
-        List<ForexRate> rates = forexRateRepository.findLatestRateForAllPairs();
-        List<ForexRateDTO> rateDTOs = forexRateMapper.toDTOList(rates);
-        String message = rateDTOs.isEmpty() ? "No rates available" : "Latest rates fetched successfully";
+    public ResponseEntity<ApiResponse<RateSnapshotDTO>> getAllLatestRates(Long runId, HttpServletRequest request) {
+        log.debug("Fetching all latest forex rates (run: {})", runId);
+        List<Long> activePairIds = currencyPairRegistry.getActivePairs().stream()
+                .map(CurrencyPair::getId)
+                .toList();
+        RateSnapshotDTO snapshot = snapshot(runId).toDTO(activePairIds);
+        String message = snapshot.getRates().isEmpty() ? "No rates available" : "Latest rates fetched successfully";
 
         return ResponseEntity.ok(
-                ApiResponse.success(message, rateDTOs)
+                ApiResponse.success(message, snapshot)
                         .path(request.getRequestURI())
         );
     }
@@ -53,18 +62,7 @@ public class ForexRateService {
     public ResponseEntity<ApiResponse<ForexRateDTO>> getLatestRateByPairCode(String pairCode, HttpServletRequest request) {
         log.debug("Fetching latest rate for currency pair: {}", pairCode);
 
-        validatePairCode(pairCode);
-
-        Optional<ForexRate> rate = forexRateRepository.findLatestRateByPairCode(pairCode);
-        ForexRate forexRate = rate.orElseThrow(() ->
-                new ForexRateNotFoundException("No rate found for currency pair: " + pairCode));
-
-        ForexRateDTO forexRateDTO = forexRateMapper.toDTO(forexRate);
-
-        return ResponseEntity.ok(
-                ApiResponse.success("Rate fetched successfully", forexRateDTO)
-                        .path(request.getRequestURI())
-        );
+        return getLatestRateByPairKey(parsePairCode(pairCode), request);
     }
 
     /**
@@ -73,28 +71,38 @@ public class ForexRateService {
     public ResponseEntity<ApiResponse<ForexRateDTO>> getLatestRate(String baseCurrency, String targetCurrency, HttpServletRequest request) {
         log.debug("Fetching latest rate for {} to {}", baseCurrency, targetCurrency);
 
-        validateCurrencyCode(baseCurrency);
-        validateCurrencyCode(targetCurrency);
+        int base = parseCurrencyCode(baseCurrency);
+        int target = parseCurrencyCode(targetCurrency);
+        if (base == target) {
+            throw new CurrencyPairNotFoundException("Invalid currency pair format: "
+                    + CurrencyCode.toPairCode(CurrencyCode.pair(base, target)));
+        }
 
-        String pairCode = baseCurrency.toUpperCase() + targetCurrency.toUpperCase();
-        return getLatestRateByPairCode(pairCode, request);
+        return getLatestRateByPairKey(CurrencyCode.pair(base, target), request);
     }
 
     /**
-     * Get latest rates for multiple currency pairs
+     * Get rates for multiple currency pairs, all from one snapshot so that they
+     * come from the same aggregation run state
      */
-    public ResponseEntity<ApiResponse<List<ForexRateDTO>>> getLatestRatesForPairs(List<String> pairCodes, HttpServletRequest request) {
-        log.debug("Fetching latest rates for {} currency pairs", pairCodes.size());
-
-        validatePairCodes(pairCodes);
-
-        List<ForexRate> rates = forexRateRepository.findLatestRatesByPairCodes(pairCodes);
-        List<ForexRateDTO> rateDTOs = forexRateMapper.toDTOList(rates);
+    public ResponseEntity<ApiResponse<RateSnapshotDTO>> getLatestRatesForPairs(List<String> pairCodes, Long runId,
+                                                                              HttpServletRequest request) {
+        log.debug("Fetching latest rates for {} currency pairs (run: {})", pairCodes.size(), runId);
+
+        int[] pairKeys = parsePairCodes(pairCodes);
+
+        List<Long> pairIds = Arrays.stream(pairKeys)
+                .mapToObj(currencyPairRegistry::findActiveByPairKey)
+                .flatMap(Optional::stream)
+                .map(CurrencyPair::getId)
+                .distinct()
+                .toList();
+        RateSnapshotDTO snapshot = snapshot(runId).toDTO(pairIds);
         String message = String.format("Fetched %d rates out of %d requested pairs",
-                rateDTOs.size(), pairCodes.size());
+                snapshot.getRates().size(), pairCodes.size());
 
         return ResponseEntity.ok(
-                ApiResponse.success(message, rateDTOs)
+                ApiResponse.success(message, snapshot)
                         .path(request.getRequestURI())
         );
     }
@@ -105,11 +113,13 @@ public class ForexRateService {
     public ResponseEntity<ApiResponse<List<ForexRateDTO>>> getRateHistory(String pairCode, int limit, HttpServletRequest request) {
         log.debug("Fetching rate history for currency pair: {} (limit: {})", pairCode, limit);
 
-        validatePairCode(pairCode);
+        int pairKey = parsePairCode(pairCode);
         validateLimit(limit);
 
         Pageable pageable = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "createdAt"));
-        List<ForexRate> rateHistory = forexRateRepository.findRateHistoryByPairCode(pairCode, pageable);
+        List<ForexRate> rateHistory = currencyPairRegistry.findActiveByPairKey(pairKey)
+                .map(pair -> forexRateRepository.findRateHistoryByCurrencyPairId(pair.getId(), pageable))
+                .orElse(List.of());
         List<ForexRateDTO> rateHistoryDTOs = forexRateMapper.toDTOList(rateHistory);
 
         String message = String.format("Fetched %d historical rates for %s", rateHistoryDTOs.size(), pairCode);
@@ -120,28 +130,62 @@ public class ForexRateService {
         );
     }
 
+    private ResponseEntity<ApiResponse<ForexRateDTO>> getLatestRateByPairKey(int pairKey, HttpServletRequest request) {
+        Optional<ForexRate> rate = currencyPairRegistry.findActiveByPairKey(pairKey)
+                .flatMap(pair -> forexRateRepository.findLatestRateByCurrencyPairId(pair.getId()));
+        ForexRate forexRate = rate.orElseThrow(() ->
+                new ForexRateNotFoundException("No rate found for currency pair: " + CurrencyCode.toPairCode(pairKey)));
+
+        ForexRateDTO forexRateDTO = forexRateMapper.toDTO(forexRate);
+
+        return ResponseEntity.ok(
+                ApiResponse.success("Rate fetched successfully", forexRateDTO)
+                        .path(request.getRequestURI())
+        );
+    }
+
+    private RateSnapshotService.RateSnapshot snapshot(Long runId) {
+        return runId == null ? rateSnapshotService.latest() : rateSnapshotService.at(runId);
+    }
+
     // Validation methods
 
-    private void validatePairCode(String pairCode) {
-        if (isValidPairCode(pairCode)) {
+    /**
+     * Parse a currency pair code (e.g., USDEUR) into its packed key
+     */
+    private int parsePairCode(String pairCode) {
+        int pairKey = CurrencyCode.parsePair(pairCode);
+        if (pairKey == CurrencyCode.INVALID) {
             throw new CurrencyPairNotFoundException("Invalid currency pair format: " + pairCode);
         }
+        return pairKey;
     }
 
-    private void validateCurrencyCode(String currencyCode) {
-        if (isValidCurrencyCode(currencyCode)) {
+    /**
+     * Parse a 3-letter ISO 4217 currency code into its packed form
+     */
+    private int parseCurrencyCode(String currencyCode) {
+        int code = CurrencyCode.parse(currencyCode);
+        if (code == CurrencyCode.INVALID) {
             throw new CurrencyPairNotFoundException("Invalid currency code format: " + currencyCode);
         }
+        return code;
     }
 
-    private void validatePairCodes(List<String> pairCodes) {
-        List<String> invalidPairs = pairCodes.stream()
-                .filter(this::isValidPairCode)
-                .collect(Collectors.toList());
+    private int[] parsePairCodes(List<String> pairCodes) {
+        int[] pairKeys = new int[pairCodes.size()];
+        List<String> invalidPairs = new ArrayList<>();
+        for (int i = 0; i < pairKeys.length; i++) {
+            pairKeys[i] = CurrencyCode.parsePair(pairCodes.get(i));
+            if (pairKeys[i] == CurrencyCode.INVALID) {
+                invalidPairs.add(pairCodes.get(i));
+            }
+        }
 
         if (!invalidPairs.isEmpty()) {
             throw new CurrencyPairNotFoundException("Invalid currency pair formats: " + String.join(", ", invalidPairs));
         }
+        return pairKeys;
     }
 
     private void validateLimit(int limit) {
@@ -149,35 +193,4 @@ public class ForexRateService {
             throw new ForexServiceException("Limit must be between 1 and 100");
         }
     }
-
-    /**
-     * Validate currency pair code format (e.g., USDEUR)
-     */
-    private boolean isValidPairCode(String pairCode) {
-        if (pairCode == null || pairCode.trim().isEmpty()) {
-            return true;
-        }
-
-        String cleanPairCode = pairCode.trim().toUpperCase();
-
-        if (cleanPairCode.length() != 6) {
-            return true;
-        }
-
-        String baseCurrency = cleanPairCode.substring(0, 3);
-        String targetCurrency = cleanPairCode.substring(3, 6);
-
-        return isValidCurrencyCode(baseCurrency) ||
-                isValidCurrencyCode(targetCurrency) ||
-                baseCurrency.equals(targetCurrency);
-    }
-
-    /**
-     * Validate currency code format (3-letter ISO code)
-     */
-    private boolean isValidCurrencyCode(String currencyCode) {
-        return currencyCode == null ||
-                currencyCode.trim().length() != 3 ||
-                !currencyCode.trim().matches("[A-Z]{3}");
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.dto.HttpPoolStatisticsDTO;
+import com.wiremit.forex.util.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Exposes the connection pool state of the provider HTTP client
+ */
+@Service
+@RequiredArgsConstructor
+public class HttpPoolStatisticsService {
+
+    private final PoolingHttpClientConnectionManager httpConnectionManager;
+
+    public ResponseEntity<ApiResponse<HttpPoolStatisticsDTO>> getPoolStatistics(HttpServletRequest request) {
+        PoolStats total = httpConnectionManager.getTotalStats();
+
+        List<HttpPoolStatisticsDTO.RouteStatistics> routes = httpConnectionManager.getRoutes().stream()
+                .map(route -> {
+                    PoolStats stats = httpConnectionManager.getStats(route);
+                    return HttpPoolStatisticsDTO.RouteStatistics.builder()
+                            .route(route.getTargetHost().toURI())
+                            .leased(stats.getLeased())
+                            .pending(stats.getPending())
+                            .available(stats.getAvailable())
+                            .max(stats.getMax())
+                            .build();
+                })
+                .sorted(Comparator.comparing(HttpPoolStatisticsDTO.RouteStatistics::getRoute))
+                .toList();
+
+        HttpPoolStatisticsDTO statistics = HttpPoolStatisticsDTO.builder()
+                .leased(total.getLeased())
+                .pending(total.getPending())
+                .available(total.getAvailable())
+                .max(total.getMax())
+                .routes(routes)
+                .build();
+
+        return ResponseEntity.ok(
+                ApiResponse.success("HTTP connection pool statistics fetched successfully", statistics)
+                        .path(request.getRequestURI())
+        );
+    }
+}
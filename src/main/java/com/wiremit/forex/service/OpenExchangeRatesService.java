@@ -1,7 +1,5 @@
 package com.wiremit.forex.service;
 
-import com.wiremit.forex.dto.response.ForexApiResponse;
-import com.wiremit.forex.dto.response.OpenExchangeRatesResponse;
 import com.wiremit.forex.model.CurrencyPair;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -23,17 +21,17 @@ public class OpenExchangeRatesService extends BaseForexApiService {
     }
 
     @Override
-    protected String getApiSource() {
+    public String getApiSource() {
         return "openexchangerates";
     }
 
     @Override
-    protected String buildApiUrl(List<CurrencyPair> currencyPairs) {
-        return String.format("%s/latest.json?app_id=%s", baseUrl, apiKey);
+    public String getBaseUrl() {
+        return baseUrl;
     }
 
     @Override
-    protected Class<? extends ForexApiResponse> getResponseClass() {
-        return OpenExchangeRatesResponse.class;
+    protected String buildApiUrl(List<CurrencyPair> currencyPairs) {
+        return String.format("%s/latest.json?app_id=%s", baseUrl, apiKey);
     }
 }
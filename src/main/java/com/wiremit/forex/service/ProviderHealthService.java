@@ -0,0 +1,128 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.dto.ProviderHealthDTO;
+import com.wiremit.forex.model.ProviderOutage;
+import com.wiremit.forex.repository.ProviderOutageRepository;
+import com.wiremit.forex.service.RateProviderRegistry.ProviderRates;
+import com.wiremit.forex.util.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records provider outages as one row per outage period instead of a failed
+ * raw rate per pair and run, and reports the health of every provider.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProviderHealthService {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final ProviderOutageRepository providerOutageRepository;
+    private final RateProviderRegistry rateProviderRegistry;
+
+    // Whether an open outage row exists per api source, unknown until first looked up
+    private final Map<String, Boolean> openOutages = new ConcurrentHashMap<>();
+
+    /**
+     * Open or extend the outage of unavailable providers and close it for providers that answered again
+     */
+    @Transactional
+    public void recordOutcomes(List<ProviderRates> providerRates) {
+        for (ProviderRates rates : providerRates) {
+            String apiSource = rates.provider().getApiSource();
+            if (!rates.available()) {
+                recordFailure(apiSource, rates.unavailableReason());
+            } else if (!Boolean.FALSE.equals(openOutages.get(apiSource))) {
+                recordRecovery(apiSource);
+            }
+        }
+    }
+
+    public ResponseEntity<ApiResponse<List<ProviderHealthDTO>>> getProviderHealth(HttpServletRequest request) {
+        List<ProviderHealthDTO> health = rateProviderRegistry.getProviders().stream()
+                .map(this::toHealth)
+                .toList();
+
+        return ResponseEntity.ok(
+                ApiResponse.success("Provider health fetched successfully", health)
+                        .path(request.getRequestURI())
+        );
+    }
+
+    public ResponseEntity<ApiResponse<List<ProviderOutage>>> getRecentOutages(HttpServletRequest request) {
+        return ResponseEntity.ok(
+                ApiResponse.success("Provider outages fetched successfully",
+                                providerOutageRepository.findTop50ByOrderByStartedAtDesc())
+                        .path(request.getRequestURI())
+        );
+    }
+
+    private void recordFailure(String apiSource, String reason) {
+        String error = reason != null && reason.length() > MAX_ERROR_LENGTH ? reason.substring(0, MAX_ERROR_LENGTH) : reason;
+        ProviderOutage outage = providerOutageRepository.findFirstByApiSourceAndEndedAtIsNullOrderByStartedAtDesc(apiSource)
+                .map(open -> {
+                    open.setFailedFetches(open.getFailedFetches() + 1);
+                    open.setLastError(error);
+                    return open;
+                })
+                .orElseGet(() -> {
+                    log.warn("Provider {} unavailable: {}", apiSource, error);
+                    return ProviderOutage.builder()
+                            .apiSource(apiSource)
+                            .startedAt(LocalDateTime.now())
+                            .lastError(error)
+                            .build();
+                });
+        providerOutageRepository.save(outage);
+        openOutages.put(apiSource, true);
+    }
+
+    private void recordRecovery(String apiSource) {
+        providerOutageRepository.findFirstByApiSourceAndEndedAtIsNullOrderByStartedAtDesc(apiSource)
+                .ifPresent(outage -> {
+                    outage.setEndedAt(LocalDateTime.now());
+                    providerOutageRepository.save(outage);
+                    log.info("Provider {} recovered after {} failed fetches", apiSource, outage.getFailedFetches());
+                });
+        openOutages.put(apiSource, false);
+    }
+
+    private ProviderHealthDTO toHealth(RateProvider provider) {
+        CircuitBreaker circuitBreaker = provider.getCircuitBreaker();
+        Duration hedgeDelay = provider.getHedgeDelay();
+        Optional<ProviderOutage> outage = Boolean.FALSE.equals(openOutages.get(provider.getApiSource()))
+                ? Optional.empty()
+                : providerOutageRepository.findFirstByApiSourceAndEndedAtIsNullOrderByStartedAtDesc(provider.getApiSource());
+
+        return ProviderHealthDTO.builder()
+                .apiSource(provider.getApiSource())
+                .enabled(provider.isEnabled())
+                .circuitState(circuitBreaker.getState().name())
+                .consecutiveFailures(circuitBreaker.getConsecutiveFailures())
+                .circuitRetryAt(circuitBreaker.getRetryAt())
+                .effectiveTimeoutMillis(provider.getEffectiveTimeout().toMillis())
+                .hedgeDelayMillis(hedgeDelay != null ? hedgeDelay.toMillis() : null)
+                .hedgedFetches(provider.getHedgedFetches())
+                .unchangedFetches(provider.getUnchangedFetches())
+                .lastFetchedAt(provider.getLastFetchedAt())
+                .quotaUsed(provider.getQuota().getUsed())
+                .monthlyQuota(provider.getQuota().getMonthlyLimit())
+                .outageSince(outage.map(ProviderOutage::getStartedAt).orElse(null))
+                .outageFailedFetches(outage.map(ProviderOutage::getFailedFetches).orElse(null))
+                .outageLastError(outage.map(ProviderOutage::getLastError).orElse(null))
+                .build();
+    }
+}
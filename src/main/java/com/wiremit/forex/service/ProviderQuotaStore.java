@@ -0,0 +1,86 @@
+package com.wiremit.forex.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+/**
+ * Monthly call counts of the rate providers in provider_quota_usage, read by
+ * {@link QuotaBudget} before each call and incremented after it. A node that
+ * restarts or takes over the rate ingestion lease therefore continues from the
+ * calls already made this month instead of from zero.
+ * <p>
+ * When the database cannot be reached the budget keeps counting in memory.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProviderQuotaStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Calls recorded for a provider in a month and when the last one was made
+     */
+    public record Usage(int used, Instant lastCallAt) {
+    }
+
+    public Optional<Usage> load(String apiSource, YearMonth month) {
+        try {
+            return jdbcTemplate.query(
+                    "SELECT calls_used, last_call_at FROM provider_quota_usage WHERE api_source = ? AND usage_month = ?",
+                    (rs, rowNum) -> new Usage(rs.getInt(1), toInstant(rs.getTimestamp(2))),
+                    apiSource, month.toString()).stream().findFirst();
+        } catch (DataAccessException e) {
+            log.warn("Could not load the quota usage of {}: {}", apiSource, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void recordCall(String apiSource, YearMonth month, Instant calledAt) {
+        try {
+            if (increment(apiSource, month, calledAt) == 0) {
+                try {
+                    jdbcTemplate.update("""
+                                    INSERT INTO provider_quota_usage (api_source, usage_month, calls_used, last_call_at)
+                                    VALUES (?, ?, 1, ?)
+                                    """,
+                            apiSource, month.toString(), toDb(calledAt));
+                } catch (DuplicateKeyException e) {
+                    // Another call of the same month inserted the row first
+                    increment(apiSource, month, calledAt);
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not record a call to {} against its quota: {}", apiSource, e.getMessage());
+        }
+    }
+
+    private int increment(String apiSource, YearMonth month, Instant calledAt) {
+        return jdbcTemplate.update("""
+                        UPDATE provider_quota_usage
+                        SET calls_used = calls_used + 1,
+                            last_call_at = CASE WHEN last_call_at < ? THEN ? ELSE last_call_at END
+                        WHERE api_source = ? AND usage_month = ?
+                        """,
+                toDb(calledAt), toDb(calledAt), apiSource, month.toString());
+    }
+
+    private static LocalDateTime toDb(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp.toLocalDateTime().toInstant(ZoneOffset.UTC);
+    }
+}
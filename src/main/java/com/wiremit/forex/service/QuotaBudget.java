@@ -0,0 +1,114 @@
+package com.wiremit.forex.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+/**
+ * Monthly API call budget of one provider.
+ * <p>
+ * Paced calls are spread over what is left of the month: a call is allowed
+ * once the remaining time divided by the remaining calls has passed since the
+ * previous one, so the budget can never run out before the month does and
+ * calls saved earlier in the month are freed up for later. The count starts
+ * over every calendar month (UTC).
+ * <p>
+ * With a {@link ProviderQuotaStore} the count is read back before each call and
+ * every call is recorded, so restarts and lease takeovers keep the month's usage.
+ */
+public class QuotaBudget {
+
+    private final String apiSource;
+    private final int monthlyLimit;
+    private final Clock clock;
+    private final ProviderQuotaStore store;
+
+    private YearMonth month;
+    private int used;
+    private Instant lastCallAt;
+
+    /**
+     * @param monthlyLimit calls allowed per calendar month, zero or less for no limit
+     */
+    public QuotaBudget(int monthlyLimit, Clock clock) {
+        this(null, monthlyLimit, clock, null);
+    }
+
+    /**
+     * @param store where the month's calls of the provider are kept, null to count in memory only
+     */
+    public QuotaBudget(String apiSource, int monthlyLimit, Clock clock, ProviderQuotaStore store) {
+        this.apiSource = apiSource;
+        this.monthlyLimit = monthlyLimit;
+        this.clock = clock;
+        this.store = store;
+    }
+
+    /**
+     * Take one call from the budget
+     *
+     * @param paced false for calls that must not wait for their pacing slot (e.g. hedged requests)
+     * @return whether the call may be made
+     */
+    public synchronized boolean tryAcquire(boolean paced) {
+        Instant now = clock.instant();
+        rollOver(now);
+        if (store != null) {
+            // Calls recorded by this node before a restart, or by the previous lease holder
+            store.load(apiSource, month).ifPresent(this::merge);
+        }
+
+        if (monthlyLimit > 0) {
+            int remaining = monthlyLimit - used;
+            if (remaining <= 0) {
+                return false;
+            }
+            if (paced && lastCallAt != null) {
+                Instant monthEnd = month.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+                Duration spacing = Duration.between(now, monthEnd).dividedBy(remaining);
+                if (now.isBefore(lastCallAt.plus(spacing))) {
+                    return false;
+                }
+            }
+        }
+
+        used++;
+        lastCallAt = now;
+        if (store != null) {
+            store.recordCall(apiSource, month, now);
+        }
+        return true;
+    }
+
+    public int getMonthlyLimit() {
+        return monthlyLimit;
+    }
+
+    /**
+     * Calls made in the current month
+     */
+    public synchronized int getUsed() {
+        rollOver(clock.instant());
+        if (store != null) {
+            store.load(apiSource, month).ifPresent(this::merge);
+        }
+        return used;
+    }
+
+    private void merge(ProviderQuotaStore.Usage usage) {
+        used = Math.max(used, usage.used());
+        if (lastCallAt == null || usage.lastCallAt().isAfter(lastCallAt)) {
+            lastCallAt = usage.lastCallAt();
+        }
+    }
+
+    private void rollOver(Instant now) {
+        YearMonth current = YearMonth.from(now.atZone(ZoneOffset.UTC));
+        if (!current.equals(month)) {
+            month = current;
+            used = 0;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.util.WriteBehindQueue;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Optional audit trail of issued and redeemed quotes. Entries are queued and
+ * inserted in JDBC batches by a background writer, so the quote API never waits
+ * on the database; when the queue is full the entry is dropped and counted rather
+ * than written on the caller's thread. When auditing is disabled nothing is queued at all.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QuoteAuditWriter {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO quote_audit (quote_id, event, currency_pair_id, amount, rate, converted_amount, run_id,
+                                     expires_at, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    enum Event {
+        ISSUED,
+        REDEEMED
+    }
+
+    private record AuditEntry(QuoteService.Quote quote, Event event, Instant at) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.quotes.audit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.quotes.audit.write-behind.capacity:50000}")
+    private int capacity;
+
+    @Value("${app.quotes.audit.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.quotes.audit.write-behind.flush-interval:1s}")
+    private Duration flushInterval;
+
+    private WriteBehindQueue<AuditEntry> queue;
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            queue = new WriteBehindQueue<>("quote-audit", capacity, batchSize, flushInterval, Duration.ZERO, this::insertBatch);
+        }
+    }
+
+    public void issued(QuoteService.Quote quote) {
+        submit(new AuditEntry(quote, Event.ISSUED, quote.createdAt()));
+    }
+
+    public void redeemed(QuoteService.Quote quote, Instant redeemedAt) {
+        submit(new AuditEntry(quote, Event.REDEEMED, redeemedAt));
+    }
+
+    public int getPendingCount() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * Audit entries lost because the queue was full or their batch could not be written
+     */
+    public long getDroppedCount() {
+        return queue == null ? 0 : queue.getDroppedCount();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    private void submit(AuditEntry entry) {
+        if (queue != null && !queue.tryOffer(entry)) {
+            long dropped = queue.getDroppedCount();
+            // One line per thousand drops is enough to notice a saturated writer
+            if (dropped % 1000 == 1) {
+                log.warn("Quote audit queue is full, dropped {} audit entries so far", dropped);
+            }
+        }
+    }
+
+    private void insertBatch(List<AuditEntry> batch) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (statement, entry) -> {
+                    QuoteService.Quote quote = entry.quote();
+                    statement.setString(1, quote.id().toString());
+                    statement.setString(2, entry.event().name());
+                    statement.setLong(3, quote.pairId());
+                    statement.setBigDecimal(4, quote.amount());
+                    statement.setBigDecimal(5, quote.rate());
+                    statement.setBigDecimal(6, quote.convertedAmount());
+                    statement.setObject(7, quote.runId());
+                    statement.setTimestamp(8, timestamp(quote.expiresAt()));
+                    statement.setTimestamp(9, timestamp(entry.at()));
+                }));
+        log.debug("Inserted batch of {} quote audit entries", batch.size());
+    }
+
+    private static Timestamp timestamp(Instant instant) {
+        return Timestamp.valueOf(instant.atOffset(ZoneOffset.UTC).toLocalDateTime());
+    }
+}
@@ -0,0 +1,181 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.dto.ForexRateDTO;
+import com.wiremit.forex.dto.QuoteDTO;
+import com.wiremit.forex.exception.CurrencyPairNotFoundException;
+import com.wiremit.forex.exception.ForexRateNotFoundException;
+import com.wiremit.forex.exception.QuoteNotFoundException;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.util.ApiResponse;
+import com.wiremit.forex.util.ConversionBatch;
+import com.wiremit.forex.util.CurrencyCode;
+import com.wiremit.forex.util.ExpiringStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Rate quotes: the final rate of a pair locked for an amount during the quote
+ * TTL, and honored when the quote is redeemed at execution.
+ * <p>
+ * Quotes are issued from the in-memory rate snapshot and kept in an
+ * {@link ExpiringStore}, so issuing one never touches the database; the optional
+ * audit trail is written behind. Quotes live on the node that issued them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QuoteService {
+
+    private static final Duration EXPIRY_RESOLUTION = Duration.ofSeconds(1);
+
+    private final RateSnapshotService rateSnapshotService;
+    private final CurrencyPairRegistry currencyPairRegistry;
+    private final QuoteAuditWriter quoteAuditWriter;
+    private final Clock clock;
+
+    @Value("${app.quotes.ttl:30s}")
+    private Duration ttl;
+
+    private ExpiringStore<UUID, Quote> quotes;
+
+    /**
+     * @param rate            final rate of the pair when the quote was issued
+     * @param convertedAmount amount times rate, rounded half up to the amount's scale
+     * @param runId           aggregation run the rate was taken from
+     */
+    public record Quote(UUID id, Long pairId, String pairCode, BigDecimal amount, BigDecimal rate,
+                        BigDecimal convertedAmount, Long runId, Instant createdAt, Instant expiresAt) {
+
+        QuoteDTO toDTO(Instant redeemedAt) {
+            return QuoteDTO.builder()
+                    .quoteId(id.toString())
+                    .pairCode(pairCode)
+                    .amount(amount)
+                    .rate(rate)
+                    .convertedAmount(convertedAmount)
+                    .runId(runId)
+                    .createdAt(createdAt)
+                    .expiresAt(expiresAt)
+                    .redeemedAt(redeemedAt)
+                    .build();
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        Duration resolution = ttl.compareTo(EXPIRY_RESOLUTION) < 0 ? ttl : EXPIRY_RESOLUTION;
+        quotes = new ExpiringStore<>(ttl, resolution, clock.instant());
+    }
+
+    /**
+     * Lock the current final rate of a pair for an amount
+     */
+    public ResponseEntity<ApiResponse<QuoteDTO>> createQuote(String pairCode, BigDecimal amount, HttpServletRequest request) {
+        Quote quote = issue(pairCode, amount);
+
+        ApiResponse<QuoteDTO> response = ApiResponse
+                .success("Quote issued, valid until " + quote.expiresAt(), quote.toDTO(null))
+                .path(request.getRequestURI())
+                .status(HttpStatus.CREATED.value());
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    public ResponseEntity<ApiResponse<QuoteDTO>> getQuote(UUID quoteId, HttpServletRequest request) {
+        Quote quote = quotes.get(quoteId, clock.instant());
+        if (quote == null) {
+            throw new QuoteNotFoundException("Quote not found or expired: " + quoteId);
+        }
+
+        return ResponseEntity.ok(
+                ApiResponse.success("Quote fetched successfully", quote.toDTO(null))
+                        .path(request.getRequestURI())
+        );
+    }
+
+    /**
+     * Redeem a quote at execution. The caller states the pair and amount it executes,
+     * which must be those of the quote; each quote can be redeemed once.
+     */
+    public ResponseEntity<ApiResponse<QuoteDTO>> redeemQuote(UUID quoteId, String pairCode, BigDecimal amount,
+                                                             HttpServletRequest request) {
+        Instant now = clock.instant();
+        Quote quote = redeem(quoteId, pairCode, amount, now);
+
+        return ResponseEntity.ok(
+                ApiResponse.success("Quote redeemed successfully", quote.toDTO(now))
+                        .path(request.getRequestURI())
+        );
+    }
+
+    /**
+     * Number of quotes held in memory, including expired ones not evicted yet
+     */
+    public int getOutstandingCount() {
+        return quotes.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.quotes.expiry-interval:1s}")
+    public void expireQuotes() {
+        int evicted = quotes.expire(clock.instant());
+        if (evicted > 0) {
+            log.debug("Evicted {} expired quotes ({} outstanding)", evicted, quotes.size());
+        }
+    }
+
+    Quote issue(String pairCode, BigDecimal amount) {
+        int pairKey = CurrencyCode.parsePair(pairCode);
+        if (pairKey == CurrencyCode.INVALID) {
+            throw new CurrencyPairNotFoundException("Invalid currency pair format: " + pairCode);
+        }
+        CurrencyPair pair = currencyPairRegistry.findActiveByPairKey(pairKey).orElseThrow(() ->
+                new ForexRateNotFoundException("No rate found for currency pair: " + CurrencyCode.toPairCode(pairKey)));
+        RateSnapshotService.RateSnapshot snapshot = rateSnapshotService.latest();
+        ForexRateDTO rate = snapshot.rates().get(pair.getId());
+        if (rate == null || rate.getRate() == null) {
+            throw new ForexRateNotFoundException("No rate found for currency pair: " + pair.getPairCode());
+        }
+
+        BigDecimal scaledAmount = amount.setScale(ConversionBatch.AMOUNT_SCALE, RoundingMode.UNNECESSARY);
+        Instant now = clock.instant();
+        Quote quote = new Quote(UUID.randomUUID(), pair.getId(), pair.getPairCode(), scaledAmount, rate.getRate(),
+                scaledAmount.multiply(rate.getRate()).setScale(ConversionBatch.AMOUNT_SCALE, RoundingMode.HALF_UP),
+                snapshot.runId(), now, now.plus(ttl));
+        quotes.put(quote.id(), quote, quote.expiresAt(), now);
+        quoteAuditWriter.issued(quote);
+        return quote;
+    }
+
+    Quote redeem(UUID quoteId, String pairCode, BigDecimal amount, Instant now) {
+        Quote quote = quotes.get(quoteId, now);
+        if (quote == null) {
+            throw new QuoteNotFoundException("Quote not found, expired or already redeemed: " + quoteId);
+        }
+        if (!quote.pairCode().equalsIgnoreCase(pairCode) || quote.amount().compareTo(amount) != 0) {
+            throw new IllegalArgumentException(String.format("Quote %s was issued for %s %s",
+                    quoteId, quote.amount().toPlainString(), quote.pairCode()));
+        }
+        // Of concurrent redemptions only the one that removes the quote wins
+        if (!quotes.remove(quoteId, quote, now)) {
+            throw new QuoteNotFoundException("Quote not found, expired or already redeemed: " + quoteId);
+        }
+
+        quoteAuditWriter.redeemed(quote, now);
+        log.debug("Redeemed quote {} for {} {} at {}", quoteId, quote.amount(), quote.pairCode(), quote.rate());
+        return quote;
+    }
+}
@@ -0,0 +1,57 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.model.ChangeThresholdUnit;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.model.ForexRate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Decides whether a newly aggregated rate differs enough from the stored one
+ * to be written as a new row. Rates are compared at the stored scale; a move
+ * up to the pair's threshold, or the default one, only confirms the stored rate.
+ */
+@Service
+public class RateChangeThreshold {
+
+    private static final int STORED_SCALE = 6;
+    private static final BigDecimal BASIS_POINTS_PER_UNIT = BigDecimal.valueOf(10_000);
+
+    // Default threshold; 0 only suppresses rates that are identical once stored
+    @Value("${app.rates.change-threshold:0}")
+    private BigDecimal defaultThreshold;
+
+    @Value("${app.rates.change-threshold-unit:BASIS_POINTS}")
+    private ChangeThresholdUnit defaultUnit;
+
+    /**
+     * Whether the candidate should be stored as a new rate rather than confirming the previous one
+     *
+     * @param previous latest stored rate of the pair, null if there is none
+     */
+    public boolean hasMoved(CurrencyPair pair, ForexRate previous, ForexRate candidate) {
+        if (previous == null || previous.getMarkupApplied().compareTo(candidate.getMarkupApplied()) != 0) {
+            return true;
+        }
+
+        BigDecimal stored = previous.getFinalRate().setScale(STORED_SCALE, RoundingMode.HALF_UP);
+        BigDecimal move = candidate.getFinalRate().setScale(STORED_SCALE, RoundingMode.HALF_UP).subtract(stored).abs();
+        if (stored.signum() <= 0) {
+            return move.signum() != 0;
+        }
+
+        BigDecimal threshold = pair.getChangeThreshold() != null ? pair.getChangeThreshold() : defaultThreshold;
+        ChangeThresholdUnit unit = pair.getChangeThreshold() != null && pair.getChangeThresholdUnit() != null
+                ? pair.getChangeThresholdUnit()
+                : defaultUnit;
+
+        return switch (unit) {
+            case ABSOLUTE -> move.compareTo(threshold) > 0;
+            // move / stored > threshold / 10000, without dividing
+            case BASIS_POINTS -> move.multiply(BASIS_POINTS_PER_UNIT).compareTo(threshold.multiply(stored)) > 0;
+        };
+    }
+}
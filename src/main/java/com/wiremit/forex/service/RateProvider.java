@@ -0,0 +1,227 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.config.RateProviderProperties;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.model.FetchStatus;
+import com.wiremit.forex.model.RawApiRate;
+import com.wiremit.forex.service.RateProviderRegistry.ProviderRates;
+import com.wiremit.forex.util.LatencyWindow;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A registered rate provider together with its settings, concurrency permits,
+ * circuit breaker, recent latencies and the outcome of its last fetch.
+ */
+public class RateProvider {
+
+    private final BaseForexApiService service;
+    private final RateProviderProperties.Provider settings;
+    private final Semaphore permits;
+    private final CircuitBreaker circuitBreaker;
+    private final QuotaBudget quota;
+    private final Clock clock;
+    private final LatencyWindow latencies = new LatencyWindow(64, 8);
+
+    private volatile Instant lastFetchedAt;
+    // Latest successful rate per pair id, pairs may be fetched in different runs
+    private final Map<Long, RawApiRate> lastSuccessfulRates = new ConcurrentHashMap<>();
+    private final AtomicLong unchangedFetches = new AtomicLong();
+    private final AtomicLong hedgedFetches = new AtomicLong();
+
+    RateProvider(BaseForexApiService service, RateProviderProperties.Provider settings, Clock clock,
+                 ProviderQuotaStore quotaStore) {
+        this.service = service;
+        this.settings = settings;
+        this.permits = new Semaphore(Math.max(1, settings.getMaxConcurrency()));
+        this.circuitBreaker = new CircuitBreaker(settings.getFailureThreshold(), settings.getOpenDuration(), clock);
+        this.quota = new QuotaBudget(service.getApiSource(), settings.getMonthlyQuota(), clock, quotaStore);
+        this.clock = clock;
+    }
+
+    public String getApiSource() {
+        return service.getApiSource();
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    public BigDecimal getWeight() {
+        return settings.getWeight();
+    }
+
+    public Duration getTimeout() {
+        return settings.getTimeout();
+    }
+
+    public Duration getRefreshInterval() {
+        return settings.getRefreshInterval();
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public QuotaBudget getQuota() {
+        return quota;
+    }
+
+    /**
+     * Timeout for the next fetch: the observed p99 latency times the configured multiplier,
+     * kept between the minimum and the configured timeout. The configured timeout applies
+     * until enough latencies are recorded.
+     */
+    public Duration getEffectiveTimeout() {
+        Duration p99 = latencies.percentile(0.99);
+        if (p99 == null) {
+            return settings.getTimeout();
+        }
+        Duration adaptive = Duration.ofNanos((long) (p99.toNanos() * settings.getTimeoutMultiplier()));
+        if (adaptive.compareTo(settings.getMinTimeout()) < 0) {
+            adaptive = settings.getMinTimeout();
+        }
+        return adaptive.compareTo(settings.getTimeout()) > 0 ? settings.getTimeout() : adaptive;
+    }
+
+    /**
+     * Delay after which a second request is sent, the observed p95 latency, or null
+     * when hedging is off or too few latencies are recorded
+     */
+    public Duration getHedgeDelay() {
+        if (!settings.isHedging()) {
+            return null;
+        }
+        Duration p95 = latencies.percentile(0.95);
+        return p95 != null && p95.compareTo(getEffectiveTimeout()) < 0 ? p95 : null;
+    }
+
+    public long getHedgedFetches() {
+        return hedgedFetches.get();
+    }
+
+    public Instant getLastFetchedAt() {
+        return lastFetchedAt;
+    }
+
+    /**
+     * Whether the provider answered, with new or unchanged data, at or after the instant
+     */
+    public boolean answeredSince(Instant instant) {
+        Instant last = lastFetchedAt;
+        return last != null && !last.isBefore(instant);
+    }
+
+    /**
+     * Number of fetches that found the upstream data unchanged
+     */
+    public long getUnchangedFetches() {
+        return unchangedFetches.get();
+    }
+
+    /**
+     * Whether the refresh interval has elapsed since the last successful fetch
+     */
+    public boolean isDue(Instant now) {
+        Instant last = lastFetchedAt;
+        return last == null || !now.isBefore(last.plus(settings.getRefreshInterval()));
+    }
+
+    /**
+     * Latest successful rate of each of the given pairs
+     */
+    public List<RawApiRate> getLastSuccessfulRates(List<CurrencyPair> currencyPairs) {
+        return currencyPairs.stream()
+                .map(pair -> lastSuccessfulRates.get(pair.getId()))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Rates of the pairs from the provider's last payload, empty before its first successful fetch
+     */
+    public List<RawApiRate> ratesFromLastPayload(List<CurrencyPair> currencyPairs) {
+        return service.ratesFromLastPayload(currencyPairs);
+    }
+
+    void parseOnly(boolean[] currencies) {
+        service.parseOnly(currencies);
+    }
+
+    /**
+     * Whether the circuit breaker lets a fetch through
+     */
+    boolean allowFetch() {
+        return circuitBreaker.tryAcquire();
+    }
+
+    /**
+     * Feed the final outcome of a fetch, hedged or not, to the circuit breaker
+     */
+    void recordOutcome(ProviderRates rates) {
+        if (rates.available()) {
+            circuitBreaker.recordSuccess();
+        } else {
+            circuitBreaker.recordFailure();
+        }
+    }
+
+    void recordHedge() {
+        hedgedFetches.incrementAndGet();
+    }
+
+    /**
+     * Fetch rates for the pairs, waiting at most the provider timeout for a concurrency permit.
+     * When the provider still serves the payload of the last fetch its last successful
+     * rates are returned as not fresh.
+     */
+    ProviderRates fetch(List<CurrencyPair> currencyPairs) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(settings.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            return ProviderRates.unavailable(this, "Concurrency limit reached for " + getApiSource());
+        }
+
+        try {
+            long started = System.nanoTime();
+            BaseForexApiService.FetchResult result = service.fetchIfChanged(currencyPairs);
+            if (result.isFailed()) {
+                return ProviderRates.unavailable(this, result.errorMessage());
+            }
+            latencies.record(Duration.ofNanos(System.nanoTime() - started));
+
+            if (result.unchanged()) {
+                unchangedFetches.incrementAndGet();
+                lastFetchedAt = clock.instant();
+                return new ProviderRates(this, getLastSuccessfulRates(currencyPairs), false);
+            }
+
+            List<RawApiRate> successful = result.rates().stream()
+                    .filter(rate -> rate.getStatus() == FetchStatus.SUCCESS)
+                    .toList();
+            // Failed fetches are retried on the next run regardless of the refresh interval
+            if (!successful.isEmpty()) {
+                successful.forEach(rate -> lastSuccessfulRates.put(rate.getCurrencyPair().getId(), rate));
+                lastFetchedAt = clock.instant();
+            }
+            return new ProviderRates(this, result.rates(), true);
+        } finally {
+            permits.release();
+        }
+    }
+}
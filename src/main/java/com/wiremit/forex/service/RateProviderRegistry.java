@@ -0,0 +1,308 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.config.HttpRouteSettings;
+import com.wiremit.forex.config.RateProviderProperties;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.model.FetchStatus;
+import com.wiremit.forex.model.RawApiRate;
+import com.wiremit.forex.util.CurrencyCode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Discovers every {@link BaseForexApiService} bean as a rate provider and fans
+ * fetches out to them in parallel, honouring each provider's settings. The
+ * HTTP timeouts and pool limit of a provider apply to the host of its base url.
+ * <p>
+ * Each fetch goes through the provider's circuit breaker, is bounded by its
+ * adaptive timeout, and is hedged with a second request once it runs longer
+ * than the provider's usual p95 latency.
+ */
+@Component
+@Slf4j
+public class RateProviderRegistry {
+
+    private final List<RateProvider> providers;
+    private final ExecutorService executor;
+    private final Clock clock;
+    // Source of the currencies read from payloads, null reads every currency
+    private final CurrencyPairRegistry currencyPairRegistry;
+    private volatile List<CurrencyPair> parsedPairs;
+
+    public RateProviderRegistry(List<BaseForexApiService> services, RateProviderProperties properties,
+                                HttpRouteSettings httpRouteSettings) {
+        this(services, properties, httpRouteSettings, Clock.systemUTC());
+    }
+
+    /**
+     * Registry whose providers count their monthly quota in memory only and read every
+     * currency of their payloads
+     */
+    public RateProviderRegistry(List<BaseForexApiService> services, RateProviderProperties properties,
+                                HttpRouteSettings httpRouteSettings, Clock clock) {
+        this(services, properties, httpRouteSettings, clock, null, null);
+    }
+
+    @Autowired
+    public RateProviderRegistry(List<BaseForexApiService> services, RateProviderProperties properties,
+                                HttpRouteSettings httpRouteSettings, Clock clock, ProviderQuotaStore quotaStore,
+                                CurrencyPairRegistry currencyPairRegistry) {
+        this.clock = clock;
+        this.currencyPairRegistry = currencyPairRegistry;
+        this.providers = services.stream()
+                .map(service -> new RateProvider(service, properties.forSource(service.getApiSource()), clock,
+                        quotaStore))
+                .sorted(Comparator.comparing(RateProvider::getApiSource))
+                .toList();
+        services.forEach(service ->
+                httpRouteSettings.register(service.getBaseUrl(), properties.forSource(service.getApiSource())));
+        this.executor = Executors.newCachedThreadPool(threadFactory());
+
+        providers.forEach(provider -> log.info("Registered rate provider {} (enabled: {}, weight: {}, timeout: {}, refresh interval: {})",
+                provider.getApiSource(), provider.isEnabled(), provider.getWeight(),
+                provider.getTimeout(), provider.getRefreshInterval()));
+    }
+
+    public List<RateProvider> getProviders() {
+        return providers;
+    }
+
+    public List<RateProvider> getEnabledProviders() {
+        return providers.stream().filter(RateProvider::isEnabled).toList();
+    }
+
+    public Optional<RateProvider> findByApiSource(String apiSource) {
+        return providers.stream().filter(provider -> provider.getApiSource().equals(apiSource)).findFirst();
+    }
+
+    /**
+     * Rates of the pairs computed from every enabled provider's last payload, without
+     * calling any provider; providers that cannot quote them are left out
+     */
+    public List<ProviderRates> ratesFromLastPayloads(List<CurrencyPair> currencyPairs) {
+        return getEnabledProviders().stream()
+                .map(provider -> new ProviderRates(provider, provider.ratesFromLastPayload(currencyPairs), true))
+                .filter(rates -> !rates.rates().isEmpty())
+                .toList();
+    }
+
+    /**
+     * Start a fetch, or reuse of the last rates, for every enabled provider without waiting for any of them.
+     * Providers whose refresh interval has not elapsed, whose monthly quota has no
+     * call to spare yet, or whose upstream data has not changed since, contribute
+     * their last successful rates as not fresh.
+     */
+    public List<CompletableFuture<ProviderRates>> startFetches(List<CurrencyPair> currencyPairs) {
+        updateParsedCurrencies();
+        Instant now = clock.instant();
+        return getEnabledProviders().stream()
+                .map(provider -> provider.isDue(now)
+                        ? fetchAsync(provider, currencyPairs)
+                        : CompletableFuture.completedFuture(reuse(provider, currencyPairs)))
+                .toList();
+    }
+
+    /**
+     * Have providers read only the currencies of the configured pairs, active or not, so a
+     * pair that is activated later can still be quoted from the last payload. The registry
+     * replaces its pair list on every change, here or on another node, which rebuilds the set.
+     */
+    private void updateParsedCurrencies() {
+        if (currencyPairRegistry == null) {
+            return;
+        }
+        List<CurrencyPair> pairs = currencyPairRegistry.getAllPairs();
+        if (pairs == parsedPairs) {
+            return;
+        }
+        boolean[] currencies = new boolean[CurrencyCode.count()];
+        // Payloads with another base are rebased onto USD
+        currencies[CurrencyCode.ordinal(CurrencyCode.USD)] = true;
+        for (CurrencyPair pair : pairs) {
+            markCurrency(currencies, pair.getBaseCurrency());
+            markCurrency(currencies, pair.getTargetCurrency());
+        }
+        providers.forEach(provider -> provider.parseOnly(currencies));
+        parsedPairs = pairs;
+    }
+
+    private static void markCurrency(boolean[] currencies, String currencyCode) {
+        int ordinal = CurrencyCode.ordinal(CurrencyCode.parse(currencyCode));
+        if (ordinal >= 0) {
+            currencies[ordinal] = true;
+        }
+    }
+
+    private static ProviderRates reuse(RateProvider provider, List<CurrencyPair> currencyPairs) {
+        return new ProviderRates(provider, provider.getLastSuccessfulRates(currencyPairs), false);
+    }
+
+    /**
+     * Whether every pair has {@code quorum} successful fresh rates from weighted providers
+     * whose relative spread, (max - min) / min, stays within the tolerance. Reused rates
+     * of providers that were not fetched do not count, they would otherwise close the run
+     * before the provider that was actually asked has answered.
+     */
+    public static boolean hasQuorum(List<ProviderRates> arrived, List<CurrencyPair> currencyPairs, int quorum,
+                                    BigDecimal tolerance) {
+        Map<Long, List<BigDecimal>> ratesByPair = arrived.stream()
+                .filter(rates -> rates.fresh() && rates.available())
+                .filter(rates -> rates.provider().getWeight().signum() > 0)
+                .flatMap(rates -> rates.rates().stream())
+                .filter(rate -> rate.getStatus() == FetchStatus.SUCCESS && rate.getRate().signum() > 0)
+                .collect(Collectors.groupingBy(rate -> rate.getCurrencyPair().getId(),
+                        Collectors.mapping(RawApiRate::getRate, Collectors.toList())));
+
+        for (CurrencyPair pair : currencyPairs) {
+            List<BigDecimal> rates = ratesByPair.getOrDefault(pair.getId(), List.of());
+            if (rates.size() < quorum || !agree(rates.stream().sorted().toList(), quorum, tolerance)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Any quorum-sized run of the sorted rates within the tolerance band
+    private static boolean agree(List<BigDecimal> sorted, int quorum, BigDecimal tolerance) {
+        for (int i = 0; i + quorum <= sorted.size(); i++) {
+            BigDecimal low = sorted.get(i);
+            BigDecimal high = sorted.get(i + quorum - 1);
+            if (high.subtract(low).compareTo(low.multiply(tolerance)) <= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private CompletableFuture<ProviderRates> fetchAsync(RateProvider provider, List<CurrencyPair> currencyPairs) {
+        if (!provider.allowFetch()) {
+            Instant retryAt = provider.getCircuitBreaker().getRetryAt();
+            log.warn("Circuit open for {}, skipping fetch until {}", provider.getApiSource(), retryAt);
+            return CompletableFuture.completedFuture(
+                    ProviderRates.unavailable(provider, "Circuit open until " + retryAt));
+        }
+        if (!provider.getQuota().tryAcquire(true)) {
+            provider.getCircuitBreaker().releaseProbe();
+            log.info("Monthly quota of {} paced out ({} of {} calls used), reusing last rates", provider.getApiSource(),
+                    provider.getQuota().getUsed(), provider.getQuota().getMonthlyLimit());
+            return CompletableFuture.completedFuture(reuse(provider, currencyPairs));
+        }
+
+        long timeoutMillis = provider.getEffectiveTimeout().toMillis();
+        Duration hedgeDelay = provider.getHedgeDelay();
+        CompletableFuture<ProviderRates> fetch = hedgeDelay != null
+                ? hedgedFetch(provider, currencyPairs, hedgeDelay)
+                : CompletableFuture.supplyAsync(() -> provider.fetch(currencyPairs), executor);
+
+        return fetch
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    String reason = e instanceof TimeoutException || e.getCause() instanceof TimeoutException
+                            ? "Timed out after " + timeoutMillis + " ms"
+                            : e.getMessage();
+                    return ProviderRates.unavailable(provider, reason);
+                })
+                .thenApply(rates -> {
+                    provider.recordOutcome(rates);
+                    if (!rates.available()) {
+                        log.error("Error fetching from {}: {}", provider.getApiSource(), rates.unavailableReason());
+                    } else if (rates.fresh()) {
+                        log.info("Fetched {} rates from {}", rates.rates().size(), provider.getApiSource());
+                    } else {
+                        log.info("Upstream data of {} unchanged, reusing {} rates",
+                                provider.getApiSource(), rates.rates().size());
+                    }
+                    return rates;
+                });
+    }
+
+    /**
+     * Start a fetch and, if it has not completed after the delay, a second one.
+     * The first available result wins; the result is unavailable only when every
+     * request started has failed.
+     */
+    private CompletableFuture<ProviderRates> hedgedFetch(RateProvider provider, List<CurrencyPair> currencyPairs,
+                                                         Duration hedgeDelay) {
+        CompletableFuture<ProviderRates> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        BiConsumer<ProviderRates, Throwable> onComplete = (rates, error) -> {
+            boolean last = pending.decrementAndGet() == 0;
+            if (error == null && rates.available()) {
+                result.complete(rates);
+            } else if (last) {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(rates);
+                }
+            }
+        };
+
+        CompletableFuture.supplyAsync(() -> provider.fetch(currencyPairs), executor).whenComplete(onComplete);
+        CompletableFuture.delayedExecutor(hedgeDelay.toMillis(), TimeUnit.MILLISECONDS, executor).execute(() -> {
+            if (!result.isDone() && provider.getQuota().tryAcquire(false)) {
+                pending.incrementAndGet();
+                provider.recordHedge();
+                log.info("{} slower than {} ms, sending hedged request", provider.getApiSource(), hedgeDelay.toMillis());
+                CompletableFuture.supplyAsync(() -> provider.fetch(currencyPairs), executor).whenComplete(onComplete);
+            }
+        });
+        return result;
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "rate-provider-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Rates returned by one provider
+     *
+     * @param fresh             false when the rates were reused from an earlier fetch and are already stored
+     * @param unavailableReason why the provider could not be read at all, rates is then empty
+     */
+    public record ProviderRates(RateProvider provider, List<RawApiRate> rates, boolean fresh,
+                                String unavailableReason) {
+
+        public ProviderRates(RateProvider provider, List<RawApiRate> rates, boolean fresh) {
+            this(provider, rates, fresh, null);
+        }
+
+        public static ProviderRates unavailable(RateProvider provider, String reason) {
+            return new ProviderRates(provider, List.of(), true, reason);
+        }
+
+        public boolean available() {
+            return unavailableReason == null;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.dto.ForexRateDTO;
+import com.wiremit.forex.dto.RateSnapshotDTO;
+import com.wiremit.forex.event.CacheVersionChangedEvent;
+import com.wiremit.forex.exception.ForexRateNotFoundException;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.model.ForexRate;
+import com.wiremit.forex.model.RateRun;
+import com.wiremit.forex.repository.ForexRateRepository;
+import com.wiremit.forex.repository.RateRunRepository;
+import com.wiremit.forex.util.ForexRateMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Versioned snapshots of the rates of all pairs, one per stored aggregation run:
+ * snapshot N holds, per pair, the newest rate stored by run N or an earlier one.
+ * <p>
+ * The latest snapshot is kept in memory and dropped whenever {@link CacheVersions}
+ * reports new rates or pairs anywhere in the cluster. Snapshots are loaded from
+ * the primary database so that a lagging replica cannot pin an outdated one.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RateSnapshotService {
+
+    private final RateRunRepository rateRunRepository;
+    private final ForexRateRepository forexRateRepository;
+    private final ForexRateMapper forexRateMapper;
+    private final CurrencyPairRegistry currencyPairRegistry;
+    private final PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate primaryTransaction;
+    private volatile RateSnapshot latest;
+
+    /**
+     * @param runId     run the snapshot is pinned to, null before the first run
+     * @param timestamp when that run was stored
+     * @param rates     rate DTOs by currency pair id
+     */
+    public record RateSnapshot(Long runId, LocalDateTime timestamp, Map<Long, ForexRateDTO> rates) {
+
+        static final RateSnapshot EMPTY = new RateSnapshot(null, null, Map.of());
+
+        /**
+         * Rates of the pairs in the given order, skipping pairs without a rate in this snapshot
+         */
+        public List<ForexRateDTO> ratesOf(List<Long> pairIds) {
+            return pairIds.stream().map(rates::get).filter(Objects::nonNull).toList();
+        }
+
+        public RateSnapshotDTO toDTO(List<Long> pairIds) {
+            return RateSnapshotDTO.builder()
+                    .runId(runId)
+                    .runTimestamp(timestamp)
+                    .rates(ratesOf(pairIds))
+                    .build();
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        primaryTransaction = new TransactionTemplate(transactionManager);
+        primaryTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Snapshot of the most recently stored run
+     */
+    public RateSnapshot latest() {
+        RateSnapshot current = latest;
+        if (current == null) {
+            synchronized (this) {
+                if (latest == null) {
+                    latest = load(null);
+                    log.debug("Loaded rate snapshot of run {} ({} rates)", latest.runId(), latest.rates().size());
+                }
+                current = latest;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Snapshot pinned to an earlier run, read from the database unless it is the latest one
+     *
+     * @throws ForexRateNotFoundException when there is no such run
+     */
+    public RateSnapshot at(long runId) {
+        RateSnapshot current = latest();
+        if (current.runId() != null && current.runId() == runId) {
+            return current;
+        }
+        return load(runId);
+    }
+
+    @EventListener
+    public void onCacheVersionChanged(CacheVersionChangedEvent event) {
+        // Pair changes count as well, the snapshot holds pair codes and names
+        synchronized (this) {
+            latest = null;
+        }
+    }
+
+    private RateSnapshot load(Long runId) {
+        return primaryTransaction.execute(status -> {
+            RateRun run = runId == null
+                    ? rateRunRepository.findLatestRun().orElse(null)
+                    : rateRunRepository.findById(runId)
+                            .orElseThrow(() -> new ForexRateNotFoundException("Rate run not found: " + runId));
+            if (run == null) {
+                return RateSnapshot.EMPTY;
+            }
+
+            List<Long> pairIds = currencyPairRegistry.getAllPairs().stream().map(CurrencyPair::getId).toList();
+            List<ForexRate> rates = pairIds.isEmpty() ? List.of() : forexRateRepository.findRatesAtRun(pairIds, run.getId());
+            Map<Long, ForexRateDTO> ratesByPair = new HashMap<>();
+            for (ForexRate rate : rates) {
+                ratesByPair.put(rate.getCurrencyPair().getId(), forexRateMapper.toDTO(rate));
+            }
+            return new RateSnapshot(run.getId(), run.getCreatedAt(), Map.copyOf(ratesByPair));
+        });
+    }
+}
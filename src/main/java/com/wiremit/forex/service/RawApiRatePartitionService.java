@@ -0,0 +1,135 @@
+package com.wiremit.forex.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+/**
+ * Maintains the monthly range partitions of raw_api_rates.
+ * Partitions are named pYYYYMM and hold the rows created during that month,
+ * followed by a catch-all p_future partition.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RawApiRatePartitionService {
+
+    private static final String TABLE = "raw_api_rates";
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'uuuuMM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.raw-rates.partitions.premake-months:3}")
+    private int premakeMonths;
+
+    /**
+     * Whether raw_api_rates is range-partitioned (MySQL only)
+     */
+    public boolean isPartitioned() {
+        try {
+            Integer partitions = jdbcTemplate.queryForObject("""
+                    SELECT COUNT(*) FROM information_schema.PARTITIONS
+                    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL
+                    """, Integer.class, TABLE);
+            return partitions != null && partitions > 0;
+        } catch (DataAccessException e) {
+            log.debug("Partition metadata not available: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Split the catch-all partition so that every month from the oldest stored row
+     * up to {@code premakeMonths} ahead of the current month has its own partition
+     */
+    public void ensureMonthlyPartitions() {
+        if (!isPartitioned()) {
+            return;
+        }
+
+        List<YearMonth> existing = findMonthlyPartitions();
+        YearMonth last = YearMonth.now().plusMonths(premakeMonths);
+        YearMonth first = existing.isEmpty()
+                ? findOldestMonth().orElse(YearMonth.now())
+                : existing.get(existing.size() - 1).plusMonths(1);
+
+        if (first.isAfter(last)) {
+            return;
+        }
+
+        StringJoiner partitions = new StringJoiner(", ");
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            partitions.add(String.format("PARTITION %s VALUES LESS THAN ('%s')",
+                    partitionName(month), month.plusMonths(1).atDay(1)));
+        }
+        partitions.add(String.format("PARTITION %s VALUES LESS THAN (MAXVALUE)", FUTURE_PARTITION));
+
+        jdbcTemplate.execute(String.format("ALTER TABLE %s REORGANIZE PARTITION %s INTO (%s)",
+                TABLE, FUTURE_PARTITION, partitions));
+        log.info("Created raw_api_rates partitions for {} to {}", first, last);
+    }
+
+    /**
+     * Drop every monthly partition that only holds rows created before the given month.
+     * Falls back to a range delete when the table is not partitioned.
+     *
+     * @return the months whose rows were removed
+     */
+    public List<YearMonth> dropMonthsBefore(YearMonth cutoff) {
+        if (!isPartitioned()) {
+            int deleted = jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE created_at < ?",
+                    cutoff.atDay(1).atStartOfDay());
+            log.info("raw_api_rates is not partitioned; deleted {} rows created before {}", deleted, cutoff);
+            return List.of();
+        }
+
+        List<YearMonth> dropped = new ArrayList<>();
+        for (YearMonth month : findMonthlyPartitions()) {
+            if (month.isBefore(cutoff)) {
+                jdbcTemplate.execute(String.format("ALTER TABLE %s DROP PARTITION %s", TABLE, partitionName(month)));
+                dropped.add(month);
+            }
+        }
+
+        if (!dropped.isEmpty()) {
+            log.info("Dropped raw_api_rates partitions for months {}", dropped);
+        }
+        return dropped;
+    }
+
+    private List<YearMonth> findMonthlyPartitions() {
+        return jdbcTemplate.queryForList("""
+                        SELECT PARTITION_NAME FROM information_schema.PARTITIONS
+                        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME <> ?
+                        ORDER BY PARTITION_ORDINAL_POSITION
+                        """, String.class, TABLE, FUTURE_PARTITION)
+                .stream()
+                .map(name -> YearMonth.parse(name, PARTITION_NAME))
+                .toList();
+    }
+
+    /**
+     * Month of the oldest raw rate still stored, if any
+     */
+    public Optional<YearMonth> findOldestMonth() {
+        LocalDateTime oldest = jdbcTemplate.queryForObject(
+                "SELECT MIN(created_at) FROM " + TABLE, LocalDateTime.class);
+        return Optional.ofNullable(oldest).map(YearMonth::from);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_NAME.format(month.atDay(1));
+    }
+}
@@ -0,0 +1,91 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.model.RawApiRate;
+import com.wiremit.forex.util.WriteBehindQueue;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Persists raw API rates off the aggregation path. Rates are stamped with their
+ * fetch time, queued, and inserted in large JDBC batches by a background writer.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RawApiRateWriter {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO raw_api_rates (currency_pair_id, rate, api_source, status, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.raw-rates.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${app.raw-rates.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.raw-rates.write-behind.flush-interval:1s}")
+    private Duration flushInterval;
+
+    @Value("${app.raw-rates.write-behind.offer-timeout:5s}")
+    private Duration offerTimeout;
+
+    private WriteBehindQueue<RawApiRate> queue;
+
+    @PostConstruct
+    void start() {
+        queue = new WriteBehindQueue<>("raw-api-rates", capacity, batchSize, flushInterval, offerTimeout, this::insertBatch);
+    }
+
+    /**
+     * Hand raw rates to the background writer
+     */
+    public void submit(List<RawApiRate> rawRates) {
+        LocalDateTime now = LocalDateTime.now();
+        for (RawApiRate rawRate : rawRates) {
+            if (rawRate.getCreatedAt() == null) {
+                rawRate.setCreatedAt(now);
+                rawRate.setUpdatedAt(now);
+            }
+        }
+        queue.submit(rawRates);
+        log.debug("Queued {} raw API rates ({} pending)", rawRates.size(), queue.size());
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        queue.close();
+    }
+
+    private void insertBatch(List<RawApiRate> batch) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (statement, rawRate) -> {
+                    statement.setLong(1, rawRate.getCurrencyPair().getId());
+                    statement.setBigDecimal(2, rawRate.getRate());
+                    statement.setString(3, rawRate.getApiSource());
+                    statement.setString(4, rawRate.getStatus().name());
+                    statement.setTimestamp(5, Timestamp.valueOf(rawRate.getCreatedAt()));
+                    statement.setTimestamp(6, Timestamp.valueOf(rawRate.getUpdatedAt()));
+                }));
+        log.debug("Inserted batch of {} raw API rates", batch.size());
+    }
+}
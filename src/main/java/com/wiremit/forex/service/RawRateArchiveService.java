@@ -0,0 +1,158 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.archive.ArchivedRawRate;
+import com.wiremit.forex.archive.RawRateSegmentReader;
+import com.wiremit.forex.archive.RawRateSegmentWriter;
+import com.wiremit.forex.exception.CurrencyPairNotFoundException;
+import com.wiremit.forex.exception.ForexServiceException;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.model.FetchStatus;
+import com.wiremit.forex.util.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves cold raw API rates out of the database into per-month archive segments
+ * on local disk and serves range queries over them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RawRateArchiveService {
+
+    private static final String SEGMENT_PREFIX = "raw-api-rates-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CurrencyPairRegistry currencyPairRegistry;
+
+    @Value("${app.raw-rates.archive.directory:archive/raw-api-rates}")
+    private Path archiveDirectory;
+
+    /**
+     * Whether a segment has already been written for the month
+     */
+    public boolean isArchived(YearMonth month) {
+        return Files.exists(segmentPath(month));
+    }
+
+    /**
+     * Write every raw rate created during the month into its segment file.
+     * The segment is written to a temporary file and atomically moved into place,
+     * so a month is either fully archived or not at all.
+     *
+     * @return number of archived rows
+     */
+    public long archiveMonth(YearMonth month) {
+        Path target = segmentPath(month);
+        if (Files.exists(target)) {
+            throw new ForexServiceException("Month " + month + " is already archived");
+        }
+
+        try {
+            Files.createDirectories(archiveDirectory);
+            Path temp = archiveDirectory.resolve(target.getFileName() + ".tmp");
+            Files.deleteIfExists(temp);
+
+            long[] rows = {0};
+            try (RawRateSegmentWriter writer = RawRateSegmentWriter.create(temp)) {
+                // Partition pruning keeps this scan inside the month's partition
+                jdbcTemplate.query("""
+                                SELECT id, currency_pair_id, api_source, status, rate, created_at
+                                FROM raw_api_rates
+                                WHERE created_at >= ? AND created_at < ?
+                                ORDER BY currency_pair_id, api_source, created_at
+                                """,
+                        resultSet -> {
+                            try {
+                                writer.append(new ArchivedRawRate(
+                                        resultSet.getLong("id"),
+                                        resultSet.getLong("currency_pair_id"),
+                                        resultSet.getString("api_source"),
+                                        FetchStatus.valueOf(resultSet.getString("status")),
+                                        resultSet.getBigDecimal("rate"),
+                                        resultSet.getTimestamp("created_at").toLocalDateTime()));
+                                rows[0]++;
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        },
+                        Timestamp.valueOf(month.atDay(1).atStartOfDay()),
+                        Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+            }
+
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Archived {} raw API rates for {} to {}", rows[0], month, target);
+            return rows[0];
+
+        } catch (IOException | UncheckedIOException e) {
+            throw new ForexServiceException("Failed to archive raw API rates for " + month, e);
+        }
+    }
+
+    /**
+     * Get archived raw rates of a currency pair for an audit time window
+     */
+    public ResponseEntity<ApiResponse<List<ArchivedRawRate>>> getArchivedRates(String pairCode, String apiSource,
+                                                                              LocalDateTime from, LocalDateTime to,
+                                                                              HttpServletRequest request) {
+        log.debug("Fetching archived raw rates for {} ({}) from {} to {}", pairCode, apiSource, from, to);
+
+        if (!from.isBefore(to)) {
+            throw new ForexServiceException("'from' must be before 'to'");
+        }
+
+        CurrencyPair pair = currencyPairRegistry.findByPairCode(pairCode.toUpperCase())
+                .orElseThrow(() -> new CurrencyPairNotFoundException("Currency pair not found: " + pairCode));
+
+        List<ArchivedRawRate> rates = findArchivedRates(pair.getId(), apiSource, from, to);
+        String message = String.format("Fetched %d archived raw rates for %s", rates.size(), pair.getPairCode());
+
+        return ResponseEntity.ok(
+                ApiResponse.success(message, rates)
+                        .path(request.getRequestURI())
+        );
+    }
+
+    /**
+     * Archived rates of a currency pair created in [from, to)
+     *
+     * @param apiSource api source to match, or null for every source
+     */
+    public List<ArchivedRawRate> findArchivedRates(long currencyPairId, String apiSource,
+                                                   LocalDateTime from, LocalDateTime to) {
+        List<ArchivedRawRate> rates = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(from); month.atDay(1).atStartOfDay().isBefore(to); month = month.plusMonths(1)) {
+            Path segment = segmentPath(month);
+            if (!Files.exists(segment)) {
+                continue;
+            }
+            try (RawRateSegmentReader reader = RawRateSegmentReader.open(segment)) {
+                rates.addAll(reader.query(currencyPairId, apiSource, from, to));
+            } catch (IOException e) {
+                throw new ForexServiceException("Failed to read archive segment " + segment, e);
+            }
+        }
+        return rates;
+    }
+
+    private Path segmentPath(YearMonth month) {
+        return archiveDirectory.resolve(SEGMENT_PREFIX + month + SEGMENT_SUFFIX);
+    }
+}
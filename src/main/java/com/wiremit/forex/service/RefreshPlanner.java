@@ -0,0 +1,117 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.model.ForexRate;
+import com.wiremit.forex.repository.ForexRateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which currency pairs are due for a refresh. Each pair's interval
+ * shrinks with its recent volatility, measured on the aggregated rate history:
+ * pairs at or below the target volatility refresh every max-interval, more
+ * volatile pairs proportionally more often, down to min-interval.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshPlanner {
+
+    private final ForexRateRepository forexRateRepository;
+    private final Clock clock;
+
+    @Value("${app.rates.refresh.min-interval:15m}")
+    private Duration minInterval;
+
+    @Value("${app.rates.refresh.max-interval:1h}")
+    private Duration maxInterval;
+
+    // Hourly volatility (standard deviation of log returns per square-root hour) at which a pair refreshes every max-interval
+    @Value("${app.rates.refresh.target-volatility:0.001}")
+    private double targetVolatility;
+
+    @Value("${app.rates.refresh.history-size:24}")
+    private int historySize;
+
+    private final Map<Long, PairSchedule> schedules = new ConcurrentHashMap<>();
+
+    /**
+     * @param volatility hourly volatility the interval was derived from
+     */
+    public record PairSchedule(double volatility, Duration interval, Instant nextRefreshAt) {
+    }
+
+    /**
+     * Pairs that have never been refreshed or whose interval has elapsed
+     */
+    public List<CurrencyPair> duePairs(List<CurrencyPair> activePairs) {
+        Instant now = clock.instant();
+        return activePairs.stream()
+                .filter(pair -> {
+                    PairSchedule schedule = schedules.get(pair.getId());
+                    return schedule == null || !now.isBefore(schedule.nextRefreshAt());
+                })
+                .toList();
+    }
+
+    /**
+     * Schedule the next refresh of pairs that were just refreshed
+     */
+    public void refreshed(List<CurrencyPair> pairs) {
+        Instant now = clock.instant();
+        for (CurrencyPair pair : pairs) {
+            List<ForexRate> history = forexRateRepository.findRateHistoryByCurrencyPairId(
+                    pair.getId(), PageRequest.of(0, historySize));
+            double volatility = volatility(history);
+            Duration interval = intervalFor(volatility);
+            schedules.put(pair.getId(), new PairSchedule(volatility, interval, now.plus(interval)));
+            log.debug("Next refresh of {} in {} (hourly volatility {})", pair.getPairCode(), interval, volatility);
+        }
+    }
+
+    public Map<Long, PairSchedule> getSchedules() {
+        return Map.copyOf(schedules);
+    }
+
+    Duration intervalFor(double volatility) {
+        if (!(volatility > targetVolatility)) {
+            return maxInterval;
+        }
+        long scaledMillis = (long) (maxInterval.toMillis() * (targetVolatility / volatility));
+        return Duration.ofMillis(Math.max(minInterval.toMillis(), scaledMillis));
+    }
+
+    /**
+     * Root mean square of the log returns between consecutive rates, each scaled
+     * to one hour by the square root of the time between them
+     *
+     * @param history newest first, as returned by the history query
+     * @return zero with fewer than two usable rates
+     */
+    static double volatility(List<ForexRate> history) {
+        double sumOfSquares = 0;
+        int returns = 0;
+        for (int i = 0; i + 1 < history.size(); i++) {
+            ForexRate newer = history.get(i);
+            ForexRate older = history.get(i + 1);
+            double hours = Duration.between(older.getCreatedAt(), newer.getCreatedAt()).toMillis() / 3_600_000.0;
+            if (hours <= 0 || older.getAverageRate().signum() <= 0 || newer.getAverageRate().signum() <= 0) {
+                continue;
+            }
+            double logReturn = Math.log(newer.getAverageRate().doubleValue() / older.getAverageRate().doubleValue());
+            sumOfSquares += logReturn * logReturn / hours;
+            returns++;
+        }
+        return returns > 0 ? Math.sqrt(sumOfSquares / returns) : 0;
+    }
+}
@@ -0,0 +1,181 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.event.LeaseAcquiredEvent;
+import com.wiremit.forex.exception.LeaseLostException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Lease on the rate-ingestion row of scheduler_locks, so that only one node of a
+ * cluster fetches and stores rates.
+ * <p>
+ * Every node tries to take or extend the lease each renew interval; a lease that
+ * has not been extended for {@code app.scheduler.lease.duration} can be taken by
+ * the next node trying. Each change of owner increments the fencing token, and
+ * the holder checks its token inside the transaction storing a run, so a node
+ * that stalled past its lease cannot commit over the new leader's writes.
+ * Taking the lease publishes a {@link LeaseAcquiredEvent}, for leader-only work
+ * that should not wait for its next schedule.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SchedulerLease {
+
+    static final String RATE_INGESTION = "rate-ingestion";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Clock clock;
+
+    @Value("${app.scheduler.node-id:}")
+    private String nodeId;
+
+    @Value("${app.scheduler.lease.duration:30s}")
+    private Duration leaseDuration;
+
+    private volatile long token = -1;
+    private volatile Instant heldUntil = Instant.EPOCH;
+
+    @PostConstruct
+    void init() {
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+    }
+
+    /**
+     * Take the lease when it is free or expired, extend it when this node holds it
+     */
+    @Scheduled(fixedDelayString = "${app.scheduler.lease.renew-interval:10s}")
+    public void renew() {
+        Instant now = clock.instant();
+        Instant until = now.plus(leaseDuration);
+        try {
+            int updated = jdbcTemplate.update("""
+                            UPDATE scheduler_locks
+                            SET fencing_token = CASE WHEN owner = ? THEN fencing_token ELSE fencing_token + 1 END,
+                                acquired_at = CASE WHEN owner = ? THEN acquired_at ELSE ? END,
+                                owner = ?,
+                                locked_until = ?
+                            WHERE name = ? AND (owner = ? OR locked_until < ?)
+                            """,
+                    nodeId, nodeId, toDb(now), nodeId, toDb(until), RATE_INGESTION, nodeId, toDb(now));
+
+            if (updated == 0) {
+                lost("held by another node");
+                return;
+            }
+
+            Long current = jdbcTemplate.queryForObject(
+                    "SELECT fencing_token FROM scheduler_locks WHERE name = ? AND owner = ?",
+                    Long.class, RATE_INGESTION, nodeId);
+            if (current == null) {
+                lost("taken over while renewing");
+                return;
+            }
+            boolean acquired = current != token;
+            token = current;
+            heldUntil = until;
+            if (acquired) {
+                log.info("Node {} acquired the {} lease with fencing token {}", nodeId, RATE_INGESTION, current);
+                eventPublisher.publishEvent(new LeaseAcquiredEvent(nodeId, current));
+            }
+        } catch (DataAccessException e) {
+            // Without the database the lease cannot be proven, stop acting as leader once it runs out
+            log.warn("Could not renew the {} lease: {}", RATE_INGESTION, e.getMessage());
+        }
+    }
+
+    /**
+     * Whether this node holds an unexpired lease
+     */
+    public boolean isLeader() {
+        return token >= 0 && clock.instant().isBefore(heldUntil);
+    }
+
+    /**
+     * Fencing token of the lease this node holds, empty when it is a follower
+     */
+    public OptionalLong currentToken() {
+        long current = token;
+        return current >= 0 && isLeader() ? OptionalLong.of(current) : OptionalLong.empty();
+    }
+
+    /**
+     * Check, within the caller's transaction, that the lease is still held under
+     * the token. The row stays locked until the transaction ends, so the lease
+     * cannot change hands before the caller's writes commit.
+     *
+     * @throws LeaseLostException when another node took the lease since
+     */
+    public void verify(long fencingToken) {
+        int held = jdbcTemplate.update("""
+                        UPDATE scheduler_locks SET fencing_token = fencing_token
+                        WHERE name = ? AND owner = ? AND fencing_token = ? AND locked_until >= ?
+                        """,
+                RATE_INGESTION, nodeId, fencingToken, toDb(clock.instant()));
+        if (held == 0) {
+            throw new LeaseLostException("Node " + nodeId + " no longer holds the " + RATE_INGESTION
+                    + " lease with fencing token " + fencingToken);
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Hand the lease over right away on shutdown instead of letting it expire
+     */
+    @PreDestroy
+    public void release() {
+        if (token < 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("UPDATE scheduler_locks SET locked_until = ? WHERE name = ? AND owner = ?",
+                    toDb(Instant.EPOCH), RATE_INGESTION, nodeId);
+        } catch (DataAccessException e) {
+            log.warn("Could not release the {} lease: {}", RATE_INGESTION, e.getMessage());
+        }
+        token = -1;
+    }
+
+    private void lost(String reason) {
+        if (token >= 0) {
+            log.warn("Node {} lost the {} lease: {}", nodeId, RATE_INGESTION, reason);
+        }
+        token = -1;
+    }
+
+    private static LocalDateTime toDb(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "node";
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.wiremit.forex.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Aggregates every pair of a {@link RateMatrix} into one rate in a single pass
+ * over its pair-major cells.
+ * <p>
+ * Per pair the valid quotes of providers with a positive weight are gathered,
+ * optionally stripped of outliers (quotes further than {@code outlierTolerance},
+ * relative, from their median; needs at least three quotes) and then reduced with
+ * the configured method. Only {@link Method#MEAN} uses the provider weights.
+ * Large matrices are split into pair ranges on the common fork/join pool.
+ */
+public final class AggregationEngine {
+
+    public enum Method {
+        MEAN, MEDIAN, TRIMMED_MEAN
+    }
+
+    /**
+     * @param rates        aggregated rate per pair, NaN where no provider had a usable quote
+     * @param sourceCounts quotes that went into each rate
+     */
+    public record Result(double[] rates, int[] sourceCounts) {
+    }
+
+    // Pairs per fork/join task; below this splitting costs more than it saves
+    private static final int PARALLEL_CHUNK = 8192;
+
+    private final Method method;
+    private final double trimFraction;
+    private final double outlierTolerance;
+    private final boolean parallel;
+
+    /**
+     * @param trimFraction     share of quotes dropped from each end by {@link Method#TRIMMED_MEAN}, below 0.5
+     * @param outlierTolerance relative distance from the median beyond which a quote is rejected, zero disables it
+     * @param parallel         whether large matrices may be split across cores
+     */
+    public AggregationEngine(Method method, double trimFraction, double outlierTolerance, boolean parallel) {
+        if (trimFraction < 0 || trimFraction >= 0.5) {
+            throw new IllegalArgumentException("Trim fraction must be in [0, 0.5): " + trimFraction);
+        }
+        this.method = method;
+        this.trimFraction = trimFraction;
+        this.outlierTolerance = outlierTolerance;
+        this.parallel = parallel;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public Result aggregate(RateMatrix matrix) {
+        double[] rates = new double[matrix.pairs()];
+        int[] sourceCounts = new int[matrix.pairs()];
+        if (parallel && matrix.pairs() > PARALLEL_CHUNK) {
+            ForkJoinPool.commonPool().invoke(new RangeTask(matrix, 0, matrix.pairs(), rates, sourceCounts));
+        } else {
+            aggregateRange(matrix, 0, matrix.pairs(), rates, sourceCounts);
+        }
+        return new Result(rates, sourceCounts);
+    }
+
+    private void aggregateRange(RateMatrix matrix, int from, int to, double[] out, int[] counts) {
+        int providers = matrix.providers();
+        double[] values = new double[providers];
+        double[] weights = new double[providers];
+        double[] sorted = new double[providers];
+
+        for (int pair = from; pair < to; pair++) {
+            int n = 0;
+            int first = pair * providers;
+            for (int provider = 0; provider < providers; provider++) {
+                double weight = matrix.weight(provider);
+                if (weight > 0 && matrix.isValidCell(first + provider)) {
+                    values[n] = matrix.rateAt(first + provider);
+                    weights[n] = weight;
+                    n++;
+                }
+            }
+
+            if (n >= 3 && outlierTolerance > 0) {
+                double median = median(sort(values, n, sorted), n);
+                int kept = 0;
+                for (int i = 0; i < n; i++) {
+                    if (Math.abs(values[i] - median) <= outlierTolerance * median) {
+                        values[kept] = values[i];
+                        weights[kept] = weights[i];
+                        kept++;
+                    }
+                }
+                n = kept;
+            }
+
+            counts[pair] = n;
+            out[pair] = n == 0 ? Double.NaN : switch (method) {
+                case MEAN -> weightedMean(values, weights, n);
+                case MEDIAN -> median(sort(values, n, sorted), n);
+                case TRIMMED_MEAN -> trimmedMean(sort(values, n, sorted), n);
+            };
+        }
+    }
+
+    private static double weightedMean(double[] values, double[] weights, int n) {
+        double weightedSum = 0;
+        double totalWeight = 0;
+        for (int i = 0; i < n; i++) {
+            weightedSum += values[i] * weights[i];
+            totalWeight += weights[i];
+        }
+        return weightedSum / totalWeight;
+    }
+
+    private static double median(double[] sorted, int n) {
+        int mid = n >>> 1;
+        return (n & 1) == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2;
+    }
+
+    private double trimmedMean(double[] sorted, int n) {
+        int trimmed = (int) (n * trimFraction);
+        double sum = 0;
+        for (int i = trimmed; i < n - trimmed; i++) {
+            sum += sorted[i];
+        }
+        return sum / (n - 2 * trimmed);
+    }
+
+    /**
+     * Insertion sort of the first n values into the scratch array, a handful of providers per pair
+     */
+    private static double[] sort(double[] values, int n, double[] sorted) {
+        for (int i = 0; i < n; i++) {
+            double value = values[i];
+            int j = i - 1;
+            while (j >= 0 && sorted[j] > value) {
+                sorted[j + 1] = sorted[j];
+                j--;
+            }
+            sorted[j + 1] = value;
+        }
+        return sorted;
+    }
+
+    private final class RangeTask extends RecursiveAction {
+
+        private final RateMatrix matrix;
+        private final int from;
+        private final int to;
+        private final double[] out;
+        private final int[] counts;
+
+        RangeTask(RateMatrix matrix, int from, int to, double[] out, int[] counts) {
+            this.matrix = matrix;
+            this.from = from;
+            this.to = to;
+            this.out = out;
+            this.counts = counts;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_CHUNK) {
+                aggregateRange(matrix, from, to, out, counts);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(matrix, from, mid, out, counts), new RangeTask(matrix, mid, to, out, counts));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return method + (method == Method.TRIMMED_MEAN ? " (trim " + trimFraction + ")" : "")
+                + (outlierTolerance > 0 ? ", outliers beyond " + outlierTolerance : "");
+    }
+}
@@ -0,0 +1,174 @@
+package com.wiremit.forex.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.wiremit.forex.exception.CurrencyPairNotFoundException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * A batch of amounts to convert, read by streaming from a compact JSON array of
+ * {@code [pairCode, amount]} entries such as {@code [["USDZAR", 1250.00], ["USDGBP", "99.5"]]}.
+ * <p>
+ * Entries are kept in primitive arrays: each amount as a fixed-point long with
+ * {@link #AMOUNT_SCALE} decimals and each pair as an index into the distinct
+ * pairs of the batch, so that rates only have to be resolved once per pair.
+ * Neither pair codes nor amounts are turned into objects while reading.
+ */
+public final class ConversionBatch {
+
+    public static final int AMOUNT_SCALE = 4;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // Distinct packed pair keys in order of first appearance
+    private int[] pairKeys = new int[16];
+    private int pairCount;
+
+    // Open addressing table from pair key to pair index + 1, 0 marks a free slot
+    private int[] slotKeys = new int[64];
+    private int[] slotIndexes = new int[64];
+
+    private int[] entryPairs = new int[256];
+    private long[] amounts = new long[256];
+    private int size;
+
+    private ConversionBatch() {
+    }
+
+    /**
+     * Read a batch
+     *
+     * @throws IllegalArgumentException      when the payload is not an array of entries or holds more than maxEntries
+     * @throws NumberFormatException         when an amount is not a plain decimal with at most {@link #AMOUNT_SCALE} decimals
+     * @throws CurrencyPairNotFoundException when a pair code is not two ISO 4217 codes
+     */
+    public static ConversionBatch read(InputStream in, int maxEntries) throws IOException {
+        ConversionBatch batch = new ConversionBatch();
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected an array of [pairCode, amount] entries");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_ARRAY) {
+                    throw invalidEntry(batch.size);
+                }
+                if (batch.size == maxEntries) {
+                    throw new IllegalArgumentException("Cannot convert more than " + maxEntries + " amounts at once");
+                }
+
+                if (parser.nextToken() != JsonToken.VALUE_STRING) {
+                    throw invalidEntry(batch.size);
+                }
+                int pairKey = CurrencyCode.parsePair(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                if (pairKey == CurrencyCode.INVALID) {
+                    throw new CurrencyPairNotFoundException("Invalid currency pair format: " + parser.getText()
+                            + " (entry " + batch.size + ")");
+                }
+
+                token = parser.nextToken();
+                if (token != JsonToken.VALUE_STRING && token != JsonToken.VALUE_NUMBER_INT
+                        && token != JsonToken.VALUE_NUMBER_FLOAT) {
+                    throw invalidEntry(batch.size);
+                }
+                long amount = FixedPoint.parse(parser.getTextCharacters(), parser.getTextOffset(),
+                        parser.getTextLength(), AMOUNT_SCALE);
+
+                if (parser.nextToken() != JsonToken.END_ARRAY) {
+                    throw invalidEntry(batch.size);
+                }
+                batch.add(pairKey, amount);
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed conversion batch: " + e.getOriginalMessage());
+        }
+        return batch;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int pairCount() {
+        return pairCount;
+    }
+
+    public int pairKey(int pairIndex) {
+        return pairKeys[pairIndex];
+    }
+
+    /**
+     * Index of the entry's pair, in [0, {@link #pairCount()})
+     */
+    public int pairOf(int entry) {
+        return entryPairs[entry];
+    }
+
+    /**
+     * Amount of the entry, times 10^{@link #AMOUNT_SCALE}
+     */
+    public long amount(int entry) {
+        return amounts[entry];
+    }
+
+    private void add(int pairKey, long amount) {
+        if (size == amounts.length) {
+            entryPairs = Arrays.copyOf(entryPairs, size * 2);
+            amounts = Arrays.copyOf(amounts, size * 2);
+        }
+        entryPairs[size] = indexOf(pairKey);
+        amounts[size] = amount;
+        size++;
+    }
+
+    private int indexOf(int pairKey) {
+        int mask = slotKeys.length - 1;
+        int slot = slot(pairKey, mask);
+        while (slotIndexes[slot] != 0) {
+            if (slotKeys[slot] == pairKey) {
+                return slotIndexes[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (pairCount == pairKeys.length) {
+            pairKeys = Arrays.copyOf(pairKeys, pairCount * 2);
+        }
+        pairKeys[pairCount] = pairKey;
+        slotKeys[slot] = pairKey;
+        slotIndexes[slot] = ++pairCount;
+        // Keep the table at most half full
+        if (pairCount * 2 > slotKeys.length) {
+            rehash();
+        }
+        return pairCount - 1;
+    }
+
+    private void rehash() {
+        slotKeys = new int[slotKeys.length * 2];
+        slotIndexes = new int[slotIndexes.length * 2];
+        int mask = slotKeys.length - 1;
+        for (int index = 0; index < pairCount; index++) {
+            int slot = slot(pairKeys[index], mask);
+            while (slotIndexes[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slotKeys[slot] = pairKeys[index];
+            slotIndexes[slot] = index + 1;
+        }
+    }
+
+    private static int slot(int pairKey, int mask) {
+        int hash = pairKey * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & mask;
+    }
+
+    private static IllegalArgumentException invalidEntry(int entry) {
+        return new IllegalArgumentException("Entry " + entry + " is not a [pairCode, amount] array");
+    }
+}
@@ -0,0 +1,164 @@
+package com.wiremit.forex.util;
+
+import java.util.Arrays;
+import java.util.Currency;
+
+/**
+ * Compact encoding of ISO 4217 currency codes.
+ * <p>
+ * A code is packed into 15 bits (5 bits per letter) and a currency pair into 30 bits
+ * ({@code base << 15 | target}), so both fit in an int and can be used as keys without
+ * boxing or String allocation. Every ISO 4217 code known to the JDK also gets a dense
+ * ordinal, used to index per-currency arrays such as provider quote vectors.
+ * Letters are accepted in either case.
+ */
+public final class CurrencyCode {
+
+    public static final int INVALID = -1;
+
+    private static final int BITS = 15;
+    private static final int MASK = (1 << BITS) - 1;
+
+    /** Packed code -> ordinal, or -1 when the code is not ISO 4217 */
+    private static final short[] ORDINALS = new short[1 << BITS];
+
+    /** Ordinal -> upper-case code */
+    private static final String[] CODES;
+
+    /** Ordinal -> packed code */
+    private static final int[] PACKED;
+
+    public static final int USD;
+    public static final int EUR;
+
+    static {
+        Arrays.fill(ORDINALS, (short) -1);
+        CODES = Currency.getAvailableCurrencies().stream()
+                .map(Currency::getCurrencyCode)
+                .filter(code -> pack(code, 0) != INVALID)
+                .sorted()
+                .toArray(String[]::new);
+        PACKED = new int[CODES.length];
+        for (int ordinal = 0; ordinal < CODES.length; ordinal++) {
+            PACKED[ordinal] = pack(CODES[ordinal], 0);
+            ORDINALS[PACKED[ordinal]] = (short) ordinal;
+        }
+        USD = parse("USD");
+        EUR = parse("EUR");
+    }
+
+    private CurrencyCode() {
+    }
+
+    /**
+     * Parse an ISO 4217 currency code
+     *
+     * @return the packed code, or {@link #INVALID} when it is not a known ISO 4217 code
+     */
+    public static int parse(CharSequence code) {
+        if (code == null || code.length() != 3) {
+            return INVALID;
+        }
+        int packed = pack(code, 0);
+        return packed != INVALID && ORDINALS[packed] >= 0 ? packed : INVALID;
+    }
+
+    /**
+     * Parse a six letter pair code such as USDZAR
+     *
+     * @return the packed pair, or {@link #INVALID} when either side is not an ISO 4217 code
+     * or both sides are the same currency
+     */
+    public static int parsePair(CharSequence pairCode) {
+        if (pairCode == null || pairCode.length() != 6) {
+            return INVALID;
+        }
+        int base = pack(pairCode, 0);
+        int target = pack(pairCode, 3);
+        if (base == INVALID || target == INVALID || base == target
+                || ORDINALS[base] < 0 || ORDINALS[target] < 0) {
+            return INVALID;
+        }
+        return pair(base, target);
+    }
+
+    /**
+     * Parse a six letter pair code held in a char buffer, without allocating
+     *
+     * @see #parsePair(CharSequence)
+     */
+    public static int parsePair(char[] chars, int offset, int length) {
+        if (length != 6) {
+            return INVALID;
+        }
+        int base = pack(chars, offset);
+        int target = pack(chars, offset + 3);
+        if (base == INVALID || target == INVALID || base == target
+                || ORDINALS[base] < 0 || ORDINALS[target] < 0) {
+            return INVALID;
+        }
+        return pair(base, target);
+    }
+
+    public static int pair(int base, int target) {
+        return base << BITS | target;
+    }
+
+    public static int base(int pair) {
+        return pair >>> BITS;
+    }
+
+    public static int target(int pair) {
+        return pair & MASK;
+    }
+
+    /**
+     * Dense ordinal of a packed ISO code, in [0, {@link #count()})
+     */
+    public static int ordinal(int packed) {
+        return packed < 0 ? INVALID : ORDINALS[packed];
+    }
+
+    public static int fromOrdinal(int ordinal) {
+        return PACKED[ordinal];
+    }
+
+    /**
+     * Number of known ISO 4217 codes, i.e. the length of ordinal-indexed arrays
+     */
+    public static int count() {
+        return CODES.length;
+    }
+
+    public static String toCode(int packed) {
+        return CODES[ORDINALS[packed]];
+    }
+
+    public static String toPairCode(int pair) {
+        return toCode(base(pair)) + toCode(target(pair));
+    }
+
+    private static int pack(CharSequence code, int offset) {
+        int packed = 0;
+        for (int i = offset; i < offset + 3; i++) {
+            int letter = (code.charAt(i) | 0x20) - 'a';
+            if (letter < 0 || letter >= 26) {
+                return INVALID;
+            }
+            packed = packed << 5 | letter;
+        }
+        return packed;
+    }
+
+    private static int pack(char[] code, int offset) {
+        int packed = 0;
+        for (int i = offset; i < offset + 3; i++) {
+            int letter = (code[i] | 0x20) - 'a';
+            if (letter < 0 || letter >= 26) {
+                return INVALID;
+            }
+            packed = packed << 5 | letter;
+        }
+        return packed;
+    }
+}
@@ -0,0 +1,157 @@
+package com.wiremit.forex.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory map whose entries expire at a fixed instant, for short-lived values
+ * created at a high rate.
+ * <p>
+ * Besides the map, every key is queued in the time bucket its entry expires in,
+ * on a ring of buckets covering the longest allowed lifetime. {@link #expire}
+ * drains the buckets that have fully passed, so expiring an entry costs O(1)
+ * and never scans live ones. Reads check the expiry themselves and do not
+ * depend on how recently the store was swept. Nothing locks the store as a
+ * whole: reads of the {@link ConcurrentHashMap} are lock-free, buckets are
+ * lock-free queues and a sweep runs only when no other one is.
+ */
+public final class ExpiringStore<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<K>[] buckets;
+    private final long bucketMillis;
+    private final AtomicLong sweptBucket;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    /**
+     * @param maxLifetime longest time between {@link #put} and the entry's expiry
+     * @param resolution  width of a bucket: entries are evicted at most this long after expiring
+     * @param start       current time, sweeping starts from there
+     */
+    @SuppressWarnings("unchecked")
+    public ExpiringStore(Duration maxLifetime, Duration resolution, Instant start) {
+        this.bucketMillis = resolution.toMillis();
+        if (bucketMillis <= 0 || maxLifetime.compareTo(resolution) < 0) {
+            throw new IllegalArgumentException("Resolution must be positive and at most the max lifetime");
+        }
+        // One spare bucket for the partial bucket at each end of a lifetime
+        int ringSize = Math.toIntExact(ceilDiv(maxLifetime.toMillis(), bucketMillis) + 2);
+        this.buckets = new ConcurrentLinkedQueue[ringSize];
+        for (int i = 0; i < ringSize; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.sweptBucket = new AtomicLong(Math.floorDiv(start.toEpochMilli(), bucketMillis));
+    }
+
+    /**
+     * Store a value until the given instant, replacing any value of the key
+     *
+     * @throws IllegalArgumentException when the value would outlive the max lifetime or is already expired
+     */
+    public void put(K key, V value, Instant expiresAt, Instant now) {
+        long expiry = expiresAt.toEpochMilli();
+        // First bucket boundary at or after the expiry: once it has passed, so has the entry
+        long bucket = ceilDiv(expiry, bucketMillis);
+        long current = Math.floorDiv(now.toEpochMilli(), bucketMillis);
+        if (expiry <= now.toEpochMilli() || bucket - current > buckets.length - 2) {
+            throw new IllegalArgumentException("Expiry must be within the max lifetime of the store");
+        }
+        entries.put(key, new Entry<>(value, expiry));
+        buckets[ringIndex(bucket)].add(key);
+    }
+
+    /**
+     * @return the value of the key, null when there is none or it has expired
+     */
+    public V get(K key, Instant now) {
+        Entry<V> entry = entries.get(key);
+        return entry == null || entry.expiresAt() <= now.toEpochMilli() ? null : entry.value();
+    }
+
+    /**
+     * Remove the key if it still maps to the given, unexpired value. Of several
+     * concurrent callers at most one succeeds.
+     */
+    public boolean remove(K key, V value, Instant now) {
+        Entry<V> entry = entries.get(key);
+        return entry != null
+                && entry.expiresAt() > now.toEpochMilli()
+                && entry.value().equals(value)
+                && entries.remove(key, entry);
+    }
+
+    /**
+     * Evict the entries of every bucket that has passed since the last sweep.
+     * Returns right away when another thread is sweeping.
+     *
+     * @return number of entries evicted
+     */
+    public int expire(Instant now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            long nowMillis = now.toEpochMilli();
+            long target = Math.floorDiv(nowMillis, bucketMillis);
+            // After a long pause each bucket of the ring is drained once
+            long from = Math.max(sweptBucket.get() + 1, target - buckets.length + 1);
+            int evicted = 0;
+            for (long bucket = from; bucket <= target; bucket++) {
+                evicted += drain(buckets[ringIndex(bucket)], nowMillis);
+            }
+            sweptBucket.set(Math.max(sweptBucket.get(), target));
+            return evicted;
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * Number of stored entries, including expired ones not evicted yet
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private int drain(ConcurrentLinkedQueue<K> bucket, long nowMillis) {
+        int evicted = 0;
+        List<K> requeue = new ArrayList<>();
+        K key;
+        while ((key = bucket.poll()) != null) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                continue; // Removed before it expired
+            }
+            if (entry.expiresAt() > nowMillis) {
+                // Replaced by a later entry, or put by a thread whose clock is behind the sweeper's
+                requeue.add(key);
+            } else if (entries.remove(key, entry)) {
+                evicted++;
+            }
+        }
+        for (K liveKey : requeue) {
+            Entry<V> entry = entries.get(liveKey);
+            if (entry != null) {
+                buckets[ringIndex(ceilDiv(entry.expiresAt(), bucketMillis))].add(liveKey);
+            }
+        }
+        return evicted;
+    }
+
+    private int ringIndex(long bucket) {
+        return (int) Math.floorMod(bucket, (long) buckets.length);
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+}
@@ -0,0 +1,128 @@
+package com.wiremit.forex.util;
+
+/**
+ * Decimal arithmetic on longs holding a value times 10^scale, for hot paths where
+ * a BigDecimal per operation is too much garbage. Every operation either returns
+ * the exact (or half-up rounded) result or throws, it never silently overflows.
+ */
+public final class FixedPoint {
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /** Longest text {@link #format} writes: sign, 19 digits and the decimal point */
+    public static final int MAX_LENGTH = 21;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Parse a plain decimal number such as {@code 1250.5} or {@code -3}
+     *
+     * @return the value times 10^scale
+     * @throws NumberFormatException when the text is not a plain decimal, has more than
+     *                               {@code scale} significant decimals or does not fit
+     */
+    public static long parse(char[] chars, int offset, int length, int scale) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+
+        long value = 0;
+        int decimals = -1;
+        boolean digits = false;
+        try {
+            for (; i < end; i++) {
+                char c = chars[i];
+                if (c == '.' && decimals < 0) {
+                    decimals = 0;
+                    continue;
+                }
+                if (c < '0' || c > '9') {
+                    throw invalid(chars, offset, length, "is not a plain decimal number");
+                }
+                digits = true;
+                if (decimals == scale) {
+                    // Trailing zeros past the scale are harmless, anything else would be rounded away
+                    if (c != '0') {
+                        throw invalid(chars, offset, length, "has more than " + scale + " decimals");
+                    }
+                    continue;
+                }
+                if (decimals >= 0) {
+                    decimals++;
+                }
+                value = Math.addExact(Math.multiplyExact(value, 10), c - '0');
+            }
+            if (!digits) {
+                throw invalid(chars, offset, length, "is not a plain decimal number");
+            }
+            value = Math.multiplyExact(value, POWERS_OF_TEN[scale - Math.max(decimals, 0)]);
+        } catch (ArithmeticException e) {
+            throw invalid(chars, offset, length, "is too large");
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Multiply a fixed-point value by a fixed-point factor, keeping the value's scale
+     * and rounding half up (away from zero)
+     *
+     * @throws ArithmeticException when the intermediate product overflows a long
+     */
+    public static long multiply(long value, long factor, int factorScale) {
+        long product = Math.multiplyExact(value, factor);
+        long divisor = POWERS_OF_TEN[factorScale];
+        long quotient = product / divisor;
+        long remainder = product % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(product);
+        }
+        return quotient;
+    }
+
+    /**
+     * Write a fixed-point value as plain decimal text into the start of the buffer,
+     * which must hold at least {@link #MAX_LENGTH} chars
+     *
+     * @return number of chars written
+     */
+    public static int format(long value, int scale, char[] buffer) {
+        boolean negative = value < 0;
+        // Digits are taken off a non-positive magnitude so that Long.MIN_VALUE works as well
+        long remaining = negative ? value : -value;
+
+        // Written right to left at the end of the buffer, then moved to its start
+        int position = MAX_LENGTH;
+        int digits = 0;
+        do {
+            if (digits == scale && scale > 0) {
+                buffer[--position] = '.';
+            }
+            buffer[--position] = (char) ('0' - remaining % 10);
+            remaining /= 10;
+            digits++;
+        } while (remaining != 0 || digits <= scale);
+        if (negative) {
+            buffer[--position] = '-';
+        }
+
+        int length = MAX_LENGTH - position;
+        System.arraycopy(buffer, position, buffer, 0, length);
+        return length;
+    }
+
+    private static NumberFormatException invalid(char[] chars, int offset, int length, String reason) {
+        return new NumberFormatException("Amount " + new String(chars, offset, length) + " " + reason);
+    }
+}
@@ -1,26 +1,37 @@
 package com.wiremit.forex.util;
 
 import com.wiremit.forex.dto.ForexRateDTO;
+import com.wiremit.forex.model.CurrencyPair;
 import com.wiremit.forex.model.ForexRate;
+import com.wiremit.forex.service.CurrencyPairRegistry;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Component
+@RequiredArgsConstructor
 public class ForexRateMapper {
 
+    private final CurrencyPairRegistry currencyPairRegistry;
+
     public ForexRateDTO toDTO(ForexRate forexRate) {
         if (forexRate == null) {
             return null;
         }
 
+        CurrencyPair pair = resolvePair(forexRate);
+
         return ForexRateDTO.builder()
                 .rate(forexRate.getFinalRate())
-                .baseCurrency(forexRate.getCurrencyPair() != null ? forexRate.getCurrencyPair().getBaseCurrency() : null)
-                .targetCurrency(forexRate.getCurrencyPair() != null ? forexRate.getCurrencyPair().getTargetCurrency() : null)
-                .pairCode(forexRate.getCurrencyPair() != null ? forexRate.getCurrencyPair().getPairCode() : null)
-                .displayName(forexRate.getCurrencyPair() != null ? forexRate.getCurrencyPair().getDisplayName() : null)
+                .baseCurrency(pair != null ? pair.getBaseCurrency() : null)
+                .targetCurrency(pair != null ? pair.getTargetCurrency() : null)
+                .pairCode(pair != null ? pair.getPairCode() : null)
+                .displayName(pair != null ? pair.getDisplayName() : null)
+                .timestamp(forexRate.getCreatedAt())
+                .lastConfirmedAt(forexRate.getLastConfirmedAt() != null ? forexRate.getLastConfirmedAt() : forexRate.getCreatedAt())
+                .runId(forexRate.getRunId())
                 .build();
     }
 
@@ -36,4 +47,15 @@ public class ForexRateMapper {
                 .map(this::toDTO)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Resolve the pair from the registry so the lazy association is never initialized
+     */
+    private CurrencyPair resolvePair(ForexRate forexRate) {
+        CurrencyPair pair = forexRate.getCurrencyPair();
+        if (pair == null) {
+            return null;
+        }
+        return currencyPairRegistry.findById(pair.getId()).orElse(pair);
+    }
 }
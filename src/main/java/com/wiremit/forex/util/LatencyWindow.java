@@ -0,0 +1,54 @@
+package com.wiremit.forex.util;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Latencies of the most recent calls in a fixed ring buffer, for percentile
+ * estimates that follow the current behaviour of a remote service.
+ */
+public final class LatencyWindow {
+
+    private final long[] samples;
+    private final int minSamples;
+    private int next;
+    private int count;
+
+    /**
+     * @param capacity   number of recent samples kept
+     * @param minSamples samples needed before percentiles are reported
+     */
+    public LatencyWindow(int capacity, int minSamples) {
+        this.samples = new long[capacity];
+        this.minSamples = minSamples;
+    }
+
+    public synchronized void record(Duration latency) {
+        samples[next] = latency.toNanos();
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Nearest-rank percentile of the recorded latencies
+     *
+     * @param quantile between 0 and 1, e.g. 0.99
+     * @return the percentile, or null while fewer than the minimum samples are recorded
+     */
+    public Duration percentile(double quantile) {
+        long[] sorted;
+        synchronized (this) {
+            if (count < minSamples) {
+                return null;
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(quantile * sorted.length) - 1;
+        return Duration.ofNanos(sorted[Math.max(0, Math.min(rank, sorted.length - 1))]);
+    }
+}
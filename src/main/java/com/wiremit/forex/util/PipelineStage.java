@@ -0,0 +1,145 @@
+package com.wiremit.forex.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * One stage of an in-process pipeline: a bounded queue drained by a single
+ * worker thread that hands each item to the stage's handler.
+ * <p>
+ * {@link #put} blocks while the queue is full, so a slow stage holds back the
+ * stages feeding it instead of letting work pile up on the heap. How long items
+ * wait in the queue and how long the handler takes are sampled separately.
+ * A handler that throws reports the item to the failure callback and the stage
+ * carries on with the next one.
+ */
+@Slf4j
+public class PipelineStage<T> implements AutoCloseable {
+
+    private record Envelope<T>(T item, long enqueuedAt) {
+    }
+
+    private final String name;
+    private final BlockingQueue<Envelope<T>> queue;
+    private final Consumer<T> handler;
+    private final BiConsumer<T, RuntimeException> onFailure;
+    private final Thread worker;
+    private final LatencyWindow queueWait = new LatencyWindow(256, 1);
+    private final LatencyWindow serviceTime = new LatencyWindow(256, 1);
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    public PipelineStage(String name, int capacity, Consumer<T> handler, BiConsumer<T, RuntimeException> onFailure) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.handler = handler;
+        this.onFailure = onFailure;
+        this.worker = new Thread(this::workLoop, "pipeline-" + name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Queue an item for the stage, blocking while the queue is full
+     */
+    public void put(T item) {
+        if (!running) {
+            throw new IllegalStateException("Pipeline stage " + name + " is closed");
+        }
+        try {
+            queue.put(new Envelope<>(item, System.nanoTime()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing for pipeline stage " + name, e);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public int capacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public long getProcessedCount() {
+        return processed.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * @return null until an item has been handled
+     */
+    public Duration queueWaitPercentile(double quantile) {
+        return queueWait.percentile(quantile);
+    }
+
+    /**
+     * @return null until an item has been handled
+     */
+    public Duration serviceTimePercentile(double quantile) {
+        return serviceTime.percentile(quantile);
+    }
+
+    /**
+     * Stop accepting items and handle everything still queued
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Envelope<T> envelope;
+        while ((envelope = queue.poll()) != null) {
+            handle(envelope);
+        }
+    }
+
+    private void workLoop() {
+        while (running) {
+            try {
+                Envelope<T> envelope = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (envelope != null) {
+                    handle(envelope);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    private void handle(Envelope<T> envelope) {
+        long started = System.nanoTime();
+        queueWait.record(Duration.ofNanos(started - envelope.enqueuedAt()));
+        try {
+            handler.accept(envelope.item());
+            processed.incrementAndGet();
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.error("Pipeline stage {} failed: {}", name, e.getMessage(), e);
+            onFailure.accept(envelope.item(), e);
+        } finally {
+            serviceTime.record(Duration.ofNanos(System.nanoTime() - started));
+        }
+    }
+}
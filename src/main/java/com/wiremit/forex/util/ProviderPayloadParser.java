@@ -0,0 +1,136 @@
+package com.wiremit.forex.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.wiremit.forex.dto.response.ProviderQuotes;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming reader for provider rate payloads.
+ * <p>
+ * Only the requested currencies are read, straight into a {@link QuoteVector};
+ * every other rate is stepped over without its number ever being parsed.
+ * Understands the field names of ExchangeRate-API, Open Exchange Rates and
+ * Fixer, including their error payloads.
+ */
+public final class ProviderPayloadParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private ProviderPayloadParser() {
+    }
+
+    /**
+     * Parse a payload
+     *
+     * @param wanted      currencies to keep, indexed by {@link CurrencyCode} ordinal, null to keep all
+     * @param defaultBase base currency when the payload does not name one
+     */
+    public static ProviderQuotes parse(InputStream in, boolean[] wanted, String defaultBase) throws IOException {
+        double[] rates = new double[CurrencyCode.count()];
+        boolean ratesSeen = false;
+        int quoteCount = 0;
+        String base = null;
+        Long timestamp = null;
+        boolean failed = false;
+        String errorDetail = null;
+
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return error("Response is not a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                switch (field) {
+                    case "rates", "conversion_rates" -> {
+                        if (value == JsonToken.START_OBJECT) {
+                            ratesSeen = true;
+                            quoteCount += readRates(parser, wanted, rates);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    case "base", "base_code" -> base = value == JsonToken.VALUE_STRING ? parser.getText() : base;
+                    case "timestamp", "time_last_update_unix" ->
+                            timestamp = value == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : timestamp;
+                    // ExchangeRate-API: "result": "error", "error-type": "invalid-key"
+                    case "result" -> failed |= value == JsonToken.VALUE_STRING && !"success".equals(parser.getText());
+                    case "error-type" -> errorDetail = value == JsonToken.VALUE_STRING ? parser.getText() : errorDetail;
+                    // Fixer: "success": false, "error": {"code": 101, "info": "..."}
+                    case "success" -> failed |= value == JsonToken.VALUE_FALSE;
+                    case "error" -> {
+                        if (value == JsonToken.START_OBJECT) {
+                            failed = true;
+                            errorDetail = readErrorInfo(parser, errorDetail);
+                        } else {
+                            // Open Exchange Rates: "error": true, "description": "..."
+                            failed |= value == JsonToken.VALUE_TRUE;
+                        }
+                    }
+                    case "description" -> errorDetail = value == JsonToken.VALUE_STRING ? parser.getText() : errorDetail;
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+
+        if (failed) {
+            return error(errorDetail != null ? errorDetail : "API returned unsuccessful response");
+        }
+        if (!ratesSeen) {
+            return error("No rates data received");
+        }
+
+        String baseCurrency = base != null ? base : defaultBase;
+        int baseCode = CurrencyCode.parse(baseCurrency);
+        if (baseCode == CurrencyCode.INVALID) {
+            return error("Unknown base currency: " + baseCurrency);
+        }
+        rates[CurrencyCode.ordinal(baseCode)] = 1.0;
+
+        return new ProviderQuotes(baseCurrency, timestamp, new QuoteVector(baseCode, rates), quoteCount, null);
+    }
+
+    private static int readRates(JsonParser parser, boolean[] wanted, double[] rates) throws IOException {
+        int count = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            count++;
+            // Field names come from Jackson's symbol table, so this does not allocate
+            int ordinal = CurrencyCode.ordinal(CurrencyCode.parse(parser.currentName()));
+            JsonToken value = parser.nextToken();
+
+            if (ordinal >= 0 && (wanted == null || wanted[ordinal]) && value.isNumeric()) {
+                double rate = parser.getDoubleValue();
+                if (rate > 0 && Double.isFinite(rate)) {
+                    rates[ordinal] = rate;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return count;
+    }
+
+    private static String readErrorInfo(JsonParser parser, String errorDetail) throws IOException {
+        String info = errorDetail;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (("info".equals(field) || "type".equals(field) && info == null) && value == JsonToken.VALUE_STRING) {
+                info = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return info;
+    }
+
+    private static ProviderQuotes error(String message) {
+        return new ProviderQuotes(null, null, null, 0, message);
+    }
+}
@@ -0,0 +1,112 @@
+package com.wiremit.forex.util;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Provider quotes against a single base currency, stored densely by
+ * {@link CurrencyCode} ordinal in a primitive array so cross rates are two
+ * array reads. Currencies that were not quoted read as NaN.
+ */
+public final class QuoteVector {
+
+    private final int base;
+    private final double[] rates;
+
+    /**
+     * Empty vector where only the base currency is quoted (at one)
+     */
+    public QuoteVector(int base) {
+        this(base, new double[CurrencyCode.count()]);
+        rates[CurrencyCode.ordinal(base)] = 1.0;
+    }
+
+    QuoteVector(int base, double[] rates) {
+        this.base = base;
+        this.rates = rates;
+    }
+
+    /**
+     * Build a vector from a provider rates map, ignoring codes that are not ISO 4217
+     *
+     * @param baseCurrency currency the rates are quoted against, it gets a rate of one
+     */
+    public static QuoteVector of(String baseCurrency, Map<String, BigDecimal> rates) {
+        int base = CurrencyCode.parse(baseCurrency);
+        if (base == CurrencyCode.INVALID) {
+            throw new IllegalArgumentException("Unknown base currency: " + baseCurrency);
+        }
+
+        QuoteVector vector = new QuoteVector(base);
+        if (rates != null) {
+            for (Map.Entry<String, BigDecimal> entry : rates.entrySet()) {
+                int currency = CurrencyCode.parse(entry.getKey());
+                if (currency != CurrencyCode.INVALID && currency != base && entry.getValue() != null) {
+                    vector.put(currency, entry.getValue().doubleValue());
+                }
+            }
+        }
+        return vector;
+    }
+
+    public int getBase() {
+        return base;
+    }
+
+    /**
+     * Record a quote, non-positive or non-finite rates are ignored
+     */
+    public void put(int currency, double rate) {
+        if (rate > 0 && Double.isFinite(rate)) {
+            rates[CurrencyCode.ordinal(currency)] = rate;
+        }
+    }
+
+    public boolean has(int currency) {
+        return rates[CurrencyCode.ordinal(currency)] > 0;
+    }
+
+    /**
+     * Units of the currency per one unit of the base currency, or NaN when not quoted
+     */
+    public double get(int currency) {
+        double rate = rates[CurrencyCode.ordinal(currency)];
+        return rate > 0 ? rate : Double.NaN;
+    }
+
+    /**
+     * Number of quoted currencies, the base included
+     */
+    public int size() {
+        int size = 0;
+        for (double rate : rates) {
+            if (rate > 0) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Re-express every quote against another base currency
+     *
+     * @return the rebased vector, or null when the new base is not quoted
+     */
+    public QuoteVector rebase(int newBase) {
+        if (newBase == base) {
+            return this;
+        }
+        if (!has(newBase)) {
+            return null;
+        }
+
+        double divisor = get(newBase);
+        double[] rebased = Arrays.copyOf(rates, rates.length);
+        for (int i = 0; i < rebased.length; i++) {
+            rebased[i] /= divisor;
+        }
+        rebased[CurrencyCode.ordinal(newBase)] = 1.0;
+        return new QuoteVector(newBase, rebased);
+    }
+}
@@ -0,0 +1,88 @@
+package com.wiremit.forex.util;
+
+import java.util.Arrays;
+
+/**
+ * Providers x pairs matrix of primitive rates for one aggregation run.
+ * <p>
+ * Cells are stored pair-major, so the rates every provider quoted for one pair
+ * are adjacent in memory, with a validity bit per cell: a cell that was never
+ * set, or was set to a non-positive or non-finite rate, does not count.
+ */
+public final class RateMatrix {
+
+    private final int providers;
+    private final int pairs;
+    private final double[] rates;
+    private final long[] valid;
+    private final double[] weights;
+
+    /**
+     * Matrix where every provider starts with a weight of one and no valid rate
+     */
+    public RateMatrix(int providers, int pairs) {
+        this.providers = providers;
+        this.pairs = pairs;
+        this.rates = new double[Math.multiplyExact(providers, pairs)];
+        this.valid = new long[(rates.length + 63) >>> 6];
+        this.weights = new double[providers];
+        Arrays.fill(weights, 1.0);
+    }
+
+    public int providers() {
+        return providers;
+    }
+
+    public int pairs() {
+        return pairs;
+    }
+
+    /**
+     * Weight of the provider in weighted aggregates, providers with a weight of zero or less are left out
+     */
+    public void setWeight(int provider, double weight) {
+        weights[provider] = weight;
+    }
+
+    public double weight(int provider) {
+        return weights[provider];
+    }
+
+    /**
+     * Record the rate a provider quoted for a pair, non-positive or non-finite rates are ignored
+     */
+    public void set(int provider, int pair, double rate) {
+        if (!(rate > 0) || Double.isInfinite(rate)) {
+            return;
+        }
+        int cell = cell(provider, pair);
+        rates[cell] = rate;
+        valid[cell >>> 6] |= 1L << cell;
+    }
+
+    public boolean isValid(int provider, int pair) {
+        return isValidCell(cell(provider, pair));
+    }
+
+    /**
+     * @return NaN if the provider has no valid rate for the pair
+     */
+    public double get(int provider, int pair) {
+        int cell = cell(provider, pair);
+        return isValidCell(cell) ? rates[cell] : Double.NaN;
+    }
+
+    // Raw cell access for the aggregation loop; a pair's cells start at pair * providers()
+
+    double rateAt(int cell) {
+        return rates[cell];
+    }
+
+    boolean isValidCell(int cell) {
+        return (valid[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    private int cell(int provider, int pair) {
+        return pair * providers + provider;
+    }
+}
@@ -0,0 +1,188 @@
+package com.wiremit.forex.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded in-process queue drained by a single background writer in batches.
+ * <p>
+ * Producers block for up to {@code offerTimeout} per {@link #submit} call when the queue
+ * is full (backpressure); whatever the writer has not made room for by then is written
+ * on the caller's thread, so nothing is silently dropped. Callers that must never block
+ * or write use {@link #tryOffer} instead, which drops and counts what does not fit.
+ * Failed writes are retried with backoff, and a batch that still fails is logged in
+ * full before it is dropped.
+ * {@link #close()} stops accepting items and flushes everything still queued.
+ */
+@Slf4j
+public class WriteBehindQueue<T> implements AutoCloseable {
+
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    private static final Duration RETRY_BACKOFF = Duration.ofMillis(200);
+
+    private final String name;
+    private final BlockingQueue<T> queue;
+    private final Consumer<List<T>> sink;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration offerTimeout;
+    private final Thread writer;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    public WriteBehindQueue(String name, int capacity, int batchSize, Duration flushInterval, Duration offerTimeout,
+                            Consumer<List<T>> sink) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.offerTimeout = offerTimeout;
+        this.writer = new Thread(this::drainLoop, name + "-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queue the items for writing, blocking while the queue is full
+     */
+    public void submit(List<T> items) {
+        List<T> overflow = new ArrayList<>();
+        long deadline = System.nanoTime() + offerTimeout.toNanos();
+        for (T item : items) {
+            // After the first timed out offer the rest of the call goes straight to the caller thread
+            if (!overflow.isEmpty() || !running || !offer(item, deadline)) {
+                overflow.add(item);
+            } else if (!running && queue.remove(item)) {
+                // Closed meanwhile: the final flush may already be done, so write it here
+                overflow.add(item);
+            }
+        }
+
+        if (!overflow.isEmpty()) {
+            log.warn("{} queue is saturated, writing {} items on the caller thread", name, overflow.size());
+            write(overflow);
+        }
+    }
+
+    /**
+     * Queue the item for writing without waiting for room or writing on the caller's thread
+     *
+     * @return false when the queue is full or closed, the item then counts as dropped
+     */
+    public boolean tryOffer(T item) {
+        // Closed meanwhile: unless the final flush already took it, the item would never be written
+        if (running && queue.offer(item) && (running || !queue.remove(item))) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Stop accepting items and flush everything still queued
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushRemaining();
+        log.info("{} queue closed: {} items written, {} dropped", name, written.get(), dropped.get());
+    }
+
+    private boolean offer(T item, long deadline) {
+        try {
+            return queue.offer(item, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void drainLoop() {
+        List<T> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                T first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    private void flushRemaining() {
+        List<T> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<T> batch) {
+        for (int attempt = 1; attempt <= MAX_WRITE_ATTEMPTS; attempt++) {
+            try {
+                sink.accept(batch);
+                written.addAndGet(batch.size());
+                return;
+            } catch (RuntimeException e) {
+                log.error("{} batch write of {} items failed (attempt {}/{}): {}",
+                        name, batch.size(), attempt, MAX_WRITE_ATTEMPTS, e.getMessage());
+            }
+            if (attempt < MAX_WRITE_ATTEMPTS && !backOff(attempt)) {
+                break;
+            }
+        }
+        dropped.addAndGet(batch.size());
+        log.error("{} dropped a batch of {} items after {} failed writes, items: {}",
+                name, batch.size(), MAX_WRITE_ATTEMPTS, batch);
+    }
+
+    /**
+     * Wait before retry {@code attempt + 1}, doubling the wait each time
+     *
+     * @return false when interrupted
+     */
+    private static boolean backOff(int attempt) {
+        try {
+            Thread.sleep(RETRY_BACKOFF.toMillis() << (attempt - 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
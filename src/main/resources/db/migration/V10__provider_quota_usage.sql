@@ -0,0 +1,9 @@
+-- Calls made to each rate provider per calendar month (UTC), so monthly quota
+-- pacing survives restarts and carries over when another node takes the lease.
+create table provider_quota_usage (
+    api_source varchar(50) not null,
+    usage_month char(7) not null,
+    calls_used integer not null,
+    last_call_at datetime(6) not null,
+    primary key (api_source, usage_month)
+) engine=InnoDB;
@@ -0,0 +1,77 @@
+-- Baseline schema as previously generated by Hibernate (ddl-auto=update).
+-- Existing databases are baselined at this version and skip this script.
+
+create table currency_pairs (
+    id bigint not null auto_increment,
+    base_currency varchar(3) not null,
+    target_currency varchar(3) not null,
+    pair_code varchar(7) not null,
+    is_active bit not null,
+    custom_markup decimal(5,4),
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table forex_rates (
+    id bigint not null auto_increment,
+    currency_pair_id bigint not null,
+    average_rate decimal(12,6) not null,
+    final_rate decimal(12,6) not null,
+    markup_applied decimal(5,4) not null,
+    sources_count integer,
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table raw_api_rates (
+    id bigint not null auto_increment,
+    currency_pair_id bigint not null,
+    rate decimal(12,6) not null,
+    api_source varchar(50) not null,
+    status enum ('FAILED','SUCCESS','TIMEOUT') not null,
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table users (
+    id bigint not null auto_increment,
+    username varchar(255) not null,
+    password varchar(255) not null,
+    email varchar(255) not null,
+    role enum ('ADMIN','USER'),
+    enabled bit not null,
+    password_changed_at datetime(6),
+    password_expires_at datetime(6),
+    password_expiry_days integer not null,
+    force_password_change bit not null,
+    failed_login_attempts integer not null,
+    account_locked_until datetime(6),
+    max_login_attempts integer not null,
+    last_login_at datetime(6),
+    last_failed_login_at datetime(6),
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table currency_pairs
+    add constraint UK1dc2y8h8nduxs5a179gtuu5es unique (pair_code);
+
+alter table users
+    add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email);
+
+alter table users
+    add constraint UKr43af9ap4edm43mmtq01oddj6 unique (username);
+
+alter table forex_rates
+    add constraint FKobj00el1ueux02l0n9lutn2ci
+    foreign key (currency_pair_id)
+    references currency_pairs (id);
+
+alter table raw_api_rates
+    add constraint FK7uy4jpok21cfg86kxe1gbl8qk
+    foreign key (currency_pair_id)
+    references currency_pairs (id);
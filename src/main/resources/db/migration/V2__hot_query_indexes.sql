@@ -0,0 +1,10 @@
+-- Latest/history lookups in ForexRateRepository filter on currency_pair_id and
+-- order or aggregate on created_at; a composite index serves all of them
+-- (including the MAX(created_at) ... GROUP BY currency_pair_id subqueries).
+create index idx_forex_rates_pair_created on forex_rates (currency_pair_id, created_at);
+
+-- Raw provider rates are read back per pair and time window.
+create index idx_raw_api_rates_pair_created on raw_api_rates (currency_pair_id, created_at);
+
+-- CurrencyPairRepository.findByIsActiveTrue and the is_active joins.
+create index idx_currency_pairs_active on currency_pairs (is_active, pair_code);
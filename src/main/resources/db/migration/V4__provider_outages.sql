@@ -0,0 +1,15 @@
+-- One row per period a rate provider could not be read, replacing a FAILED
+-- raw_api_rates row per pair and run. ended_at stays null while it lasts.
+create table provider_outages (
+    id bigint not null auto_increment,
+    api_source varchar(50) not null,
+    started_at datetime(6) not null,
+    ended_at datetime(6),
+    failed_fetches integer not null,
+    last_error varchar(500),
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_provider_outages_source_ended on provider_outages (api_source, ended_at);
@@ -0,0 +1,8 @@
+-- A forex_rates row now stands for every run that confirmed the same rate:
+-- unchanged runs only move last_confirmed_at forward instead of inserting.
+alter table forex_rates add column last_confirmed_at datetime(6);
+update forex_rates set last_confirmed_at = created_at;
+
+-- Per-pair override of app.rates.change-threshold, null uses the default.
+alter table currency_pairs add column change_threshold decimal(12,6);
+alter table currency_pairs add column change_threshold_unit varchar(20);
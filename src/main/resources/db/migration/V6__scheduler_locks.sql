@@ -0,0 +1,12 @@
+-- Leases of jobs that only one node may run at a time. fencing_token grows
+-- whenever the lease changes hands, so writes of a node that lost it are refused.
+create table scheduler_locks (
+    name varchar(64) not null,
+    owner varchar(128),
+    fencing_token bigint not null,
+    locked_until datetime(6) not null,
+    acquired_at datetime(6),
+    primary key (name)
+) engine=InnoDB;
+
+insert into scheduler_locks (name, fencing_token, locked_until) values ('rate-ingestion', 0, '1970-01-01 00:00:00');
@@ -0,0 +1,11 @@
+-- Versions of the data every node caches, bumped in the transaction that changes
+-- it. Nodes poll this single row and reload whatever moved.
+create table cache_versions (
+    id integer not null,
+    currency_pairs bigint not null,
+    forex_rates bigint not null,
+    updated_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+insert into cache_versions (id, currency_pairs, forex_rates, updated_at) values (1, 0, 0, current_timestamp);
@@ -0,0 +1,24 @@
+-- One row per stored aggregation run. Rates carry the run that inserted them, so
+-- the rates in effect after run N are, per pair, the newest row with run_id <= N.
+create table rate_runs (
+    id bigint not null auto_increment,
+    started_at datetime(6) not null,
+    pairs_requested integer not null,
+    rates_stored integer not null,
+    rates_confirmed integer not null,
+    fencing_token bigint,
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table forex_rates add column run_id bigint;
+
+-- Rates stored before runs were recorded belong to a single baseline run.
+insert into rate_runs (started_at, pairs_requested, rates_stored, rates_confirmed, created_at, updated_at)
+select min(created_at), count(distinct currency_pair_id), count(*), 0, max(created_at), max(created_at)
+from forex_rates
+having count(*) > 0;
+update forex_rates set run_id = (select max(id) from rate_runs);
+
+create index idx_forex_rates_pair_run on forex_rates (currency_pair_id, run_id);
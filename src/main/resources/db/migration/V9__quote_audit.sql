@@ -0,0 +1,18 @@
+-- Audit trail of rate quotes, one row per issued and per redeemed quote. Quotes
+-- themselves live in memory; rows are written behind the API and only when
+-- quote auditing is enabled.
+create table quote_audit (
+    id bigint not null auto_increment,
+    quote_id char(36) not null,
+    event varchar(10) not null,
+    currency_pair_id bigint not null,
+    amount decimal(19,4) not null,
+    rate decimal(18,8) not null,
+    converted_amount decimal(24,4) not null,
+    run_id bigint,
+    expires_at datetime(6) not null,
+    created_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_quote_audit_quote on quote_audit (quote_id);
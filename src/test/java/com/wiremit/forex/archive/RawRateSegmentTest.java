@@ -0,0 +1,93 @@
+package com.wiremit.forex.archive;
+
+import com.wiremit.forex.model.FetchStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RawRateSegmentTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 0, 0);
+    private static final List<String> SOURCES = List.of("exchangerate-api", "fixer-io", "openexchangerates");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rangeQueriesReturnExactlyTheWrittenRows() throws Exception {
+        List<ArchivedRawRate> written = sampleMonth();
+        Path segment = write(written);
+
+        try (RawRateSegmentReader reader = RawRateSegmentReader.open(segment)) {
+            assertThat(reader.getRowCount()).isEqualTo(written.size());
+
+            LocalDateTime from = START.plusDays(3);
+            LocalDateTime to = START.plusDays(5).plusMinutes(30);
+            List<ArchivedRawRate> expected = written.stream()
+                    .filter(rate -> rate.currencyPairId() == 2 && rate.apiSource().equals("fixer-io"))
+                    .filter(rate -> !rate.createdAt().isBefore(from) && rate.createdAt().isBefore(to))
+                    .toList();
+
+            assertThat(reader.query(2, "fixer-io", from, to)).containsExactlyElementsOf(expected);
+            assertThat(reader.query(2, null, from, to)).hasSize(expected.size() * SOURCES.size());
+            assertThat(reader.query(2, "unknown", from, to)).isEmpty();
+            assertThat(reader.query(99, null, START, START.plusMonths(1))).isEmpty();
+        }
+    }
+
+    @Test
+    void segmentIsMuchSmallerThanTheRawRows() throws Exception {
+        List<ArchivedRawRate> written = sampleMonth();
+        Path segment = write(written);
+
+        // id + pair + rate + timestamp alone would take 32 bytes per row uncompressed
+        assertThat(Files.size(segment)).isLessThan(written.size() * 8L);
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSegments() throws Exception {
+        Path file = directory.resolve("garbage.seg");
+        Files.write(file, new byte[64]);
+
+        assertThatThrownBy(() -> RawRateSegmentReader.open(file))
+                .hasMessageContaining("Not a raw rate archive segment");
+    }
+
+    private Path write(List<ArchivedRawRate> rates) throws Exception {
+        Path segment = directory.resolve("raw-api-rates-2025-03.seg");
+        try (RawRateSegmentWriter writer = RawRateSegmentWriter.create(segment)) {
+            for (ArchivedRawRate rate : rates) {
+                writer.append(rate);
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * Hourly rates for three pairs from three sources, sorted the way the archive job reads them
+     */
+    private static List<ArchivedRawRate> sampleMonth() {
+        List<ArchivedRawRate> rates = new ArrayList<>();
+        long id = 1;
+        for (long pairId = 1; pairId <= 3; pairId++) {
+            for (String source : SOURCES) {
+                for (int hour = 0; hour < 31 * 24; hour++) {
+                    BigDecimal rate = BigDecimal.valueOf(18_000_000L + pairId * 1_000 + (hour % 17) * 37L - 300, 6);
+                    FetchStatus status = hour % 50 == 0 ? FetchStatus.FAILED : FetchStatus.SUCCESS;
+                    rates.add(new ArchivedRawRate(id++, pairId, source, status, rate,
+                            START.plusHours(hour).plusNanos(123_456_000)));
+                }
+            }
+        }
+        return rates;
+    }
+}
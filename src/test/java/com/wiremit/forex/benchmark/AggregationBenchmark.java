@@ -0,0 +1,114 @@
+package com.wiremit.forex.benchmark;
+
+import com.wiremit.forex.util.AggregationEngine;
+import com.wiremit.forex.util.RateMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Aggregating 50k pairs quoted by five providers (one in ten quotes missing):
+ * grouping boxed BigDecimal rates per pair and averaging them one by one, as
+ * the scheduler used to, against filling a {@link RateMatrix} and reducing it
+ * with the {@link AggregationEngine}, sequentially and across cores.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.wiremit.forex.benchmark.AggregationBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregationBenchmark {
+
+    private static final int PAIRS = 50_000;
+    private static final int PROVIDERS = 5;
+
+    @Param({"MEAN", "MEDIAN", "TRIMMED_MEAN"})
+    private AggregationEngine.Method method;
+
+    private List<Quote> quotes;
+    private AggregationEngine sequential;
+    private AggregationEngine parallel;
+
+    private record Quote(long pairId, int provider, BigDecimal rate) {
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        quotes = new ArrayList<>();
+        for (int pair = 0; pair < PAIRS; pair++) {
+            double mid = 0.5 + random.nextDouble() * 20;
+            for (int provider = 0; provider < PROVIDERS; provider++) {
+                if (random.nextInt(10) > 0) {
+                    double rate = mid * (1 + random.nextGaussian() * 0.001);
+                    quotes.add(new Quote(pair, provider, BigDecimal.valueOf(rate).setScale(8, RoundingMode.HALF_UP)));
+                }
+            }
+        }
+        sequential = new AggregationEngine(method, 0.2, 0.01, false);
+        parallel = new AggregationEngine(method, 0.2, 0.01, true);
+    }
+
+    @Benchmark
+    public Map<Long, BigDecimal> groupedBigDecimalMean() {
+        Map<Long, List<Quote>> byPair = quotes.stream()
+                .filter(quote -> quote.rate().signum() > 0)
+                .collect(Collectors.groupingBy(Quote::pairId));
+        return byPair.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> {
+            BigDecimal sum = BigDecimal.ZERO;
+            for (Quote quote : entry.getValue()) {
+                sum = sum.add(quote.rate());
+            }
+            return sum.divide(BigDecimal.valueOf(entry.getValue().size()), 8, RoundingMode.HALF_UP);
+        }));
+    }
+
+    @Benchmark
+    public AggregationEngine.Result engineSequential() {
+        return sequential.aggregate(fill());
+    }
+
+    @Benchmark
+    public AggregationEngine.Result engineParallel() {
+        return parallel.aggregate(fill());
+    }
+
+    private RateMatrix fill() {
+        RateMatrix matrix = new RateMatrix(PROVIDERS, PAIRS);
+        for (Quote quote : quotes) {
+            matrix.set(quote.provider(), (int) quote.pairId(), quote.rate().doubleValue());
+        }
+        return matrix;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AggregationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
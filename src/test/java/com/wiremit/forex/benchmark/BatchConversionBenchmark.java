@@ -0,0 +1,135 @@
+package com.wiremit.forex.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wiremit.forex.dto.ForexRateDTO;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.service.BatchConversionService;
+import com.wiremit.forex.service.CurrencyPairRegistry;
+import com.wiremit.forex.service.RateSnapshotService;
+import com.wiremit.forex.util.CurrencyCode;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting a 100k entry payout batch over 20 pairs, from request bytes to response bytes:
+ * binding the batch to a JSON tree and converting each entry with BigDecimal into a
+ * response object, against {@link BatchConversionService} reading fixed-point amounts
+ * and streaming the results.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.wiremit.forex.benchmark.BatchConversionBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchConversionBenchmark {
+
+    private static final int ENTRIES = 100_000;
+    private static final String[] TARGETS = {"ZAR", "GBP", "EUR", "JPY", "KES", "NGN", "GHS", "BWP", "ZMW", "MZN",
+            "CAD", "AUD", "CHF", "CNY", "INR", "AED", "TZS", "UGX", "MWK", "NAD"};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/forex-rates/convert/batch");
+
+    private byte[] body;
+    private Map<String, BigDecimal> ratesByPairCode;
+    private BatchConversionService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        CurrencyPairRegistry registry = Mockito.mock(CurrencyPairRegistry.class);
+        Mockito.when(registry.findActiveByPairKey(Mockito.anyInt())).thenReturn(Optional.empty());
+        Map<Long, ForexRateDTO> rates = new HashMap<>();
+        ratesByPairCode = new HashMap<>();
+        List<String> pairCodes = new ArrayList<>();
+        for (String target : TARGETS) {
+            String pairCode = "USD" + target;
+            int pairKey = CurrencyCode.parsePair(pairCode);
+            if (pairKey == CurrencyCode.INVALID) {
+                continue;
+            }
+            long id = pairCodes.size() + 1;
+            CurrencyPair pair = new CurrencyPair();
+            pair.setId(id);
+            Mockito.when(registry.findActiveByPairKey(pairKey)).thenReturn(Optional.of(pair));
+
+            BigDecimal rate = BigDecimal.valueOf(0.5 + random.nextDouble() * 100).setScale(8, RoundingMode.HALF_UP);
+            rates.put(id, ForexRateDTO.builder().rate(rate).build());
+            ratesByPairCode.put(pairCode, rate);
+            pairCodes.add(pairCode);
+        }
+        RateSnapshotService snapshots = Mockito.mock(RateSnapshotService.class);
+        Mockito.when(snapshots.latest()).thenReturn(new RateSnapshotService.RateSnapshot(1L, LocalDateTime.now(), rates));
+
+        service = new BatchConversionService(snapshots, registry);
+        ReflectionTestUtils.setField(service, "maxBatchSize", ENTRIES);
+
+        StringBuilder json = new StringBuilder("[");
+        for (int entry = 0; entry < ENTRIES; entry++) {
+            String amount = BigDecimal.valueOf(random.nextInt(10_000_000), 2).toPlainString();
+            json.append(entry == 0 ? "" : ",")
+                    .append("[\"").append(pairCodes.get(random.nextInt(pairCodes.size()))).append("\",")
+                    .append(amount).append(']');
+        }
+        body = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] bigDecimalPerEntry() throws IOException {
+        JsonNode batch = objectMapper.readTree(body);
+        List<List<Object>> results = new ArrayList<>(batch.size());
+        for (JsonNode entry : batch) {
+            String pairCode = entry.get(0).asText().toUpperCase();
+            BigDecimal rate = ratesByPairCode.get(pairCode).setScale(BatchConversionService.RATE_SCALE, RoundingMode.HALF_UP);
+            BigDecimal amount = new BigDecimal(entry.get(1).asText());
+            results.add(List.of(pairCode, amount.multiply(rate).setScale(4, RoundingMode.HALF_UP)));
+        }
+        return objectMapper.writeValueAsBytes(Map.of("success", true, "data", Map.of("results", results)));
+    }
+
+    @Benchmark
+    public byte[] fixedPointStreaming() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length * 2);
+        service.convert(new ByteArrayInputStream(body), null, request).getBody().writeTo(out);
+        return out.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BatchConversionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,36 @@
+package com.wiremit.forex.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Full ExchangeRate-API response DTO the providers used to bind payloads to before
+ * {@link com.wiremit.forex.util.ProviderPayloadParser}, kept as the benchmark baseline
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExchangeRateApiResponse {
+    private String result;
+    private String documentation;
+
+    @JsonProperty("terms_of_use")
+    private String termsOfUse;
+
+    @JsonProperty("time_last_update_unix")
+    private Long timeLastUpdateUnix;
+
+    @JsonProperty("base_code")
+    private String baseCode;
+
+    @JsonProperty("conversion_rates")
+    private Map<String, BigDecimal> conversionRates;
+
+    @JsonProperty("error-type")
+    private String errorType;
+}
@@ -0,0 +1,137 @@
+package com.wiremit.forex.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import com.wiremit.forex.util.CurrencyCode;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local HTTPS server answering like ExchangeRate-API with a quote for every
+ * ISO 4217 currency. Responses are gzip compressed when the client asks for it.
+ */
+public class HttpsStubServer implements AutoCloseable {
+
+    private static final String KEYSTORE = "/benchmark/stub-server.p12";
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    static {
+        // Without TCP_NODELAY the JDK server stalls on delayed ACKs and dominates every measurement
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpsServer server;
+    private final ExecutorService executor;
+    private final byte[] body;
+    private final byte[] gzippedBody;
+
+    private HttpsStubServer(SSLContext sslContext) throws IOException {
+        this.body = ratesJson().getBytes(StandardCharsets.UTF_8);
+        this.gzippedBody = gzip(body);
+        this.executor = Executors.newFixedThreadPool(8);
+        this.server = HttpsServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public static HttpsStubServer start() throws IOException {
+        return new HttpsStubServer(sslContext());
+    }
+
+    /**
+     * Client SSL context trusting the stub certificate
+     */
+    public static SSLContext sslContext() {
+        try (InputStream in = HttpsStubServer.class.getResourceAsStream(KEYSTORE)) {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(in, PASSWORD);
+
+            KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagers.init(keyStore, PASSWORD);
+            TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagers.init(keyStore);
+
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(keyManagers.getKeyManagers(), trustManagers.getTrustManagers(), null);
+            return context;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot load stub server keystore", e);
+        }
+    }
+
+    public String baseUrl() {
+        return "https://localhost:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            exchange.getRequestBody().readAllBytes();
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+            byte[] response = gzip ? gzippedBody : body;
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if (gzip) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    static String ratesJson() {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder("{\"result\":\"success\",\"base_code\":\"USD\",")
+                .append("\"time_last_update_unix\":1735689600,\"conversion_rates\":{");
+        for (int ordinal = 0; ordinal < CurrencyCode.count(); ordinal++) {
+            int code = CurrencyCode.fromOrdinal(ordinal);
+            double rate = code == CurrencyCode.USD ? 1.0 : 0.1 + random.nextDouble() * 2000;
+            if (ordinal > 0) {
+                json.append(',');
+            }
+            json.append('"').append(CurrencyCode.toCode(code)).append("\":")
+                    .append(String.format(Locale.ROOT, "%.6f", rate));
+        }
+        return json.append("}}").toString();
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,120 @@
+package com.wiremit.forex.benchmark;
+
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One provider call against a local HTTPS stub: the JDK HttpURLConnection factory
+ * RestTemplate used before, the same with a new TLS connection per call, and the
+ * pooled keep-alive Apache client with gzip configured in RestTemplateConfig.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.wiremit.forex.benchmark.ProviderHttpClientBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProviderHttpClientBenchmark {
+
+    private HttpsStubServer server;
+    private String url;
+    private RestTemplate jdkDefault;
+    private RestTemplate newConnectionPerCall;
+    private RestTemplate pooledGzip;
+    private CloseableHttpClient httpClient;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = HttpsStubServer.start();
+        url = server.baseUrl() + "/v6/key/latest/USD";
+        SSLContext sslContext = HttpsStubServer.sslContext();
+
+        jdkDefault = new RestTemplate(jdkRequestFactory(sslContext, false));
+        newConnectionPerCall = new RestTemplate(jdkRequestFactory(sslContext, true));
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setTlsSocketStrategy(ClientTlsStrategyBuilder.create().setSslContext(sslContext).buildClassic())
+                .setMaxConnTotal(50)
+                .setMaxConnPerRoute(4)
+                .build();
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom().setConnectionKeepAlive(TimeValue.ofSeconds(30)).build())
+                .build();
+        pooledGzip = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        httpClient.close();
+        server.close();
+    }
+
+    @Benchmark
+    public ExchangeRateApiResponse jdkDefault() {
+        return jdkDefault.getForObject(url, ExchangeRateApiResponse.class);
+    }
+
+    @Benchmark
+    public ExchangeRateApiResponse newConnectionPerCall() {
+        return newConnectionPerCall.getForObject(url, ExchangeRateApiResponse.class);
+    }
+
+    @Benchmark
+    public ExchangeRateApiResponse pooledGzip() {
+        return pooledGzip.getForObject(url, ExchangeRateApiResponse.class);
+    }
+
+    private static SimpleClientHttpRequestFactory jdkRequestFactory(SSLContext sslContext, boolean closeConnection) {
+        return new SimpleClientHttpRequestFactory() {
+            @Override
+            protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+                super.prepareConnection(connection, httpMethod);
+                if (connection instanceof HttpsURLConnection https) {
+                    https.setSSLSocketFactory(sslContext.getSocketFactory());
+                }
+                if (closeConnection) {
+                    connection.setRequestProperty("Connection", "close");
+                }
+            }
+        };
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProviderHttpClientBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
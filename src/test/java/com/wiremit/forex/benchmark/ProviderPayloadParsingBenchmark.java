@@ -0,0 +1,76 @@
+package com.wiremit.forex.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wiremit.forex.dto.response.ProviderQuotes;
+import com.wiremit.forex.util.CurrencyCode;
+import com.wiremit.forex.util.ProviderPayloadParser;
+import com.wiremit.forex.util.QuoteVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a full ExchangeRate-API payload into USD quotes for a handful of pairs:
+ * binding the whole document to the response DTO (every rate as a BigDecimal in a
+ * map) against streaming only the wanted currencies into a {@link QuoteVector}.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.wiremit.forex.benchmark.ProviderPayloadParsingBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProviderPayloadParsingBenchmark {
+
+    private static final String[] PAIR_CURRENCIES = {"USD", "ZAR", "GBP", "EUR", "ZWL", "BWP"};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] payload;
+    private boolean[] wanted;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        payload = HttpsStubServer.ratesJson().getBytes(StandardCharsets.UTF_8);
+        wanted = new boolean[CurrencyCode.count()];
+        for (String currency : PAIR_CURRENCIES) {
+            wanted[CurrencyCode.ordinal(CurrencyCode.parse(currency))] = true;
+        }
+    }
+
+    @Benchmark
+    public QuoteVector dtoBinding() throws IOException {
+        ExchangeRateApiResponse response = objectMapper.readValue(payload, ExchangeRateApiResponse.class);
+        return QuoteVector.of(response.getBaseCode(), response.getConversionRates());
+    }
+
+    @Benchmark
+    public QuoteVector streaming() throws IOException {
+        ProviderQuotes quotes = ProviderPayloadParser.parse(new ByteArrayInputStream(payload), wanted, "USD");
+        return quotes.quotes();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProviderPayloadParsingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,83 @@
+package com.wiremit.forex.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes between two independent in-memory databases that identify themselves
+ * through a single-row table.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    void createDatabases() {
+        primary = database("routing_primary");
+        replica = database("routing_replica");
+    }
+
+    @AfterEach
+    void dropDatabases() {
+        new JdbcTemplate(primary).execute("SHUTDOWN");
+        new JdbcTemplate(replica).execute("SHUTDOWN");
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplicaAndWritesToPrimary() {
+        DataSource routing = routing(replica, Duration.ZERO);
+
+        assertThat(currentDatabase(routing, false)).isEqualTo("routing_primary");
+        assertThat(currentDatabase(routing, true)).isEqualTo("routing_replica");
+    }
+
+    @Test
+    void readsRightAfterAWriteStayOnPrimary() {
+        DataSource routing = routing(replica, Duration.ofMinutes(1));
+
+        assertThat(currentDatabase(routing, true)).isEqualTo("routing_replica");
+        currentDatabase(routing, false);
+        assertThat(currentDatabase(routing, true)).isEqualTo("routing_primary");
+    }
+
+    @Test
+    void everythingGoesToPrimaryWithoutReplica() {
+        DataSource routing = routing(null, Duration.ZERO);
+
+        assertThat(currentDatabase(routing, true)).isEqualTo("routing_primary");
+        assertThat(currentDatabase(routing, false)).isEqualTo("routing_primary");
+    }
+
+    private DataSource routing(DataSource replica, Duration lagTolerance) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, lagTolerance);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private static String currentDatabase(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT name FROM instance", String.class));
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE instance (name VARCHAR(50))");
+        jdbcTemplate.update("INSERT INTO instance VALUES (?)", name);
+        return dataSource;
+    }
+}
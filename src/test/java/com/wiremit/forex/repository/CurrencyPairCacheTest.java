@@ -0,0 +1,101 @@
+package com.wiremit.forex.repository;
+
+import com.wiremit.forex.model.CurrencyPair;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that currency pairs are served from the second-level cache and
+ * refreshed when a pair changes. Every step commits, since the cache is only
+ * populated after transaction completion.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CurrencyPairCacheTest {
+
+    @Autowired
+    private CurrencyPairRepository currencyPairRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+    private Long pairId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        pairId = transactionTemplate.execute(status -> currencyPairRepository.save(CurrencyPair.builder()
+                .baseCurrency("USD")
+                .targetCurrency("CHF")
+                .pairCode("USDCHF")
+                .isActive(true)
+                .build()).getId());
+
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> currencyPairRepository.deleteById(pairId));
+    }
+
+    @Test
+    void currencyPairIsLoadedFromSecondLevelCache() {
+        findPair();
+        long statementsAfterFirstLoad = statistics.getPrepareStatementCount();
+
+        findPair();
+
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsAfterFirstLoad);
+    }
+
+    @Test
+    void cachedPairIsRefreshedOnChange() {
+        findPair();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            CurrencyPair pair = currencyPairRepository.findById(pairId).orElseThrow();
+            pair.setIsActive(false);
+            currencyPairRepository.save(pair);
+        });
+        long statementsAfterUpdate = statistics.getPrepareStatementCount();
+
+        assertThat(findPair().getIsActive()).isFalse();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsAfterUpdate);
+    }
+
+    private CurrencyPair findPair() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            CurrencyPair pair = entityManager.find(CurrencyPair.class, pairId);
+            assertThat(pair).isNotNull();
+            return pair;
+        } finally {
+            entityManager.close();
+        }
+    }
+}
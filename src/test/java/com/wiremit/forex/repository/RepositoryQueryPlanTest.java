@@ -0,0 +1,119 @@
+package com.wiremit.forex.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs EXPLAIN on the SQL generated for every hot repository query and fails
+ * when the plan falls back to a full scan of a rate table.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.wiremit.forex.repository.RepositoryQueryPlanTest$RecordingStatementInspector")
+class RepositoryQueryPlanTest {
+
+    private static final List<String> HOT_TABLES = List.of("forex_rates", "raw_api_rates");
+
+    @Autowired
+    private ForexRateRepository forexRateRepository;
+
+    @Autowired
+    private CurrencyPairRepository currencyPairRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clearRecordedStatements() {
+        RecordingStatementInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void findLatestRatesByCurrencyPairIdsUsesIndexes() {
+        assertNoFullScan(capture(() -> forexRateRepository.findLatestRatesByCurrencyPairIds(List.of(1L, 2L))));
+    }
+
+    @Test
+    void findRatesAtRunUsesIndexes() {
+        assertNoFullScan(capture(() -> forexRateRepository.findRatesAtRun(List.of(1L, 2L), 10L)));
+    }
+
+    @Test
+    void findRateHistoryByCurrencyPairIdUsesIndexes() {
+        assertNoFullScan(capture(() -> forexRateRepository.findRateHistoryByCurrencyPairId(1L,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt")))));
+    }
+
+    @Test
+    void findLatestRateByCurrencyPairIdUsesIndexes() {
+        assertNoFullScan(capture(() -> forexRateRepository.findLatestRateByCurrencyPairId(1L)));
+    }
+
+    @Test
+    void findByPairCodeAndDateRangeUsesIndexes() {
+        LocalDateTime now = LocalDateTime.now();
+        assertNoFullScan(capture(() -> forexRateRepository.findByPairCodeAndDateRange("USDZAR", now.minusDays(1), now)));
+    }
+
+    @Test
+    void findActiveCurrencyPairsUsesIndexes() {
+        assertNoFullScan(capture(() -> currencyPairRepository.findByIsActiveTrue()));
+    }
+
+    @Test
+    void findCurrencyPairByPairCodeUsesIndexes() {
+        assertNoFullScan(capture(() -> currencyPairRepository.findByPairCode("USDZAR")));
+    }
+
+    private List<String> capture(Runnable query) {
+        query.run();
+        List<String> statements = new ArrayList<>(RecordingStatementInspector.STATEMENTS);
+        assertThat(statements).as("captured SQL").isNotEmpty();
+        return statements;
+    }
+
+    private void assertNoFullScan(List<String> statements) {
+        for (String sql : statements) {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, nullParameters(sql));
+            for (String table : HOT_TABLES) {
+                assertThat(plan.toLowerCase())
+                        .as("plan for %s%n%s", sql, plan)
+                        .doesNotContain("public." + table + ".tablescan");
+            }
+            assertThat(plan.toLowerCase())
+                    .as("plan for %s%n%s", sql, plan)
+                    .doesNotContain("public.currency_pairs.tablescan");
+        }
+    }
+
+    private static Object[] nullParameters(String sql) {
+        return new Object[(int) sql.chars().filter(c -> c == '?').count()];
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.wiremit.forex.scheduler;
+
+import com.wiremit.forex.config.SchedulingConfig;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.service.CurrencyPairRegistry;
+import com.wiremit.forex.service.RefreshPlanner;
+import com.wiremit.forex.service.SchedulerLease;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.wiremit.forex.service.TestPairs.pair;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Scheduled ticks and lease renewal on the application's task scheduler while a
+ * run takes longer than the lease, against the real scheduler_locks row
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ForexRateSchedulerServiceTest {
+
+    private static final Duration LEASE = Duration.ofMillis(300);
+    private static final List<CurrencyPair> PAIRS = List.of(pair(1L, "USDZAR"), pair(2L, "USDGBP"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ThreadPoolTaskScheduler taskScheduler;
+    private SchedulerLease lease;
+    private RateIngestionPipeline pipeline;
+    private ForexRateSchedulerService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("UPDATE scheduler_locks SET owner = NULL, locked_until = '1970-01-01 00:00:00' WHERE name = ?",
+                "rate-ingestion");
+        lease = new SchedulerLease(jdbcTemplate, mock(ApplicationEventPublisher.class), Clock.systemUTC());
+        ReflectionTestUtils.setField(lease, "nodeId", "node-a");
+        ReflectionTestUtils.setField(lease, "leaseDuration", LEASE);
+
+        // A run that never finishes on its own
+        pipeline = mock(RateIngestionPipeline.class);
+        when(pipeline.submit(any())).thenReturn(new CompletableFuture<>());
+        RefreshCoordinator coordinator = new RefreshCoordinator(pipeline, mock(CurrencyPairRegistry.class), Clock.systemUTC());
+        ReflectionTestUtils.setField(coordinator, "runTimeout", Duration.ofMinutes(2));
+
+        CurrencyPairRegistry registry = mock(CurrencyPairRegistry.class);
+        when(registry.getActivePairs()).thenReturn(PAIRS);
+        RefreshPlanner planner = mock(RefreshPlanner.class);
+        when(planner.duePairs(PAIRS)).thenReturn(PAIRS);
+        service = new ForexRateSchedulerService(registry, planner, coordinator, lease);
+
+        taskScheduler = new SchedulingConfig().taskScheduler(4);
+        taskScheduler.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskScheduler.shutdown();
+        lease.release();
+    }
+
+    @Test
+    void leaseIsRenewedWhileARunOutlastsIt() throws Exception {
+        taskScheduler.scheduleWithFixedDelay(lease::renew, Duration.ofMillis(100));
+        awaitLeadership();
+        long token = lease.currentToken().orElseThrow();
+
+        AtomicInteger ticks = new AtomicInteger();
+        taskScheduler.scheduleWithFixedDelay(() -> {
+            service.fetchAndAggregateRates();
+            ticks.incrementAndGet();
+        }, Duration.ofMillis(50));
+        Thread.sleep(LEASE.multipliedBy(4).toMillis());
+
+        // Ticks return at once and join the run in flight, which still holds the lease
+        assertThat(ticks.get()).isGreaterThan(5);
+        verify(pipeline, times(1)).submit(any());
+        assertThat(lease.isLeader()).isTrue();
+        assertThat(lease.currentToken()).hasValue(token);
+    }
+
+    private void awaitLeadership() throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (!lease.isLeader() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(lease.isLeader()).isTrue();
+    }
+}
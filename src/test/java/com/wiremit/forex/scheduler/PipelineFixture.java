@@ -0,0 +1,79 @@
+package com.wiremit.forex.scheduler;
+
+import com.wiremit.forex.model.RateRun;
+import com.wiremit.forex.repository.ForexRateRepository;
+import com.wiremit.forex.repository.RateRunRepository;
+import com.wiremit.forex.service.CacheVersions;
+import com.wiremit.forex.service.ProviderHealthService;
+import com.wiremit.forex.service.RateChangeThreshold;
+import com.wiremit.forex.service.RateProviderRegistry;
+import com.wiremit.forex.service.RawApiRateWriter;
+import com.wiremit.forex.service.RefreshPlanner;
+import com.wiremit.forex.service.SchedulerLease;
+import com.wiremit.forex.util.AggregationEngine;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The real rate ingestion pipeline and refresh planner over the given providers,
+ * with the database, the lease and the audit writers mocked. The planner has the
+ * default intervals, every rate counts as moved and the lease is held under
+ * fencing token 1 unless a test says otherwise.
+ */
+class PipelineFixture {
+
+    final ForexRateRepository forexRateRepository = mock(ForexRateRepository.class);
+    final RateRunRepository rateRunRepository = mock(RateRunRepository.class);
+    final RawApiRateWriter rawApiRateWriter = mock(RawApiRateWriter.class);
+    final SchedulerLease schedulerLease = mock(SchedulerLease.class);
+    final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    final RefreshPlanner planner;
+    final RateIngestionPipeline pipeline;
+
+    private final AtomicLong runIds = new AtomicLong();
+
+    PipelineFixture(RateProviderRegistry registry, Clock clock, int quorum) {
+        planner = new RefreshPlanner(forexRateRepository, clock);
+        ReflectionTestUtils.setField(planner, "minInterval", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(planner, "maxInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(planner, "targetVolatility", 0.001);
+        ReflectionTestUtils.setField(planner, "historySize", 24);
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(rateRunRepository.save(any())).thenAnswer(invocation -> {
+            RateRun run = invocation.getArgument(0);
+            run.setId(runIds.incrementAndGet());
+            return run;
+        });
+        RateChangeThreshold rateChangeThreshold = mock(RateChangeThreshold.class);
+        when(rateChangeThreshold.hasMoved(any(), any(), any())).thenReturn(true);
+        when(schedulerLease.currentToken()).thenReturn(OptionalLong.of(1));
+
+        pipeline = new RateIngestionPipeline(registry, mock(ProviderHealthService.class), rawApiRateWriter, planner,
+                rateChangeThreshold, new AggregationEngine(AggregationEngine.Method.MEAN, 0.2, 0, false),
+                forexRateRepository, rateRunRepository, transactionTemplate, eventPublisher, schedulerLease,
+                mock(CacheVersions.class), clock);
+        ReflectionTestUtils.setField(pipeline, "quorum", quorum);
+        ReflectionTestUtils.setField(pipeline, "quorumTolerance", new BigDecimal("0.005"));
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 16);
+        pipeline.start();
+    }
+
+    void close() {
+        pipeline.shutdown();
+    }
+}
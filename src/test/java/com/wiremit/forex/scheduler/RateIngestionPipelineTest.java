@@ -0,0 +1,271 @@
+package com.wiremit.forex.scheduler;
+
+import com.wiremit.forex.config.HttpRouteSettings;
+import com.wiremit.forex.config.RateProviderProperties;
+import com.wiremit.forex.event.CurrencyPairChangedEvent;
+import com.wiremit.forex.event.RatesAggregatedEvent;
+import com.wiremit.forex.exception.LeaseLostException;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.model.FetchStatus;
+import com.wiremit.forex.model.ForexRate;
+import com.wiremit.forex.model.RateRun;
+import com.wiremit.forex.model.RawApiRate;
+import com.wiremit.forex.service.BaseForexApiService;
+import com.wiremit.forex.service.MutableClock;
+import com.wiremit.forex.service.RateProviderRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.wiremit.forex.service.TestPairs.pair;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs through every stage of the rate ingestion pipeline with stub providers
+ */
+class RateIngestionPipelineTest {
+
+    private static final List<CurrencyPair> PAIRS = List.of(pair(1L, "USDZAR"), pair(2L, "USDGBP"));
+
+    private final MutableClock clock = new MutableClock();
+    private RateProviderRegistry registry;
+    private PipelineFixture fixture;
+    private final CountDownLatch straggler = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        straggler.countDown();
+        if (fixture != null) {
+            fixture.close();
+        }
+        if (registry != null) {
+            registry.shutdown();
+        }
+    }
+
+    @Test
+    void quorumIsStoredWithoutWaitingForAStraggler() throws Exception {
+        StubProvider slow = new StubProvider("slow", new BigDecimal("12"), straggler);
+        start(new StubProvider("alpha", BigDecimal.TEN, null), new StubProvider("beta", new BigDecimal("10.01"), null),
+                slow);
+
+        fixture.pipeline.submit(PAIRS).get(2, TimeUnit.SECONDS);
+
+        assertThat(slow.calls).hasValue(1);
+        assertThat(savedRates()).allSatisfy(rate -> {
+            assertThat(rate.getAverageRate()).isEqualByComparingTo("10.005");
+            assertThat(rate.getSourcesCount()).isEqualTo(2);
+        });
+        assertThat(fixture.planner.duePairs(PAIRS)).isEmpty();
+
+        // The straggler's rates are still written for audit but do not change the stored run
+        straggler.countDown();
+        verify(fixture.rawApiRateWriter, timeout(2000).times(3)).submit(anyList());
+        verify(fixture.forexRateRepository, times(1)).saveAll(any());
+        verify(fixture.rateRunRepository, times(1)).save(any());
+    }
+
+    @Test
+    void reusedRatesDoNotMakeAQuorumWithoutTheFreshProvider() throws Exception {
+        StubProvider alpha = new StubProvider("alpha", BigDecimal.TEN, null);
+        StubProvider beta = new StubProvider("beta", new BigDecimal("10.01"), null);
+        StubProvider slow = new StubProvider("slow", new BigDecimal("10.02"), null);
+        alpha.refreshInterval = Duration.ofHours(1);
+        beta.refreshInterval = Duration.ofHours(1);
+        start(alpha, beta, slow);
+        fixture.pipeline.submit(PAIRS).get(2, TimeUnit.SECONDS);
+
+        // Only the slow provider is due, alpha and beta contribute their last rates
+        clock.advance(Duration.ofMinutes(15));
+        slow.rate = new BigDecimal("10.5");
+        slow.answer = straggler;
+        CompletableFuture<Void> run = fixture.pipeline.submit(PAIRS);
+        Thread.sleep(200);
+        assertThat(run).isNotDone();
+
+        straggler.countDown();
+        run.get(2, TimeUnit.SECONDS);
+
+        assertThat(alpha.calls).hasValue(1);
+        assertThat(slow.calls).hasValue(2);
+        ArgumentCaptor<List<ForexRate>> saved = savedRateCaptor();
+        verify(fixture.forexRateRepository, times(2)).saveAll(saved.capture());
+        assertThat(saved.getValue()).hasSize(PAIRS.size()).allSatisfy(rate -> {
+            assertThat(rate.getAverageRate()).isEqualByComparingTo("10.17");
+            assertThat(rate.getSourcesCount()).isEqualTo(3);
+        });
+    }
+
+    @Test
+    void storedTimesAreUtcFromTheClockWhateverTheHostZone() throws Exception {
+        TimeZone hostZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+        try {
+            start(new StubProvider("alpha", BigDecimal.TEN, null), new StubProvider("beta", BigDecimal.TEN, null));
+            fixture.pipeline.submit(PAIRS).get(2, TimeUnit.SECONDS);
+
+            LocalDateTime now = LocalDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
+            ForexRate stored = savedRates().get(0);
+            assertThat(stored.getLastConfirmedAt()).isEqualTo(now);
+            ArgumentCaptor<RateRun> run = ArgumentCaptor.forClass(RateRun.class);
+            verify(fixture.rateRunRepository).save(run.capture());
+            assertThat(run.getValue().getStartedAt()).isEqualTo(now);
+
+            // Confirmed as recently as the providers' last payloads, so a change of the pair is not quoted again
+            when(fixture.schedulerLease.isLeader()).thenReturn(true);
+            when(fixture.forexRateRepository.findLatestRateByCurrencyPairId(1L)).thenReturn(Optional.of(stored));
+            fixture.pipeline.onCurrencyPairChanged(CurrencyPairChangedEvent.saved(PAIRS.get(0)));
+            verify(fixture.schedulerLease, times(1)).currentToken();
+        } finally {
+            TimeZone.setDefault(hostZone);
+        }
+    }
+
+    @Test
+    void runWithoutNewDataStoresNothingAndReschedulesThePairs() throws Exception {
+        StubProvider alpha = new StubProvider("alpha", BigDecimal.TEN, null);
+        StubProvider beta = new StubProvider("beta", BigDecimal.TEN, null);
+        start(alpha, beta);
+        fixture.pipeline.submit(PAIRS).get(2, TimeUnit.SECONDS);
+
+        alpha.unchanged = true;
+        beta.unchanged = true;
+        clock.advance(Duration.ofHours(1));
+        fixture.pipeline.submit(PAIRS).get(2, TimeUnit.SECONDS);
+
+        assertThat(alpha.calls).hasValue(2);
+        verify(fixture.forexRateRepository, times(1)).saveAll(any());
+        verify(fixture.rateRunRepository, times(1)).save(any());
+        verify(fixture.rawApiRateWriter, times(2)).submit(anyList());
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(fixture.eventPublisher, times(2)).publishEvent(events.capture());
+        assertThat(((RatesAggregatedEvent) events.getValue()).rates()).isEmpty();
+        // Both providers answered, so the pairs are not retried before their interval
+        assertThat(fixture.planner.getSchedules().get(1L).nextRefreshAt()).isEqualTo(clock.instant().plus(Duration.ofHours(1)));
+        assertThat(fixture.planner.duePairs(PAIRS)).isEmpty();
+    }
+
+    @Test
+    void leaseLostDuringPersistFailsTheRunWithoutWriting() {
+        start(new StubProvider("alpha", BigDecimal.TEN, null), new StubProvider("beta", BigDecimal.TEN, null));
+        doThrow(new LeaseLostException("Node node-b took over")).when(fixture.schedulerLease).verify(1L);
+
+        CompletableFuture<Void> run = fixture.pipeline.submit(PAIRS);
+
+        assertThatThrownBy(() -> run.get(2, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(LeaseLostException.class);
+        verify(fixture.forexRateRepository, never()).saveAll(any());
+        verify(fixture.eventPublisher, never()).publishEvent(any(Object.class));
+        // The new leader fetches the pairs, this node keeps them due
+        assertThat(fixture.planner.duePairs(PAIRS)).isEqualTo(PAIRS);
+    }
+
+    private void start(StubProvider... providers) {
+        RateProviderProperties properties = new RateProviderProperties();
+        for (StubProvider provider : providers) {
+            RateProviderProperties.Provider settings = new RateProviderProperties.Provider();
+            settings.setHedging(false);
+            settings.setRefreshInterval(provider.refreshInterval);
+            properties.getProviders().put(provider.getApiSource(), settings);
+        }
+        registry = new RateProviderRegistry(List.of(providers), properties, new HttpRouteSettings(
+                PoolingHttpClientConnectionManagerBuilder.create().build(), RequestConfig.DEFAULT, ConnectionConfig.DEFAULT),
+                clock);
+        fixture = new PipelineFixture(registry, clock, 2);
+    }
+
+    private List<ForexRate> savedRates() {
+        ArgumentCaptor<List<ForexRate>> saved = savedRateCaptor();
+        verify(fixture.forexRateRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).hasSize(PAIRS.size());
+        return saved.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<ForexRate>> savedRateCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+
+    private static class StubProvider extends BaseForexApiService {
+
+        private final String apiSource;
+        // Held until counted down, null answers straight away
+        private volatile CountDownLatch answer;
+        private volatile BigDecimal rate;
+        private Duration refreshInterval = Duration.ZERO;
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile boolean unchanged;
+
+        StubProvider(String apiSource, BigDecimal rate, CountDownLatch answer) {
+            super(new RestTemplate());
+            this.apiSource = apiSource;
+            this.rate = rate;
+            this.answer = answer;
+        }
+
+        @Override
+        public String getApiSource() {
+            return apiSource;
+        }
+
+        @Override
+        public String getBaseUrl() {
+            return "http://localhost:0";
+        }
+
+        @Override
+        protected String buildApiUrl(List<CurrencyPair> currencyPairs) {
+            return getBaseUrl();
+        }
+
+        @Override
+        public FetchResult fetchIfChanged(List<CurrencyPair> currencyPairs) {
+            calls.incrementAndGet();
+            if (answer != null) {
+                try {
+                    answer.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (unchanged) {
+                return FetchResult.noChange();
+            }
+            return FetchResult.changed(currencyPairs.stream()
+                    .map(pair -> RawApiRate.builder()
+                            .currencyPair(pair)
+                            .rate(rate)
+                            .apiSource(apiSource)
+                            .status(FetchStatus.SUCCESS)
+                            .build())
+                    .toList());
+        }
+    }
+}
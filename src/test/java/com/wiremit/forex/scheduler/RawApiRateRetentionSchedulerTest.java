@@ -0,0 +1,163 @@
+package com.wiremit.forex.scheduler;
+
+import com.wiremit.forex.event.LeaseAcquiredEvent;
+import com.wiremit.forex.service.RawApiRatePartitionService;
+import com.wiremit.forex.service.RawRateArchiveService;
+import com.wiremit.forex.service.SchedulerLease;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Retention against the real schema. H2 has no partitions, so months are removed
+ * through the range delete fallback.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RawApiRateRetentionSchedulerTest {
+
+    private static final YearMonth CURRENT = YearMonth.of(2025, 6);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private RawApiRatePartitionService partitionService;
+    private RawRateArchiveService archiveService;
+    private SchedulerLease schedulerLease;
+    private RawApiRateRetentionScheduler scheduler;
+    private long pairId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("""
+                INSERT INTO currency_pairs (base_currency, target_currency, pair_code, is_active, created_at, updated_at)
+                VALUES ('USD', 'SEK', 'USDSEK', true, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
+                """);
+        pairId = jdbcTemplate.queryForObject("SELECT id FROM currency_pairs WHERE pair_code = 'USDSEK'", Long.class);
+        // One raw rate on the 15th of each month from January to the current month
+        for (YearMonth month = CURRENT.minusMonths(5); !month.isAfter(CURRENT); month = month.plusMonths(1)) {
+            jdbcTemplate.update("""
+                    INSERT INTO raw_api_rates (currency_pair_id, rate, api_source, status, created_at, updated_at)
+                    VALUES (?, 10.5, 'test', 'SUCCESS', ?, ?)
+                    """, pairId, month.atDay(15).atStartOfDay(), month.atDay(15).atStartOfDay());
+        }
+
+        partitionService = spy(new RawApiRatePartitionService(jdbcTemplate));
+        archiveService = mock(RawRateArchiveService.class);
+        schedulerLease = mock(SchedulerLease.class);
+        when(schedulerLease.isLeader()).thenReturn(true);
+        Clock clock = Clock.fixed(Instant.parse("2025-06-15T02:30:00Z"), ZoneOffset.UTC);
+        scheduler = new RawApiRateRetentionScheduler(partitionService, archiveService, schedulerLease, clock);
+        ReflectionTestUtils.setField(scheduler, "retentionEnabled", true);
+        ReflectionTestUtils.setField(scheduler, "retentionMonths", 3);
+        ReflectionTestUtils.setField(scheduler, "archiveEnabled", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM raw_api_rates WHERE currency_pair_id = ?", pairId);
+        jdbcTemplate.update("DELETE FROM currency_pairs WHERE id = ?", pairId);
+    }
+
+    @Test
+    void keepsTheCurrentMonthPlusTheRetainedMonths() {
+        assertThat(partitionService.isPartitioned()).isFalse();
+        assertThat(partitionService.findOldestMonth()).contains(CURRENT.minusMonths(5));
+
+        scheduler.enforceRetention();
+
+        // Retention of 3 keeps March to June, January and February are archived and then removed
+        assertThat(storedMonths()).containsExactly(
+                YearMonth.of(2025, 3), YearMonth.of(2025, 4), YearMonth.of(2025, 5), CURRENT);
+        verify(archiveService).archiveMonth(YearMonth.of(2025, 1));
+        verify(archiveService).archiveMonth(YearMonth.of(2025, 2));
+        verify(archiveService, never()).archiveMonth(YearMonth.of(2025, 3));
+    }
+
+    @Test
+    void stopsAtTheFirstMonthWhoseArchiveFails() {
+        doThrow(new IllegalStateException("disk full")).when(archiveService).archiveMonth(YearMonth.of(2025, 2));
+
+        scheduler.enforceRetention();
+
+        // February could not be archived, so it and everything after it is kept
+        assertThat(storedMonths()).containsExactly(
+                YearMonth.of(2025, 2), YearMonth.of(2025, 3), YearMonth.of(2025, 4), YearMonth.of(2025, 5), CURRENT);
+    }
+
+    @Test
+    void alreadyArchivedMonthsAreNotArchivedAgain() {
+        when(archiveService.isArchived(any())).thenReturn(true);
+
+        scheduler.enforceRetention();
+
+        verify(archiveService, never()).archiveMonth(any());
+        assertThat(storedMonths()).hasSize(4);
+    }
+
+    @Test
+    void followersLeaveRetentionToTheLeader() {
+        when(schedulerLease.isLeader()).thenReturn(false);
+
+        scheduler.enforceRetention();
+
+        verify(partitionService, never()).ensureMonthlyPartitions();
+        verify(archiveService, never()).archiveMonth(any());
+        assertThat(storedMonths()).hasSize(6);
+    }
+
+    @Test
+    void partitionsArePreparedAsSoonAsTheLeaseIsTakenAtStartup() {
+        jdbcTemplate.update("UPDATE scheduler_locks SET owner = NULL, locked_until = '1970-01-01 00:00:00' WHERE name = ?",
+                "rate-ingestion");
+        // A freshly started node: the lease's first renewal is what makes it the leader
+        SchedulerLease lease = new SchedulerLease(jdbcTemplate,
+                event -> scheduler.preparePartitions((LeaseAcquiredEvent) event), Clock.systemUTC());
+        ReflectionTestUtils.setField(lease, "nodeId", "node-a");
+        ReflectionTestUtils.setField(lease, "leaseDuration", Duration.ofSeconds(30));
+        try {
+            lease.renew();
+            lease.renew();
+
+            // Once on taking the lease, not on every renewal
+            verify(partitionService, times(1)).ensureMonthlyPartitions();
+        } finally {
+            lease.release();
+        }
+    }
+
+    private List<YearMonth> storedMonths() {
+        return jdbcTemplate.queryForList("""
+                        SELECT created_at FROM raw_api_rates WHERE currency_pair_id = ? ORDER BY created_at
+                        """, Timestamp.class, pairId)
+                .stream()
+                .map(timestamp -> YearMonth.from(timestamp.toLocalDateTime()))
+                .toList();
+    }
+}
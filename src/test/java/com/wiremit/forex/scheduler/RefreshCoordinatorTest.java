@@ -0,0 +1,116 @@
+package com.wiremit.forex.scheduler;
+
+import com.wiremit.forex.dto.RefreshRunDTO;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.service.CurrencyPairRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.wiremit.forex.service.TestPairs.pair;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RefreshCoordinatorTest {
+
+    private final CurrencyPair usdZar = pair(1L, "USDZAR");
+    private final CurrencyPair usdGbp = pair(2L, "USDGBP");
+    private final CurrencyPair usdEur = pair(3L, "USDEUR");
+
+    private final List<CompletableFuture<Void>> submitted = new ArrayList<>();
+    private RateIngestionPipeline pipeline;
+    private RefreshCoordinator coordinator;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = mock(RateIngestionPipeline.class);
+        when(pipeline.submit(any())).thenAnswer(invocation -> {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            submitted.add(result);
+            return result;
+        });
+        coordinator = new RefreshCoordinator(pipeline, mock(CurrencyPairRegistry.class), Clock.systemUTC());
+        ReflectionTestUtils.setField(coordinator, "runTimeout", Duration.ofSeconds(5));
+    }
+
+    @Test
+    void concurrentTriggersJoinTheInFlightRun() throws Exception {
+        RefreshCoordinator.RefreshRun scheduled = coordinator.request(List.of(usdZar, usdGbp), RefreshCoordinator.Trigger.SCHEDULED);
+        RefreshCoordinator.RefreshRun manual = coordinator.request(List.of(usdGbp), RefreshCoordinator.Trigger.MANUAL);
+        RefreshCoordinator.RefreshRun again = coordinator.request(List.of(usdZar), RefreshCoordinator.Trigger.MANUAL);
+
+        assertThat(manual).isSameAs(scheduled);
+        assertThat(again).isSameAs(scheduled);
+        verify(pipeline, times(1)).submit(any());
+
+        submitted.get(0).complete(null);
+        scheduled.completion().get(1, TimeUnit.SECONDS);
+
+        RefreshRunDTO dto = coordinator.snapshot(scheduled);
+        assertThat(dto.getStatus()).isEqualTo("COMPLETED");
+        assertThat(dto.getCoalescedRequests()).isEqualTo(2);
+        assertThat(dto.getTriggers()).containsExactly("SCHEDULED", "MANUAL");
+    }
+
+    @Test
+    void uncoveredTriggersMergeIntoOnePendingRun() throws Exception {
+        RefreshCoordinator.RefreshRun first = coordinator.request(List.of(usdZar), RefreshCoordinator.Trigger.SCHEDULED);
+        RefreshCoordinator.RefreshRun second = coordinator.request(List.of(usdGbp), RefreshCoordinator.Trigger.MANUAL);
+        RefreshCoordinator.RefreshRun third = coordinator.request(List.of(usdEur, usdGbp), RefreshCoordinator.Trigger.MANUAL);
+
+        assertThat(second).isNotSameAs(first).isSameAs(third);
+        assertThat(coordinator.snapshot(second).getStatus()).isEqualTo("PENDING");
+        verify(pipeline, times(1)).submit(any());
+
+        submitted.get(0).complete(null);
+        first.completion().get(1, TimeUnit.SECONDS);
+
+        verify(pipeline).submit(List.of(usdGbp, usdEur));
+        assertThat(coordinator.snapshot(second).getStatus()).isEqualTo("RUNNING");
+
+        submitted.get(1).completeExceptionally(new IllegalStateException("provider down"));
+        assertThat(second.completion()).isCompletedExceptionally();
+        RefreshRunDTO dto = coordinator.snapshot(second);
+        assertThat(dto.getStatus()).isEqualTo("FAILED");
+        assertThat(dto.getError()).isEqualTo("provider down");
+
+        // Nothing in flight any more, the next request starts its own run
+        coordinator.request(List.of(usdZar), RefreshCoordinator.Trigger.SCHEDULED);
+        verify(pipeline, times(3)).submit(any());
+    }
+
+    @Test
+    void timedOutRunIsReportedButKeepsTheNextRunWaiting() throws Exception {
+        ReflectionTestUtils.setField(coordinator, "runTimeout", Duration.ofMillis(50));
+        RefreshCoordinator.RefreshRun overrun = coordinator.request(List.of(usdZar), RefreshCoordinator.Trigger.SCHEDULED);
+
+        assertThatThrownBy(() -> overrun.completion().get(1, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(TimeoutException.class);
+        assertThat(coordinator.snapshot(overrun).getStatus()).isEqualTo("FAILED");
+
+        // The pipeline is still working on it: a request for the same pair waits rather than joining or overlapping
+        RefreshCoordinator.RefreshRun next = coordinator.request(List.of(usdZar), RefreshCoordinator.Trigger.SCHEDULED);
+        assertThat(next).isNotSameAs(overrun);
+        assertThat(coordinator.snapshot(next).getStatus()).isEqualTo("PENDING");
+        verify(pipeline, times(1)).submit(any());
+
+        ReflectionTestUtils.setField(coordinator, "runTimeout", Duration.ofSeconds(5));
+        submitted.get(0).complete(null);
+        verify(pipeline, times(2)).submit(any());
+        assertThat(coordinator.snapshot(next).getStatus()).isEqualTo("RUNNING");
+        assertThat(coordinator.snapshot(overrun).getStatus()).isEqualTo("FAILED");
+    }
+}
@@ -0,0 +1,171 @@
+package com.wiremit.forex.scheduler;
+
+import com.wiremit.forex.config.HttpRouteSettings;
+import com.wiremit.forex.config.RateProviderProperties;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.model.FetchStatus;
+import com.wiremit.forex.model.ForexRate;
+import com.wiremit.forex.model.RawApiRate;
+import com.wiremit.forex.service.BaseForexApiService;
+import com.wiremit.forex.service.MutableClock;
+import com.wiremit.forex.service.RateProviderRegistry;
+import com.wiremit.forex.service.RefreshPlanner;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.wiremit.forex.service.TestPairs.pair;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Replays one month of five-minute scheduler ticks through the rate ingestion
+ * pipeline against simulated markets: a volatile USD-ZAR and a calm USD-GBP,
+ * seeded so every run is identical. Only the database is simulated, the
+ * planner's history is what the pipeline stored.
+ */
+class RefreshSimulationTest {
+
+    private static final CurrencyPair USDZAR = pair(1L, "USDZAR");
+    private static final CurrencyPair USDGBP = pair(2L, "USDGBP");
+    private static final Duration TICK = Duration.ofMinutes(5);
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    private final Map<Long, Double> market = new HashMap<>(Map.of(1L, 18.25, 2L, 0.79));
+    private final Map<Long, LinkedList<ForexRate>> history = new HashMap<>();
+    private RateProviderRegistry registry;
+    private PipelineFixture fixture;
+
+    @AfterEach
+    void tearDown() {
+        if (fixture != null) {
+            fixture.close();
+        }
+        if (registry != null) {
+            registry.shutdown();
+        }
+    }
+
+    @Test
+    void volatilePairsRefreshMoreOftenWithoutExceedingProviderQuotas() throws Exception {
+        SimulatedProvider large = new SimulatedProvider("large");
+        SimulatedProvider small = new SimulatedProvider("small");
+        RateProviderProperties properties = new RateProviderProperties();
+        properties.getProviders().put("large", quota(2000));
+        properties.getProviders().put("small", quota(800));
+        registry = new RateProviderRegistry(List.of(large, small), properties, new HttpRouteSettings(
+                PoolingHttpClientConnectionManagerBuilder.create().build(), RequestConfig.DEFAULT, ConnectionConfig.DEFAULT),
+                clock);
+        fixture = new PipelineFixture(registry, clock, 2);
+        RefreshPlanner planner = fixture.planner;
+        simulateStorage();
+
+        Random random = new Random(7);
+        Instant end = Instant.parse("2025-02-01T00:00:00Z");
+
+        while (clock.instant().isBefore(end)) {
+            // Hourly volatility of 0.4% for ZAR and 0.02% for GBP, spread over twelve ticks
+            market.computeIfPresent(1L, (id, rate) -> rate * Math.exp(random.nextGaussian() * 0.004 / Math.sqrt(12)));
+            market.computeIfPresent(2L, (id, rate) -> rate * Math.exp(random.nextGaussian() * 0.0002 / Math.sqrt(12)));
+
+            List<CurrencyPair> due = planner.duePairs(List.of(USDZAR, USDGBP));
+            if (!due.isEmpty()) {
+                fixture.pipeline.submit(due).get(5, TimeUnit.SECONDS);
+            }
+            clock.advance(TICK);
+        }
+
+        assertThat(large.calls.get()).isLessThanOrEqualTo(2000).isGreaterThan(1500);
+        assertThat(small.calls.get()).isLessThanOrEqualTo(800).isGreaterThan(600);
+        // Calm pair stays close to hourly, the volatile one is refreshed several times an hour
+        assertThat(history.get(2L)).hasSizeBetween(600, 800);
+        assertThat(history.get(1L).size()).isGreaterThan(2 * history.get(2L).size());
+        assertThat(planner.getSchedules().get(1L).interval()).isLessThan(Duration.ofMinutes(30));
+        assertThat(planner.getSchedules().get(2L).interval()).isEqualTo(Duration.ofHours(1));
+    }
+
+    // Rates the pipeline saves become the newest history entry of their pair, as the database would return them
+    private void simulateStorage() {
+        when(fixture.forexRateRepository.findRateHistoryByCurrencyPairId(anyLong(), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    List<ForexRate> rates = history.getOrDefault(invocation.<Long>getArgument(0), new LinkedList<>());
+                    Pageable page = invocation.getArgument(1);
+                    return new ArrayList<>(rates.subList(0, Math.min(page.getPageSize(), rates.size())));
+                });
+        when(fixture.forexRateRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<ForexRate> rates = invocation.getArgument(0);
+            for (ForexRate rate : rates) {
+                rate.setCreatedAt(LocalDateTime.ofInstant(clock.instant(), ZoneOffset.UTC));
+                history.computeIfAbsent(rate.getCurrencyPair().getId(), id -> new LinkedList<>()).addFirst(rate);
+            }
+            return rates;
+        });
+    }
+
+    private static RateProviderProperties.Provider quota(int monthlyQuota) {
+        RateProviderProperties.Provider settings = new RateProviderProperties.Provider();
+        settings.setMonthlyQuota(monthlyQuota);
+        settings.setHedging(false);
+        return settings;
+    }
+
+    private class SimulatedProvider extends BaseForexApiService {
+
+        private final String apiSource;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        SimulatedProvider(String apiSource) {
+            super(new RestTemplate());
+            this.apiSource = apiSource;
+        }
+
+        @Override
+        public String getApiSource() {
+            return apiSource;
+        }
+
+        @Override
+        public String getBaseUrl() {
+            return "http://localhost:0";
+        }
+
+        @Override
+        protected String buildApiUrl(List<CurrencyPair> currencyPairs) {
+            return getBaseUrl();
+        }
+
+        @Override
+        public FetchResult fetchIfChanged(List<CurrencyPair> currencyPairs) {
+            calls.incrementAndGet();
+            return FetchResult.changed(currencyPairs.stream()
+                    .map(pair -> RawApiRate.builder()
+                            .currencyPair(pair)
+                            .rate(BigDecimal.valueOf(market.get(pair.getId())))
+                            .apiSource(apiSource)
+                            .status(FetchStatus.SUCCESS)
+                            .build())
+                    .toList());
+        }
+    }
+}
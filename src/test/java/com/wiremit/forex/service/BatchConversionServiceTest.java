@@ -0,0 +1,138 @@
+package com.wiremit.forex.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wiremit.forex.dto.ForexRateDTO;
+import com.wiremit.forex.exception.CurrencyPairNotFoundException;
+import com.wiremit.forex.util.CurrencyCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.wiremit.forex.service.TestPairs.pair;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchConversionServiceTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private RateSnapshotService rateSnapshotService;
+    private CurrencyPairRegistry currencyPairRegistry;
+    private BatchConversionService service;
+
+    @BeforeEach
+    void setUp() {
+        rateSnapshotService = mock(RateSnapshotService.class);
+        currencyPairRegistry = mock(CurrencyPairRegistry.class);
+        service = new BatchConversionService(rateSnapshotService, currencyPairRegistry);
+        ReflectionTestUtils.setField(service, "maxBatchSize", 3);
+
+        when(currencyPairRegistry.findActiveByPairKey(anyInt())).thenReturn(Optional.empty());
+        when(currencyPairRegistry.findActiveByPairKey(CurrencyCode.parsePair("USDZAR"))).thenReturn(Optional.of(pair(1L, "USDZAR")));
+        when(currencyPairRegistry.findActiveByPairKey(CurrencyCode.parsePair("USDGBP"))).thenReturn(Optional.of(pair(2L, "USDGBP")));
+        when(rateSnapshotService.latest()).thenReturn(new RateSnapshotService.RateSnapshot(7L,
+                LocalDateTime.of(2026, 10, 1, 12, 0),
+                Map.of(1L, rate("18.5"), 2L, rate("0.791235"))));
+    }
+
+    @Test
+    void convertsEveryEntryWithOneRateLookupPerPair() throws Exception {
+        String body = convertToText("[[\"USDZAR\", 1250.00], [\"usdgbp\", \"99.5\"], [\"USDZAR\", 0.0001]]");
+        JsonNode response = OBJECT_MAPPER.readTree(body);
+        JsonNode data = response.get("data");
+
+        assertThat(response.get("success").asBoolean()).isTrue();
+        assertThat(response.get("path").asText()).isEqualTo("/api/v1/forex-rates/convert/batch");
+        assertThat(data.get("runId").asLong()).isEqualTo(7);
+        assertThat(data.get("runTimestamp").asText()).isEqualTo("2026-10-01T12:00:00");
+        // Stored rates have six decimals, amounts are rounded to four decimals per entry
+        assertThat(data.get("rates").get("USDGBP").decimalValue()).isEqualByComparingTo("0.791235");
+        assertThat(body).contains("\"results\":[[\"USDZAR\",23125.0000],[\"USDGBP\",78.7279],[\"USDZAR\",0.0019]]");
+        assertThat(data.get("converted").asInt()).isEqualTo(3);
+
+        verify(currencyPairRegistry, times(1)).findActiveByPairKey(CurrencyCode.parsePair("USDZAR"));
+    }
+
+    @Test
+    void leavesPairsWithoutRateUnconverted() throws Exception {
+        JsonNode data = convert("[[\"EURJPY\", 10], [\"USDZAR\", 2]]").get("data");
+
+        assertThat(data.get("results").get(0).get(1).isNull()).isTrue();
+        assertThat(data.get("results").get(1).get(1).decimalValue()).isEqualByComparingTo("37");
+        assertThat(data.get("converted").asInt()).isEqualTo(1);
+        assertThat(data.get("unavailable").asInt()).isEqualTo(1);
+    }
+
+    @Test
+    void fallsBackToBigDecimalWhenTheProductOverflows() throws Exception {
+        JsonNode data = convert("[[\"USDZAR\", 9000000000000]]").get("data");
+
+        assertThat(data.get("results").get(0).get(1).decimalValue()).isEqualByComparingTo("166500000000000");
+    }
+
+    @Test
+    void convertsLikeAQuoteOfTheSameAmountAndRun() throws Exception {
+        QuoteAuditWriter auditWriter = new QuoteAuditWriter(null, null);
+        QuoteService quoteService = new QuoteService(rateSnapshotService, currencyPairRegistry, auditWriter, new MutableClock());
+        ReflectionTestUtils.setField(quoteService, "ttl", Duration.ofSeconds(30));
+        quoteService.init();
+
+        JsonNode results = convert("[[\"USDGBP\", 99.5], [\"USDGBP\", 1250.0001], [\"USDZAR\", 7.25]]")
+                .get("data").get("results");
+
+        assertThat(results.get(0).get(1).decimalValue())
+                .isEqualByComparingTo(quoteService.issue("USDGBP", new BigDecimal("99.5")).convertedAmount());
+        assertThat(results.get(1).get(1).decimalValue())
+                .isEqualByComparingTo(quoteService.issue("USDGBP", new BigDecimal("1250.0001")).convertedAmount());
+        assertThat(results.get(2).get(1).decimalValue())
+                .isEqualByComparingTo(quoteService.issue("USDZAR", new BigDecimal("7.25")).convertedAmount());
+    }
+
+    @Test
+    void rejectsInvalidBatchesBeforeWritingAnything() {
+        assertThatThrownBy(() -> convert("{\"USDZAR\": 1}")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> convert("[[\"USDZAR\"]]")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> convert("[[\"USDZAR\", 1], [\"USDZAR\", 2]")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> convert("[[\"USDZAR\", 1], [\"USDZAR\", 2], [\"USDZAR\", 3], [\"USDZAR\", 4]]"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("more than 3");
+        assertThatThrownBy(() -> convert("[[\"USD-ZAR\", 1]]")).isInstanceOf(CurrencyPairNotFoundException.class);
+        assertThatThrownBy(() -> convert("[[\"USDZAR\", 1.00001]]")).isInstanceOf(NumberFormatException.class);
+    }
+
+    private JsonNode convert(String body) throws Exception {
+        return OBJECT_MAPPER.readTree(convertToText(body));
+    }
+
+    private String convertToText(String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/forex-rates/convert/batch");
+        ResponseEntity<StreamingResponseBody> response = service.convert(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), null, request);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static ForexRateDTO rate(String rate) {
+        return ForexRateDTO.builder().rate(new BigDecimal(rate)).build();
+    }
+}
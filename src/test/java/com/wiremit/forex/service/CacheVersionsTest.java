@@ -0,0 +1,77 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.event.CacheVersionChangedEvent;
+import com.wiremit.forex.event.CacheVersionChangedEvent.CachedData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A writer node bumping versions and a second node polling them, against the real schema
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CacheVersionsTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final MutableClock clock = new MutableClock();
+    private final List<CacheVersionChangedEvent> published = new CopyOnWriteArrayList<>();
+    private TransactionTemplate transactionTemplate;
+    private CacheVersions writer;
+    private CacheVersions reader;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        writer = new CacheVersions(jdbcTemplate, event -> { }, clock);
+        reader = new CacheVersions(jdbcTemplate, event -> published.add((CacheVersionChangedEvent) event), Clock.systemUTC());
+        reader.poll();
+    }
+
+    @Test
+    void committedChangeIsPublishedOnceForWhatChanged() {
+        transactionTemplate.executeWithoutResult(status -> writer.currencyPairsChanged());
+
+        reader.poll();
+        reader.poll();
+
+        assertThat(published).hasSize(1);
+        assertThat(published.get(0).data()).isEqualTo(CachedData.CURRENCY_PAIRS);
+        // Stamped in UTC from the clock, like the other scheduler tables
+        assertThat(jdbcTemplate.queryForObject("SELECT updated_at FROM cache_versions WHERE id = 1", Timestamp.class)
+                .toLocalDateTime()).isEqualTo(LocalDateTime.of(2025, 1, 1, 0, 0));
+    }
+
+    @Test
+    void rolledBackChangeIsNeverSeen() {
+        transactionTemplate.executeWithoutResult(status -> {
+            writer.forexRatesChanged();
+            status.setRollbackOnly();
+        });
+
+        reader.poll();
+
+        assertThat(published).isEmpty();
+    }
+}
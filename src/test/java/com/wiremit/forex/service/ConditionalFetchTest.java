@@ -0,0 +1,189 @@
+package com.wiremit.forex.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.wiremit.forex.config.HttpRouteSettings;
+import com.wiremit.forex.config.RateProviderProperties;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.model.FetchStatus;
+import com.wiremit.forex.model.RawApiRate;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.wiremit.forex.service.TestPairs.pair;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConditionalFetchTest {
+
+    private HttpServer server;
+    private volatile String eTag;
+    private volatile long timestamp;
+    private final List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+    private StubProvider provider;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        eTag = "\"v1\"";
+        timestamp = 1735689600L;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        provider = new StubProvider("http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void sendsValidatorsAndSkipsNotModifiedPayloads() {
+        List<CurrencyPair> pairs = List.of(pair(1L, "USDZAR"));
+
+        BaseForexApiService.FetchResult first = provider.fetchIfChanged(pairs);
+        BaseForexApiService.FetchResult second = provider.fetchIfChanged(pairs);
+
+        assertThat(first.unchanged()).isFalse();
+        assertThat(first.rates()).extracting(RawApiRate::getStatus).containsOnly(FetchStatus.SUCCESS);
+        assertThat(second.unchanged()).isTrue();
+        assertThat(second.rates()).isEmpty();
+        assertThat(ifNoneMatch).containsExactly("", "\"v1\"");
+    }
+
+    @Test
+    void skipsPayloadsWithAnUnchangedTimestamp() {
+        List<CurrencyPair> pairs = List.of(pair(1L, "USDZAR"));
+        eTag = null;
+
+        provider.fetchIfChanged(pairs);
+        assertThat(provider.fetchIfChanged(pairs).unchanged()).isTrue();
+
+        timestamp++;
+        assertThat(provider.fetchIfChanged(pairs).unchanged()).isFalse();
+    }
+
+    @Test
+    void fetchesAgainWhenPairsAreNotCoveredByTheLastPayload() {
+        provider.fetchIfChanged(List.of(pair(1L, "USDZAR")));
+
+        BaseForexApiService.FetchResult result = provider.fetchIfChanged(
+                List.of(pair(1L, "USDZAR"), pair(2L, "USDGBP")));
+
+        assertThat(result.unchanged()).isFalse();
+        assertThat(result.rates()).hasSize(2);
+    }
+
+    @Test
+    void pairsActivatedLaterAreQuotedFromTheLastPayloadWithoutARequest() {
+        assertThat(provider.ratesFromLastPayload(List.of(pair(2L, "USDGBP")))).isEmpty();
+        provider.fetchIfChanged(List.of(pair(1L, "USDZAR")));
+
+        List<RawApiRate> rates = provider.ratesFromLastPayload(
+                List.of(pair(2L, "USDGBP"), pair(3L, "GBPZAR"), pair(4L, "USDJPY")));
+
+        assertThat(ifNoneMatch).hasSize(1);
+        assertThat(rates).extracting(rate -> rate.getCurrencyPair().getPairCode()).containsExactly("USDGBP", "GBPZAR");
+        assertThat(rates.get(1).getRate()).isEqualByComparingTo("23.10126582");
+    }
+
+    @Test
+    void onlyCurrenciesOfConfiguredPairsAreReadUntilThePairsChange() {
+        CurrencyPair usdZar = pair(1L, "USDZAR");
+        CurrencyPair usdGbp = pair(2L, "USDGBP");
+        usdGbp.setIsActive(false);
+        CurrencyPair usdEur = pair(3L, "USDEUR");
+        CurrencyPairRegistry currencyPairRegistry = mock(CurrencyPairRegistry.class);
+        when(currencyPairRegistry.getAllPairs()).thenReturn(List.of(usdZar, usdGbp));
+        RateProviderProperties properties = new RateProviderProperties();
+        RateProviderProperties.Provider settings = new RateProviderProperties.Provider();
+        settings.setHedging(false);
+        properties.getProviders().put("stub", settings);
+        RateProviderRegistry registry = new RateProviderRegistry(List.of(provider), properties,
+                new HttpRouteSettings(PoolingHttpClientConnectionManagerBuilder.create().build(),
+                        RequestConfig.DEFAULT, ConnectionConfig.DEFAULT),
+                Clock.systemUTC(), null, currencyPairRegistry);
+        try {
+            registry.startFetches(List.of(usdZar)).forEach(CompletableFuture::join);
+
+            // The inactive pair can be quoted once activated, a currency no pair uses was skipped
+            assertThat(provider.ratesFromLastPayload(List.of(usdGbp, usdEur)))
+                    .extracting(rate -> rate.getCurrencyPair().getPairCode()).containsExactly("USDGBP");
+
+            // A new pair makes the next fetch read the unchanged payload again rather than take the 304
+            when(currencyPairRegistry.getAllPairs()).thenReturn(List.of(usdZar, usdGbp, usdEur));
+            registry.startFetches(List.of(usdZar)).forEach(CompletableFuture::join);
+
+            assertThat(ifNoneMatch).containsExactly("", "");
+            assertThat(provider.ratesFromLastPayload(List.of(usdEur))).hasSize(1);
+        } finally {
+            registry.shutdown();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String requestTag = exchange.getRequestHeaders().getFirst("If-None-Match");
+            ifNoneMatch.add(requestTag != null ? requestTag : "");
+
+            if (eTag != null && eTag.equals(requestTag)) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            byte[] body = ("{\"result\":\"success\",\"base_code\":\"USD\",\"time_last_update_unix\":" + timestamp
+                    + ",\"conversion_rates\":{\"USD\":1,\"ZAR\":18.25,\"GBP\":0.79,\"EUR\":0.92}}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if (eTag != null) {
+                exchange.getResponseHeaders().set("ETag", eTag);
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static class StubProvider extends BaseForexApiService {
+
+        private final String baseUrl;
+
+        StubProvider(String baseUrl) {
+            super(new RestTemplate());
+            this.baseUrl = baseUrl;
+        }
+
+        @Override
+        public String getApiSource() {
+            return "stub";
+        }
+
+        @Override
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        @Override
+        protected String buildApiUrl(List<CurrencyPair> currencyPairs) {
+            return baseUrl + "/latest/USD";
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.event.CacheVersionChangedEvent;
+import com.wiremit.forex.event.CurrencyPairChangedEvent;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.repository.CurrencyPairRepository;
+import com.wiremit.forex.util.CurrencyCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Copy-on-write pair snapshot: committed changes are applied after commit, rolled back
+ * ones never, and changes made by another node arrive through the cache version reload
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(CurrencyPairRegistry.class)
+class CurrencyPairRegistryTest {
+
+    private static final List<String> PAIR_CODES = List.of("USDNOK", "USDDKK", "USDPLN", "USDHUF");
+
+    @Autowired
+    private CurrencyPairRegistry registry;
+
+    @Autowired
+    private CurrencyPairRepository currencyPairRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        registry.reload();
+    }
+
+    @AfterEach
+    void tearDown() {
+        PAIR_CODES.forEach(code -> jdbcTemplate.update("DELETE FROM currency_pairs WHERE pair_code = ?", code));
+        registry.reload();
+    }
+
+    @Test
+    void createdPairsAreFoundByBinarySearchOnceCommitted() {
+        List<CurrencyPair> created = PAIR_CODES.stream().map(this::create).toList();
+
+        for (CurrencyPair pair : created) {
+            assertThat(registry.findActiveByPairKey(CurrencyCode.parsePair(pair.getPairCode())))
+                    .get().extracting(CurrencyPair::getId).isEqualTo(pair.getId());
+            assertThat(registry.findById(pair.getId())).isPresent();
+        }
+        assertThat(registry.findByPairCode("usdnok")).isPresent();
+        assertThat(registry.findByPairCode("USDSGD")).isEmpty();
+        assertThat(registry.findByPairCode("not a pair")).isEmpty();
+    }
+
+    @Test
+    void changesAreOnlyVisibleAfterCommit() {
+        transactionTemplate.executeWithoutResult(status -> {
+            CurrencyPair pair = currencyPairRepository.save(newPair("USDNOK"));
+            eventPublisher.publishEvent(CurrencyPairChangedEvent.saved(pair));
+
+            assertThat(registry.findByPairCode("USDNOK")).isEmpty();
+        });
+
+        assertThat(registry.findByPairCode("USDNOK")).isPresent();
+    }
+
+    @Test
+    void deactivatedPairsStayKnownButInactive() {
+        CurrencyPair pair = create("USDDKK");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            CurrencyPair stored = currencyPairRepository.findById(pair.getId()).orElseThrow();
+            stored.setIsActive(false);
+            eventPublisher.publishEvent(CurrencyPairChangedEvent.saved(currencyPairRepository.save(stored)));
+        });
+
+        assertThat(registry.findByPairCode("USDDKK")).get().extracting(CurrencyPair::getIsActive).isEqualTo(false);
+        assertThat(registry.findActiveByPairCode("USDDKK")).isEmpty();
+        assertThat(registry.getActivePairs()).extracting(CurrencyPair::getId).doesNotContain(pair.getId());
+        assertThat(registry.getAllPairs()).extracting(CurrencyPair::getId).contains(pair.getId());
+    }
+
+    @Test
+    void deletedPairsDisappear() {
+        CurrencyPair pair = create("USDPLN");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            currencyPairRepository.deleteById(pair.getId());
+            eventPublisher.publishEvent(CurrencyPairChangedEvent.deleted(pair.getId()));
+        });
+
+        assertThat(registry.findByPairCode("USDPLN")).isEmpty();
+        assertThat(registry.findById(pair.getId())).isEmpty();
+        assertThat(registry.getAllPairs()).extracting(CurrencyPair::getId).doesNotContain(pair.getId());
+    }
+
+    @Test
+    void rolledBackChangesLeaveTheSnapshotAlone() {
+        CurrencyPair pair = create("USDHUF");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(CurrencyPairChangedEvent.saved(currencyPairRepository.save(newPair("USDNOK"))));
+            eventPublisher.publishEvent(CurrencyPairChangedEvent.deleted(pair.getId()));
+            status.setRollbackOnly();
+        });
+
+        assertThat(registry.findByPairCode("USDNOK")).isEmpty();
+        assertThat(registry.findActiveByPairCode("USDHUF")).isPresent();
+    }
+
+    @Test
+    void pairsWrittenByAnotherNodeAreLoadedOnCacheVersionChange() {
+        jdbcTemplate.update("""
+                INSERT INTO currency_pairs (base_currency, target_currency, pair_code, is_active, created_at, updated_at)
+                VALUES ('USD', 'NOK', 'USDNOK', true, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
+                """);
+        assertThat(registry.findByPairCode("USDNOK")).isEmpty();
+
+        registry.onCacheVersionChanged(new CacheVersionChangedEvent(CacheVersionChangedEvent.CachedData.FOREX_RATES, 2));
+        assertThat(registry.findByPairCode("USDNOK")).isEmpty();
+
+        registry.onCacheVersionChanged(new CacheVersionChangedEvent(CacheVersionChangedEvent.CachedData.CURRENCY_PAIRS, 2));
+        assertThat(registry.findActiveByPairCode("USDNOK")).isPresent();
+    }
+
+    private CurrencyPair create(String pairCode) {
+        return transactionTemplate.execute(status -> {
+            CurrencyPair pair = currencyPairRepository.save(newPair(pairCode));
+            eventPublisher.publishEvent(CurrencyPairChangedEvent.saved(pair));
+            return pair;
+        });
+    }
+
+    private static CurrencyPair newPair(String pairCode) {
+        return CurrencyPair.builder()
+                .baseCurrency(pairCode.substring(0, 3))
+                .targetCurrency(pairCode.substring(3))
+                .pairCode(pairCode)
+                .isActive(true)
+                .build();
+    }
+}
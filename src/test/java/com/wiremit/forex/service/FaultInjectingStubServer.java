@@ -0,0 +1,95 @@
+package com.wiremit.forex.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local HTTP server answering like ExchangeRate-API, with faults queued per
+ * request: a delay before answering, an HTTP error, or both. Requests without
+ * a queued fault are answered immediately. Every answer carries a new
+ * timestamp so conditional fetching never short-circuits.
+ */
+class FaultInjectingStubServer implements AutoCloseable {
+
+    record Fault(long delayMillis, int status) {
+
+        static Fault delay(long millis) {
+            return new Fault(millis, 200);
+        }
+
+        static Fault error(int status) {
+            return new Fault(0, status);
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Queue<Fault> faults = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicLong timestamp = new AtomicLong(1735689600L);
+
+    FaultInjectingStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    void inject(Fault... next) {
+        faults.addAll(List.of(next));
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requests.incrementAndGet();
+            Fault fault = faults.poll();
+            if (fault != null && fault.delayMillis() > 0) {
+                Thread.sleep(fault.delayMillis());
+            }
+            int status = fault != null ? fault.status() : 200;
+
+            byte[] body = (status == 200
+                    ? "{\"result\":\"success\",\"base_code\":\"USD\",\"time_last_update_unix\":" + timestamp.incrementAndGet()
+                    + ",\"conversion_rates\":{\"USD\":1,\"ZAR\":18.25,\"GBP\":0.79}}"
+                    : "{\"result\":\"error\",\"error-type\":\"unavailable\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // Client gave up on a delayed answer
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.exception.CurrencyPairNotFoundException;
+import com.wiremit.forex.exception.ForexRateNotFoundException;
+import com.wiremit.forex.repository.ForexRateRepository;
+import com.wiremit.forex.util.ForexRateMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ForexRateServiceTest {
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/forex-rates/latest");
+    private CurrencyPairRegistry currencyPairRegistry;
+    private ForexRateService service;
+
+    @BeforeEach
+    void setUp() {
+        currencyPairRegistry = mock(CurrencyPairRegistry.class);
+        when(currencyPairRegistry.findActiveByPairKey(anyInt())).thenReturn(Optional.empty());
+        service = new ForexRateService(mock(ForexRateRepository.class), mock(ForexRateMapper.class),
+                currencyPairRegistry, mock(RateSnapshotService.class));
+    }
+
+    @Test
+    void sameBaseAndTargetIsAnInvalidPairRatherThanAMissingRate() {
+        assertThatThrownBy(() -> service.getLatestRate("usd", "USD", request))
+                .isInstanceOf(CurrencyPairNotFoundException.class)
+                .hasMessage("Invalid currency pair format: USDUSD");
+        verify(currencyPairRegistry, never()).findActiveByPairKey(anyInt());
+    }
+
+    @Test
+    void unknownPairOfValidCurrenciesHasNoRate() {
+        assertThatThrownBy(() -> service.getLatestRate("USD", "JPY", request))
+                .isInstanceOf(ForexRateNotFoundException.class);
+        assertThatThrownBy(() -> service.getLatestRate("US", "JPY", request))
+                .isInstanceOf(CurrencyPairNotFoundException.class)
+                .hasMessageContaining("Invalid currency code format");
+    }
+}
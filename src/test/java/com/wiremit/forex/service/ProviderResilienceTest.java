@@ -0,0 +1,162 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.config.HttpRouteSettings;
+import com.wiremit.forex.config.RateProviderProperties;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.service.FaultInjectingStubServer.Fault;
+import com.wiremit.forex.service.RateProviderRegistry.ProviderRates;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static com.wiremit.forex.service.TestPairs.pair;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProviderResilienceTest {
+
+    private static final List<CurrencyPair> PAIRS = List.of(pair(1L, "USDZAR"), pair(2L, "USDGBP"));
+
+    private FaultInjectingStubServer server;
+    private RateProviderRegistry registry;
+    private final MutableClock clock = new MutableClock();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FaultInjectingStubServer();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (registry != null) {
+            registry.shutdown();
+        }
+        server.close();
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailuresAndProbesOnceOpenDurationElapsed() {
+        RateProvider provider = register(settings -> {
+            settings.setFailureThreshold(2);
+            settings.setOpenDuration(Duration.ofMinutes(1));
+        });
+        server.inject(Fault.error(500), Fault.error(500), Fault.error(503));
+
+        fetch();
+        fetch();
+        ProviderRates rejected = fetch().get(0);
+
+        assertThat(server.requests()).isEqualTo(2);
+        assertThat(provider.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(rejected.available()).isFalse();
+        assertThat(rejected.unavailableReason()).startsWith("Circuit open");
+
+        // Failed probe re-opens the circuit
+        clock.advance(Duration.ofMinutes(1));
+        assertThat(fetch().get(0).available()).isFalse();
+        fetch();
+        assertThat(server.requests()).isEqualTo(3);
+
+        // Successful probe closes it
+        clock.advance(Duration.ofMinutes(1));
+        assertThat(fetch().get(0).available()).isTrue();
+        assertThat(provider.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void timeoutAdaptsToObservedLatency() {
+        RateProvider provider = register(settings -> {
+            settings.setTimeout(Duration.ofSeconds(10));
+            settings.setMinTimeout(Duration.ofMillis(200));
+            settings.setHedging(false);
+        });
+        assertThat(provider.getEffectiveTimeout()).isEqualTo(Duration.ofSeconds(10));
+
+        warmUp();
+        assertThat(provider.getEffectiveTimeout()).isEqualTo(Duration.ofMillis(200));
+
+        server.inject(Fault.delay(3000));
+        long started = System.nanoTime();
+        ProviderRates rates = fetch().get(0);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+        assertThat(rates.available()).isFalse();
+        assertThat(rates.unavailableReason()).isEqualTo("Timed out after 200 ms");
+    }
+
+    @Test
+    void slowRequestIsHedgedWithASecondOne() {
+        RateProvider provider = register(settings -> {
+            settings.setTimeout(Duration.ofSeconds(10));
+            settings.setMinTimeout(Duration.ofSeconds(5));
+        });
+        warmUp();
+
+        server.inject(Fault.delay(3000));
+        long started = System.nanoTime();
+        ProviderRates rates = fetch().get(0);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+        assertThat(rates.available()).isTrue();
+        assertThat(rates.fresh()).isTrue();
+        assertThat(rates.rates()).hasSize(PAIRS.size());
+        assertThat(provider.getHedgedFetches()).isEqualTo(1);
+    }
+
+    private RateProvider register(Consumer<RateProviderProperties.Provider> customizer) {
+        RateProviderProperties properties = new RateProviderProperties();
+        RateProviderProperties.Provider settings = new RateProviderProperties.Provider();
+        customizer.accept(settings);
+        properties.getProviders().put("stub", settings);
+
+        HttpRouteSettings httpRouteSettings = new HttpRouteSettings(PoolingHttpClientConnectionManagerBuilder.create().build(),
+                RequestConfig.DEFAULT, ConnectionConfig.DEFAULT);
+        registry = new RateProviderRegistry(List.of(new StubProvider(server.baseUrl())), properties,
+                httpRouteSettings, clock);
+        return registry.getProviders().get(0);
+    }
+
+    private List<ProviderRates> fetch() {
+        return registry.startFetches(PAIRS).stream().map(CompletableFuture::join).toList();
+    }
+
+    private void warmUp() {
+        for (int i = 0; i < 8; i++) {
+            assertThat(fetch().get(0).available()).isTrue();
+        }
+    }
+
+    private static class StubProvider extends BaseForexApiService {
+
+        private final String baseUrl;
+
+        StubProvider(String baseUrl) {
+            super(new RestTemplate());
+            this.baseUrl = baseUrl;
+        }
+
+        @Override
+        public String getApiSource() {
+            return "stub";
+        }
+
+        @Override
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        @Override
+        protected String buildApiUrl(List<CurrencyPair> currencyPairs) {
+            return baseUrl + "/latest/USD";
+        }
+    }
+}
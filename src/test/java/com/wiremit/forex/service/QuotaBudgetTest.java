@@ -0,0 +1,81 @@
+package com.wiremit.forex.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Monthly quota usage kept in provider_quota_usage across budget instances, as
+ * after a restart or when another node takes over the lease
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QuotaBudgetTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final MutableClock clock = new MutableClock();
+    private ProviderQuotaStore store;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM provider_quota_usage");
+        store = new ProviderQuotaStore(jdbcTemplate);
+    }
+
+    @Test
+    void pacingContinuesFromTheCallsRecordedBeforeARestart() {
+        assertThat(budget(10).tryAcquire(true)).isTrue();
+
+        // Ten calls over 31 days space paced calls about three days apart, also for a new instance
+        clock.advance(Duration.ofHours(1));
+        QuotaBudget restarted = budget(10);
+        assertThat(restarted.getUsed()).isEqualTo(1);
+        assertThat(restarted.tryAcquire(true)).isFalse();
+        assertThat(restarted.tryAcquire(false)).isTrue();
+
+        assertThat(budget(10).getUsed()).isEqualTo(2);
+        assertThat(budget(0).getUsed()).isEqualTo(2);
+    }
+
+    @Test
+    void exhaustedQuotaStaysExhaustedForTheNextLeader() {
+        QuotaBudget leader = budget(2);
+        assertThat(leader.tryAcquire(false)).isTrue();
+        assertThat(leader.tryAcquire(false)).isTrue();
+
+        QuotaBudget nextLeader = budget(2);
+        assertThat(nextLeader.tryAcquire(false)).isFalse();
+
+        // A new month starts from zero
+        clock.advance(Duration.ofDays(31));
+        assertThat(nextLeader.getUsed()).isZero();
+        assertThat(nextLeader.tryAcquire(true)).isTrue();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT calls_used FROM provider_quota_usage WHERE api_source = 'alpha' AND usage_month = '2025-02'",
+                Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void countsInMemoryWithoutAStore() {
+        QuotaBudget budget = new QuotaBudget(1, clock);
+        assertThat(budget.tryAcquire(true)).isTrue();
+        assertThat(budget.tryAcquire(false)).isFalse();
+        assertThat(new QuotaBudget(1, clock).tryAcquire(true)).isTrue();
+    }
+
+    private QuotaBudget budget(int monthlyLimit) {
+        return new QuotaBudget("alpha", monthlyLimit, clock, store);
+    }
+}
@@ -0,0 +1,185 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.dto.ForexRateDTO;
+import com.wiremit.forex.exception.ForexRateNotFoundException;
+import com.wiremit.forex.exception.QuoteNotFoundException;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.util.CurrencyCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.wiremit.forex.service.TestPairs.pair;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Issuing and redeeming quotes, with the audit trail written to the real schema
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QuoteServiceTest {
+
+    private static final Duration TTL = Duration.ofSeconds(30);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final MutableClock clock = new MutableClock();
+    private QuoteAuditWriter auditWriter;
+    private QuoteService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM quote_audit");
+
+        CurrencyPair usdZar = pair(1L, "USDZAR");
+        CurrencyPairRegistry registry = mock(CurrencyPairRegistry.class);
+        when(registry.findActiveByPairKey(anyInt())).thenReturn(Optional.empty());
+        when(registry.findActiveByPairKey(CurrencyCode.parsePair("USDZAR"))).thenReturn(Optional.of(usdZar));
+
+        RateSnapshotService snapshots = mock(RateSnapshotService.class);
+        when(snapshots.latest()).thenReturn(new RateSnapshotService.RateSnapshot(7L, LocalDateTime.now(),
+                Map.of(1L, ForexRateDTO.builder().rate(new BigDecimal("18.512345")).build())));
+
+        auditWriter = new QuoteAuditWriter(jdbcTemplate, new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(auditWriter, "enabled", true);
+        ReflectionTestUtils.setField(auditWriter, "capacity", 100);
+        ReflectionTestUtils.setField(auditWriter, "batchSize", 10);
+        ReflectionTestUtils.setField(auditWriter, "flushInterval", Duration.ofMillis(10));
+        auditWriter.start();
+
+        service = new QuoteService(snapshots, registry, auditWriter, clock);
+        ReflectionTestUtils.setField(service, "ttl", TTL);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        auditWriter.shutdown();
+    }
+
+    @Test
+    void redeemsAQuoteOnceAtTheLockedRate() {
+        QuoteService.Quote quote = service.issue("usdzar", new BigDecimal("1250.5"));
+
+        assertThat(quote.rate()).isEqualByComparingTo("18.512345");
+        assertThat(quote.convertedAmount()).isEqualByComparingTo("23149.6874");
+        assertThat(quote.runId()).isEqualTo(7);
+        assertThat(quote.expiresAt()).isEqualTo(clock.instant().plus(TTL));
+
+        clock.advance(Duration.ofSeconds(29));
+        QuoteService.Quote redeemed = service.redeem(quote.id(), "USDZAR", new BigDecimal("1250.50"), clock.instant());
+        assertThat(redeemed).isEqualTo(quote);
+
+        assertThatThrownBy(() -> service.redeem(quote.id(), "USDZAR", new BigDecimal("1250.50"), clock.instant()))
+                .isInstanceOf(QuoteNotFoundException.class);
+        assertThat(service.getOutstandingCount()).isZero();
+    }
+
+    @Test
+    void mismatchedRedemptionKeepsTheQuote() {
+        QuoteService.Quote quote = service.issue("USDZAR", new BigDecimal("100"));
+
+        assertThatThrownBy(() -> service.redeem(quote.id(), "USDZAR", new BigDecimal("100.01"), clock.instant()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("100.0000 USDZAR");
+        assertThatThrownBy(() -> service.redeem(quote.id(), "USDEUR", new BigDecimal("100"), clock.instant()))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(service.redeem(quote.id(), "USDZAR", new BigDecimal("100"), clock.instant())).isEqualTo(quote);
+    }
+
+    @Test
+    void expiredQuotesAreRefusedAndEvicted() {
+        QuoteService.Quote quote = service.issue("USDZAR", new BigDecimal("100"));
+
+        clock.advance(TTL);
+        assertThatThrownBy(() -> service.redeem(quote.id(), "USDZAR", new BigDecimal("100"), clock.instant()))
+                .isInstanceOf(QuoteNotFoundException.class);
+
+        assertThat(service.getOutstandingCount()).isEqualTo(1);
+        clock.advance(Duration.ofSeconds(1));
+        service.expireQuotes();
+        assertThat(service.getOutstandingCount()).isZero();
+    }
+
+    @Test
+    void refusesPairsWithoutRate() {
+        assertThatThrownBy(() -> service.issue("EURJPY", BigDecimal.TEN)).isInstanceOf(ForexRateNotFoundException.class);
+    }
+
+    @Test
+    void auditsIssuedAndRedeemedQuotesBehindTheApi() {
+        QuoteService.Quote redeemed = service.issue("USDZAR", new BigDecimal("100"));
+        service.issue("USDZAR", new BigDecimal("200"));
+        service.redeem(redeemed.id(), "USDZAR", new BigDecimal("100"), clock.instant());
+
+        auditWriter.shutdown();
+
+        assertThat(jdbcTemplate.queryForList("SELECT event FROM quote_audit WHERE quote_id = ? ORDER BY id",
+                String.class, redeemed.id().toString())).containsExactly("ISSUED", "REDEEMED");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quote_audit", Integer.class)).isEqualTo(3);
+    }
+
+    @Test
+    void fullAuditQueueDropsEntriesInsteadOfWritingOnTheRequestThread() {
+        // A writer stuck on its first batch, with room for one more entry
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> writerThreads = new CopyOnWriteArrayList<>();
+        TransactionTemplate stuck = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            writerThreads.add(Thread.currentThread().getName());
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(stuck).executeWithoutResult(any());
+        QuoteAuditWriter saturated = new QuoteAuditWriter(jdbcTemplate, stuck);
+        ReflectionTestUtils.setField(saturated, "enabled", true);
+        ReflectionTestUtils.setField(saturated, "capacity", 1);
+        ReflectionTestUtils.setField(saturated, "batchSize", 10);
+        ReflectionTestUtils.setField(saturated, "flushInterval", Duration.ofMillis(10));
+        saturated.start();
+        ReflectionTestUtils.setField(service, "quoteAuditWriter", saturated);
+
+        try {
+            for (int i = 0; i < 10; i++) {
+                service.issue("USDZAR", BigDecimal.valueOf(100 + i));
+            }
+
+            assertThat(service.getOutstandingCount()).isEqualTo(10);
+            assertThat(saturated.getDroppedCount()).isBetween(8L, 9L);
+            assertThat(writerThreads).doesNotContain(Thread.currentThread().getName());
+        } finally {
+            release.countDown();
+            saturated.shutdown();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.model.ChangeThresholdUnit;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.model.ForexRate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateChangeThresholdTest {
+
+    private final RateChangeThreshold threshold = new RateChangeThreshold();
+    private final CurrencyPair pair = CurrencyPair.builder().baseCurrency("USD").targetCurrency("ZAR").build();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(threshold, "defaultThreshold", BigDecimal.ZERO);
+        ReflectionTestUtils.setField(threshold, "defaultUnit", ChangeThresholdUnit.BASIS_POINTS);
+    }
+
+    @Test
+    void firstRateAndMarkupChangesAreAlwaysStored() {
+        assertThat(threshold.hasMoved(pair, null, rate("18.250000"))).isTrue();
+
+        ForexRate remarked = rate("18.250000");
+        remarked.setMarkupApplied(BigDecimal.valueOf(0.25));
+        assertThat(threshold.hasMoved(pair, rate("18.250000"), remarked)).isTrue();
+    }
+
+    @Test
+    void defaultOnlySuppressesRatesIdenticalAtStoredScale() {
+        assertThat(threshold.hasMoved(pair, rate("18.250000"), rate("18.25000049"))).isFalse();
+        assertThat(threshold.hasMoved(pair, rate("18.250000"), rate("18.250001"))).isTrue();
+    }
+
+    @Test
+    void basisPointThresholdIsRelativeToStoredRate() {
+        pair.setChangeThreshold(BigDecimal.valueOf(2));
+        pair.setChangeThresholdUnit(ChangeThresholdUnit.BASIS_POINTS);
+
+        // 2 bp of 18.25 is 0.00365
+        assertThat(threshold.hasMoved(pair, rate("18.250000"), rate("18.253650"))).isFalse();
+        assertThat(threshold.hasMoved(pair, rate("18.250000"), rate("18.246349"))).isTrue();
+    }
+
+    @Test
+    void absoluteThresholdOverridesDefault() {
+        pair.setChangeThreshold(new BigDecimal("0.01"));
+        pair.setChangeThresholdUnit(ChangeThresholdUnit.ABSOLUTE);
+
+        assertThat(threshold.hasMoved(pair, rate("0.790000"), rate("0.800000"))).isFalse();
+        assertThat(threshold.hasMoved(pair, rate("0.790000"), rate("0.800001"))).isTrue();
+    }
+
+    private static ForexRate rate(String finalRate) {
+        return ForexRate.builder()
+                .finalRate(new BigDecimal(finalRate))
+                .averageRate(new BigDecimal(finalRate))
+                .build();
+    }
+}
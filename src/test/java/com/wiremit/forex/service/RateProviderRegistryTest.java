@@ -0,0 +1,174 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.config.HttpRouteSettings;
+import com.wiremit.forex.config.RateProviderProperties;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.model.FetchStatus;
+import com.wiremit.forex.model.RawApiRate;
+import com.wiremit.forex.service.RateProviderRegistry.ProviderRates;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static com.wiremit.forex.service.TestPairs.pair;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateProviderRegistryTest {
+
+    private static final List<CurrencyPair> PAIRS = List.of(pair(1L, "USDZAR"), pair(2L, "USDGBP"));
+
+    private RateProviderRegistry registry;
+
+    @AfterEach
+    void tearDown() {
+        if (registry != null) {
+            registry.shutdown();
+        }
+    }
+
+    @Test
+    void discoversProvidersAndSkipsDisabledOnes() {
+        RateProviderProperties properties = new RateProviderProperties();
+        properties.getProviders().put("disabled", settings(provider -> provider.setEnabled(false)));
+
+        registry = new RateProviderRegistry(List.of(new StubProvider("alpha", 0), new StubProvider("disabled", 0)),
+                properties, httpRouteSettings());
+
+        assertThat(registry.getProviders()).extracting(RateProvider::getApiSource).containsExactly("alpha", "disabled");
+        assertThat(fetch()).extracting(rates -> rates.provider().getApiSource())
+                .containsExactly("alpha");
+    }
+
+    @Test
+    void slowProviderIsRecordedAsUnavailableAfterItsTimeout() {
+        RateProviderProperties properties = new RateProviderProperties();
+        properties.getProviders().put("slow", settings(provider -> provider.setTimeout(Duration.ofMillis(100))));
+
+        registry = new RateProviderRegistry(List.of(new StubProvider("fast", 0), new StubProvider("slow", 5000)),
+                properties, httpRouteSettings());
+
+        long started = System.nanoTime();
+        Map<String, ProviderRates> results = byApiSource(fetch());
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+        assertThat(results.get("fast").rates()).extracting(RawApiRate::getStatus).containsOnly(FetchStatus.SUCCESS);
+        assertThat(results.get("slow").available()).isFalse();
+        assertThat(results.get("slow").unavailableReason()).startsWith("Timed out");
+        assertThat(results.get("slow").rates()).isEmpty();
+    }
+
+    @Test
+    void providerIsOnlyCalledOnceItsRefreshIntervalElapsed() {
+        RateProviderProperties properties = new RateProviderProperties();
+        properties.getProviders().put("hourly", settings(provider -> provider.setRefreshInterval(Duration.ofHours(1))));
+        StubProvider hourly = new StubProvider("hourly", 0);
+
+        registry = new RateProviderRegistry(List.of(hourly), properties, httpRouteSettings());
+
+        ProviderRates first = fetch().get(0);
+        ProviderRates second = fetch().get(0);
+
+        assertThat(hourly.calls.get()).isEqualTo(1);
+        assertThat(first.fresh()).isTrue();
+        assertThat(second.fresh()).isFalse();
+        assertThat(second.rates()).hasSize(PAIRS.size());
+    }
+
+    @Test
+    void disagreeingProvidersNeedATieBreakerForAQuorum() {
+        registry = new RateProviderRegistry(List.of(new StubProvider("alpha", 0, BigDecimal.TEN),
+                new StubProvider("beta", 0, new BigDecimal("11")), new StubProvider("gamma", 0, new BigDecimal("10.01"))),
+                new RateProviderProperties(), httpRouteSettings());
+        Map<String, ProviderRates> results = byApiSource(fetch());
+        BigDecimal tolerance = new BigDecimal("0.005");
+
+        assertThat(RateProviderRegistry.hasQuorum(List.of(results.get("alpha"), results.get("beta")), PAIRS, 2,
+                tolerance)).isFalse();
+        assertThat(RateProviderRegistry.hasQuorum(List.of(results.get("alpha"), results.get("beta"),
+                results.get("gamma")), PAIRS, 2, tolerance)).isTrue();
+    }
+
+    private List<ProviderRates> fetch() {
+        return registry.startFetches(PAIRS).stream().map(CompletableFuture::join).toList();
+    }
+
+    private static HttpRouteSettings httpRouteSettings() {
+        return new HttpRouteSettings(PoolingHttpClientConnectionManagerBuilder.create().build(),
+                RequestConfig.DEFAULT, ConnectionConfig.DEFAULT);
+    }
+
+    private static Map<String, ProviderRates> byApiSource(List<ProviderRates> results) {
+        return results.stream().collect(Collectors.toMap(
+                rates -> rates.provider().getApiSource(), rates -> rates));
+    }
+
+    private static RateProviderProperties.Provider settings(Consumer<RateProviderProperties.Provider> customizer) {
+        RateProviderProperties.Provider provider = new RateProviderProperties.Provider();
+        customizer.accept(provider);
+        return provider;
+    }
+
+    private static class StubProvider extends BaseForexApiService {
+
+        private final String apiSource;
+        private final long delayMillis;
+        private final BigDecimal rate;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        StubProvider(String apiSource, long delayMillis) {
+            this(apiSource, delayMillis, BigDecimal.TEN);
+        }
+
+        StubProvider(String apiSource, long delayMillis, BigDecimal rate) {
+            super(new RestTemplate());
+            this.apiSource = apiSource;
+            this.delayMillis = delayMillis;
+            this.rate = rate;
+        }
+
+        @Override
+        public String getApiSource() {
+            return apiSource;
+        }
+
+        @Override
+        public String getBaseUrl() {
+            return "http://localhost:0";
+        }
+
+        @Override
+        protected String buildApiUrl(List<CurrencyPair> currencyPairs) {
+            return getBaseUrl();
+        }
+
+        @Override
+        public FetchResult fetchIfChanged(List<CurrencyPair> currencyPairs) {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return FetchResult.changed(currencyPairs.stream()
+                    .map(pair -> RawApiRate.builder()
+                            .currencyPair(pair)
+                            .rate(rate)
+                            .apiSource(apiSource)
+                            .status(FetchStatus.SUCCESS)
+                            .build())
+                    .toList());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.dto.ForexRateDTO;
+import com.wiremit.forex.event.CacheVersionChangedEvent;
+import com.wiremit.forex.exception.ForexRateNotFoundException;
+import com.wiremit.forex.model.CurrencyPair;
+import com.wiremit.forex.model.ForexRate;
+import com.wiremit.forex.model.RateRun;
+import com.wiremit.forex.repository.CurrencyPairRepository;
+import com.wiremit.forex.repository.ForexRateRepository;
+import com.wiremit.forex.repository.RateRunRepository;
+import com.wiremit.forex.util.ForexRateMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static com.wiremit.forex.service.TestPairs.pair;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Snapshots over runs that only refresh some of the pairs, against the real schema
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({RateSnapshotService.class, CurrencyPairRegistry.class, ForexRateMapper.class})
+class RateSnapshotServiceTest {
+
+    @Autowired
+    private RateSnapshotService rateSnapshotService;
+
+    @Autowired
+    private CurrencyPairRegistry currencyPairRegistry;
+
+    @Autowired
+    private CurrencyPairRepository currencyPairRepository;
+
+    @Autowired
+    private ForexRateRepository forexRateRepository;
+
+    @Autowired
+    private RateRunRepository rateRunRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private CurrencyPair usdZar;
+    private CurrencyPair usdGbp;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            forexRateRepository.deleteAll();
+            rateRunRepository.deleteAll();
+            currencyPairRepository.deleteAll();
+        });
+        usdZar = transactionTemplate.execute(status -> currencyPairRepository.save(pair("USDZAR")));
+        usdGbp = transactionTemplate.execute(status -> currencyPairRepository.save(pair("USDGBP")));
+        currencyPairRegistry.reload();
+        invalidate();
+    }
+
+    @Test
+    void snapshotCarriesPairsTheLatestRunDidNotRefresh() {
+        long first = storeRun(Map.of(usdZar, "18.5", usdGbp, "0.79"));
+        assertThat(rates(rateSnapshotService.latest())).containsExactly("18.500000", "0.790000");
+
+        // A partial run only refreshes one pair; until invalidated the cached snapshot is served
+        long second = storeRun(Map.of(usdZar, "18.7"));
+        assertThat(rateSnapshotService.latest().runId()).isEqualTo(first);
+
+        invalidate();
+        RateSnapshotService.RateSnapshot latest = rateSnapshotService.latest();
+        assertThat(latest.runId()).isEqualTo(second);
+        assertThat(rates(latest)).containsExactly("18.700000", "0.790000");
+        assertThat(latest.rates().get(usdGbp.getId()).getRunId()).isEqualTo(first);
+
+        // The earlier snapshot stays readable
+        assertThat(rates(rateSnapshotService.at(first))).containsExactly("18.500000", "0.790000");
+    }
+
+    @Test
+    void unknownRunIsNotFound() {
+        storeRun(Map.of(usdZar, "18.5"));
+
+        assertThatThrownBy(() -> rateSnapshotService.at(Long.MAX_VALUE)).isInstanceOf(ForexRateNotFoundException.class);
+    }
+
+    @Test
+    void emptyBeforeTheFirstRun() {
+        RateSnapshotService.RateSnapshot latest = rateSnapshotService.latest();
+
+        assertThat(latest.runId()).isNull();
+        assertThat(latest.rates()).isEmpty();
+    }
+
+    private List<String> rates(RateSnapshotService.RateSnapshot snapshot) {
+        return snapshot.ratesOf(List.of(usdZar.getId(), usdGbp.getId())).stream()
+                .map(ForexRateDTO::getRate)
+                .map(BigDecimal::toPlainString)
+                .toList();
+    }
+
+    private long storeRun(Map<CurrencyPair, String> rates) {
+        return transactionTemplate.execute(status -> {
+            RateRun run = rateRunRepository.save(RateRun.builder()
+                    .startedAt(LocalDateTime.now())
+                    .pairsRequested(rates.size())
+                    .ratesStored(rates.size())
+                    .build());
+            rates.forEach((pair, rate) -> forexRateRepository.save(ForexRate.builder()
+                    .currencyPair(pair)
+                    .averageRate(new BigDecimal(rate))
+                    .finalRate(new BigDecimal(rate))
+                    .sourcesCount(1)
+                    .runId(run.getId())
+                    .build()));
+            return run.getId();
+        });
+    }
+
+    private void invalidate() {
+        rateSnapshotService.onCacheVersionChanged(
+                new CacheVersionChangedEvent(CacheVersionChangedEvent.CachedData.FOREX_RATES, 0));
+    }
+}
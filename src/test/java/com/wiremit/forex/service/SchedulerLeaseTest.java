@@ -0,0 +1,103 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.event.LeaseAcquiredEvent;
+import com.wiremit.forex.exception.LeaseLostException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Two nodes competing for the rate ingestion lease against the real schema
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SchedulerLeaseTest {
+
+    private static final Duration LEASE = Duration.ofSeconds(30);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final MutableClock clock = new MutableClock();
+    private final List<Object> events = new ArrayList<>();
+    private SchedulerLease nodeA;
+    private SchedulerLease nodeB;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("UPDATE scheduler_locks SET owner = NULL, locked_until = '1970-01-01 00:00:00' WHERE name = ?",
+                SchedulerLease.RATE_INGESTION);
+        nodeA = lease("node-a");
+        nodeB = lease("node-b");
+    }
+
+    @Test
+    void onlyOneNodeHoldsTheLease() {
+        nodeA.renew();
+        nodeB.renew();
+
+        assertThat(nodeA.isLeader()).isTrue();
+        assertThat(nodeB.isLeader()).isFalse();
+        assertThat(nodeB.currentToken()).isEmpty();
+
+        // Renewing keeps the token
+        long token = nodeA.currentToken().orElseThrow();
+        clock.advance(Duration.ofSeconds(10));
+        nodeA.renew();
+        nodeB.renew();
+        assertThat(nodeA.currentToken()).hasValue(token);
+        assertThat(nodeB.isLeader()).isFalse();
+    }
+
+    @Test
+    void followerTakesOverExpiredLeaseAndFencesOutTheOldLeader() {
+        nodeA.renew();
+        long oldToken = nodeA.currentToken().orElseThrow();
+
+        // Node A stalls, its lease runs out and node B takes over on its next attempt
+        clock.advance(LEASE.plusSeconds(1));
+        nodeB.renew();
+
+        assertThat(nodeA.isLeader()).isFalse();
+        assertThat(nodeB.currentToken()).hasValue(oldToken + 1);
+        assertThatThrownBy(() -> nodeA.verify(oldToken)).isInstanceOf(LeaseLostException.class);
+        nodeB.verify(oldToken + 1);
+
+        // Back from its stall node A finds the lease taken
+        nodeA.renew();
+        assertThat(nodeA.isLeader()).isFalse();
+        assertThat(events).containsExactly(
+                new LeaseAcquiredEvent("node-a", oldToken), new LeaseAcquiredEvent("node-b", oldToken + 1));
+    }
+
+    @Test
+    void releasedLeaseIsTakenOverRightAway() {
+        nodeA.renew();
+        nodeA.release();
+        nodeB.renew();
+
+        assertThat(nodeA.isLeader()).isFalse();
+        assertThat(nodeB.isLeader()).isTrue();
+    }
+
+    private SchedulerLease lease(String nodeId) {
+        SchedulerLease lease = new SchedulerLease(jdbcTemplate, events::add, clock);
+        ReflectionTestUtils.setField(lease, "nodeId", nodeId);
+        ReflectionTestUtils.setField(lease, "leaseDuration", LEASE);
+        return lease;
+    }
+}
@@ -0,0 +1,32 @@
+package com.wiremit.forex.service;
+
+import com.wiremit.forex.model.CurrencyPair;
+
+/**
+ * Active currency pairs for tests, built the way the registry hands them out
+ */
+public final class TestPairs {
+
+    private TestPairs() {
+    }
+
+    /**
+     * Unsaved pair, for tests that persist it
+     */
+    public static CurrencyPair pair(String pairCode) {
+        return CurrencyPair.builder()
+                .baseCurrency(pairCode.substring(0, 3))
+                .targetCurrency(pairCode.substring(3))
+                .pairCode(pairCode)
+                .build();
+    }
+
+    /**
+     * Pair as if loaded with the given id
+     */
+    public static CurrencyPair pair(Long id, String pairCode) {
+        CurrencyPair pair = pair(pairCode);
+        pair.setId(id);
+        return pair;
+    }
+}
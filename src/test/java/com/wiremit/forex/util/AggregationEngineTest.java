@@ -0,0 +1,79 @@
+package com.wiremit.forex.util;
+
+import com.wiremit.forex.util.AggregationEngine.Method;
+import com.wiremit.forex.util.AggregationEngine.Result;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class AggregationEngineTest {
+
+    @Test
+    void meanIsWeightedAndSkipsMissingAndZeroWeightProviders() {
+        RateMatrix matrix = new RateMatrix(3, 2);
+        matrix.setWeight(0, 2);
+        matrix.setWeight(2, 0);
+        matrix.set(0, 0, 18.0);
+        matrix.set(1, 0, 19.5);
+        matrix.set(2, 0, 100.0);
+        matrix.set(1, 1, -1.0);
+
+        Result result = new AggregationEngine(Method.MEAN, 0, 0, false).aggregate(matrix);
+
+        assertThat(result.rates()[0]).isCloseTo(18.5, within(1e-12));
+        assertThat(result.sourceCounts()[0]).isEqualTo(2);
+        assertThat(result.rates()[1]).isNaN();
+        assertThat(result.sourceCounts()[1]).isZero();
+    }
+
+    @Test
+    void medianAndTrimmedMeanIgnoreExtremeQuotes() {
+        RateMatrix matrix = new RateMatrix(5, 1);
+        double[] quotes = {0.79, 0.80, 0.81, 0.78, 5.0};
+        for (int provider = 0; provider < quotes.length; provider++) {
+            matrix.set(provider, 0, quotes[provider]);
+        }
+
+        assertThat(new AggregationEngine(Method.MEDIAN, 0, 0, false).aggregate(matrix).rates()[0])
+                .isEqualTo(0.80);
+        assertThat(new AggregationEngine(Method.TRIMMED_MEAN, 0.2, 0, false).aggregate(matrix).rates()[0])
+                .isCloseTo(0.80, within(1e-12));
+    }
+
+    @Test
+    void outliersAreRejectedBeforeTheMean() {
+        RateMatrix matrix = new RateMatrix(4, 1);
+        matrix.set(0, 0, 18.20);
+        matrix.set(1, 0, 18.30);
+        matrix.set(2, 0, 18.25);
+        matrix.set(3, 0, 21.00);
+
+        Result result = new AggregationEngine(Method.MEAN, 0, 0.01, false).aggregate(matrix);
+
+        assertThat(result.rates()[0]).isCloseTo(18.25, within(1e-12));
+        assertThat(result.sourceCounts()[0]).isEqualTo(3);
+    }
+
+    @Test
+    void parallelAggregationMatchesSequential() {
+        Random random = new Random(42);
+        RateMatrix matrix = new RateMatrix(5, 50_000);
+        for (int pair = 0; pair < matrix.pairs(); pair++) {
+            for (int provider = 0; provider < matrix.providers(); provider++) {
+                if (random.nextInt(10) > 0) {
+                    matrix.set(provider, pair, 1 + random.nextDouble());
+                }
+            }
+        }
+
+        for (Method method : Method.values()) {
+            Result sequential = new AggregationEngine(method, 0.2, 0.05, false).aggregate(matrix);
+            Result parallel = new AggregationEngine(method, 0.2, 0.05, true).aggregate(matrix);
+            assertThat(parallel.rates()).containsExactly(sequential.rates());
+            assertThat(parallel.sourceCounts()).containsExactly(sequential.sourceCounts());
+        }
+    }
+}
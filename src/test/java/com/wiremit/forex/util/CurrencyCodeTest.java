@@ -0,0 +1,61 @@
+package com.wiremit.forex.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class CurrencyCodeTest {
+
+    @Test
+    void parsesIsoCodesCaseInsensitively() {
+        int usd = CurrencyCode.parse("USD");
+
+        assertThat(usd).isEqualTo(CurrencyCode.USD).isNotEqualTo(CurrencyCode.INVALID);
+        assertThat(CurrencyCode.parse("usd")).isEqualTo(usd);
+        assertThat(CurrencyCode.toCode(usd)).isEqualTo("USD");
+        assertThat(CurrencyCode.ordinal(usd)).isBetween(0, CurrencyCode.count() - 1);
+    }
+
+    @Test
+    void rejectsNonIsoCodes() {
+        assertThat(CurrencyCode.parse("ABC")).isEqualTo(CurrencyCode.INVALID);
+        assertThat(CurrencyCode.parse("US1")).isEqualTo(CurrencyCode.INVALID);
+        assertThat(CurrencyCode.parse("USDX")).isEqualTo(CurrencyCode.INVALID);
+        assertThat(CurrencyCode.parse(" USD")).isEqualTo(CurrencyCode.INVALID);
+        assertThat(CurrencyCode.parse(null)).isEqualTo(CurrencyCode.INVALID);
+    }
+
+    @Test
+    void packsPairCodes() {
+        int pair = CurrencyCode.parsePair("USDZAR");
+
+        assertThat(CurrencyCode.base(pair)).isEqualTo(CurrencyCode.USD);
+        assertThat(CurrencyCode.target(pair)).isEqualTo(CurrencyCode.parse("ZAR"));
+        assertThat(CurrencyCode.toPairCode(pair)).isEqualTo("USDZAR");
+        assertThat(CurrencyCode.parsePair("usdzar")).isEqualTo(pair);
+
+        assertThat(CurrencyCode.parsePair("USDUSD")).isEqualTo(CurrencyCode.INVALID);
+        assertThat(CurrencyCode.parsePair("USDXYZ")).isEqualTo(CurrencyCode.INVALID);
+        assertThat(CurrencyCode.parsePair("USD-ZAR")).isEqualTo(CurrencyCode.INVALID);
+    }
+
+    @Test
+    void rebasesQuoteVector() {
+        QuoteVector eurQuotes = QuoteVector.of("EUR", Map.of(
+                "USD", new BigDecimal("1.25"),
+                "GBP", new BigDecimal("0.85"),
+                "NOPE", BigDecimal.TEN));
+
+        QuoteVector usdQuotes = eurQuotes.rebase(CurrencyCode.USD);
+
+        assertThat(usdQuotes.get(CurrencyCode.USD)).isEqualTo(1.0);
+        assertThat(usdQuotes.get(CurrencyCode.EUR)).isCloseTo(0.8, within(1e-12));
+        assertThat(usdQuotes.get(CurrencyCode.parse("GBP"))).isCloseTo(0.68, within(1e-12));
+        assertThat(usdQuotes.get(CurrencyCode.parse("JPY"))).isNaN();
+        assertThat(eurQuotes.rebase(CurrencyCode.parse("JPY"))).isNull();
+    }
+}
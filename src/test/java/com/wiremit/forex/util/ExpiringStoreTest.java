@@ -0,0 +1,118 @@
+package com.wiremit.forex.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExpiringStoreTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final ExpiringStore<String, String> store =
+            new ExpiringStore<>(Duration.ofSeconds(30), Duration.ofSeconds(1), START);
+
+    @Test
+    void entriesExpireOnReadBeforeTheyAreSwept() {
+        store.put("a", "quote-a", START.plusSeconds(10), START);
+
+        assertThat(store.get("a", START.plusMillis(9_999))).isEqualTo("quote-a");
+        assertThat(store.get("a", START.plusSeconds(10))).isNull();
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    void sweepEvictsOnlyPassedBuckets() {
+        store.put("a", "quote-a", START.plusMillis(10_500), START);
+        store.put("b", "quote-b", START.plusSeconds(20), START);
+
+        // a expires mid bucket and is evicted once that bucket has passed
+        assertThat(store.expire(START.plusMillis(10_999))).isZero();
+        assertThat(store.expire(START.plusSeconds(11))).isEqualTo(1);
+        assertThat(store.get("b", START.plusSeconds(11))).isEqualTo("quote-b");
+
+        assertThat(store.expire(START.plusSeconds(25))).isEqualTo(1);
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void sweepAfterALongPauseEvictsEverything() {
+        for (int i = 0; i < 100; i++) {
+            store.put("quote-" + i, "value", START.plusMillis(1 + i * 300L), START);
+        }
+
+        assertThat(store.expire(START.plus(Duration.ofHours(1)))).isEqualTo(100);
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void removedAndReplacedEntriesAreNotEvictedTwice() {
+        store.put("a", "first", START.plusSeconds(5), START);
+        store.put("b", "quote-b", START.plusSeconds(5), START);
+        assertThat(store.remove("b", "quote-b", START.plusSeconds(1))).isTrue();
+        // Replacing a moves it to a later bucket
+        store.put("a", "second", START.plusSeconds(20), START.plusSeconds(1));
+
+        assertThat(store.expire(START.plusSeconds(6))).isZero();
+        assertThat(store.get("a", START.plusSeconds(6))).isEqualTo("second");
+        assertThat(store.expire(START.plusSeconds(21))).isEqualTo(1);
+    }
+
+    @Test
+    void removeRequiresTheUnexpiredExpectedValue() {
+        store.put("a", "quote-a", START.plusSeconds(10), START);
+
+        assertThat(store.remove("a", "other", START)).isFalse();
+        assertThat(store.remove("a", "quote-a", START.plusSeconds(10))).isFalse();
+        assertThat(store.remove("a", "quote-a", START.plusSeconds(9))).isTrue();
+        assertThat(store.remove("a", "quote-a", START.plusSeconds(9))).isFalse();
+    }
+
+    @Test
+    void onlyOneConcurrentRemoveWins() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 200; round++) {
+                String key = "quote-" + round;
+                store.put(key, key, START.plusSeconds(10), START);
+                CountDownLatch go = new CountDownLatch(1);
+                AtomicInteger winners = new AtomicInteger();
+                Future<?>[] removals = new Future<?>[8];
+                for (int i = 0; i < removals.length; i++) {
+                    removals[i] = executor.submit(() -> {
+                        go.await();
+                        if (store.remove(key, key, START)) {
+                            winners.incrementAndGet();
+                        }
+                        return null;
+                    });
+                }
+                go.countDown();
+                for (Future<?> removal : removals) {
+                    removal.get(5, TimeUnit.SECONDS);
+                }
+                assertThat(winners).hasValue(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsEntriesOutlivingTheMaxLifetime() {
+        assertThatThrownBy(() -> store.put("a", "quote-a", START.plusSeconds(32), START))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> store.put("a", "quote-a", START, START))
+                .isInstanceOf(IllegalArgumentException.class);
+        store.put("a", "quote-a", START.plusSeconds(30), START);
+    }
+}
@@ -0,0 +1,61 @@
+package com.wiremit.forex.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FixedPointTest {
+
+    @Test
+    void parsesPlainDecimals() {
+        assertThat(parse("1250.5", 4)).isEqualTo(12_505_000);
+        assertThat(parse("-3", 4)).isEqualTo(-30_000);
+        assertThat(parse("+0.0001", 4)).isEqualTo(1);
+        assertThat(parse(".25", 2)).isEqualTo(25);
+        // Zeros beyond the scale do not change the value
+        assertThat(parse("1.25000000", 2)).isEqualTo(125);
+    }
+
+    @Test
+    void rejectsWhatItCannotRepresentExactly() {
+        assertThatThrownBy(() -> parse("1.00005", 4)).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parse("1e3", 4)).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parse("1.2.3", 4)).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parse("-", 4)).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parse("", 4)).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parse("99999999999999999", 4)).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void multipliesRoundingHalfUp() {
+        // 1250.0000 * 18.500000 = 23125.0000
+        assertThat(FixedPoint.multiply(12_500_000, 18_500_000, 6)).isEqualTo(231_250_000);
+        // 0.0001 * 0.500000 = 0.00005, rounded up; negative amounts round away from zero
+        assertThat(FixedPoint.multiply(1, 500_000, 6)).isEqualTo(1);
+        assertThat(FixedPoint.multiply(-1, 500_000, 6)).isEqualTo(-1);
+        assertThat(FixedPoint.multiply(1, 499_999, 6)).isZero();
+
+        assertThatThrownBy(() -> FixedPoint.multiply(Long.MAX_VALUE / 10, 1_000_000_000, 6))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void formatsIntoTheBuffer() {
+        assertThat(format(231_250_000, 4)).isEqualTo("23125.0000");
+        assertThat(format(5, 4)).isEqualTo("0.0005");
+        assertThat(format(-5, 4)).isEqualTo("-0.0005");
+        assertThat(format(0, 2)).isEqualTo("0.00");
+        assertThat(format(42, 0)).isEqualTo("42");
+        assertThat(format(Long.MIN_VALUE, 4)).isEqualTo("-922337203685477.5808");
+    }
+
+    private static long parse(String text, int scale) {
+        return FixedPoint.parse(text.toCharArray(), 0, text.length(), scale);
+    }
+
+    private static String format(long value, int scale) {
+        char[] buffer = new char[FixedPoint.MAX_LENGTH];
+        return new String(buffer, 0, FixedPoint.format(value, scale, buffer));
+    }
+}
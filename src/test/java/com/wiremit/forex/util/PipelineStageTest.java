@@ -0,0 +1,73 @@
+package com.wiremit.forex.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineStageTest {
+
+    @Test
+    void fullQueueBlocksProducerUntilStageCatchesUp() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> handled = new CopyOnWriteArrayList<>();
+        try (PipelineStage<Integer> stage = new PipelineStage<>("slow", 2, item -> {
+            await(release);
+            handled.add(item);
+        }, (item, error) -> { })) {
+
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 4; i++) {
+                    stage.put(i);
+                }
+            });
+            producer.start();
+
+            // One item in the handler, two queued, the fourth put has to wait
+            producer.join(300);
+            assertThat(producer.isAlive()).isTrue();
+            assertThat(stage.size()).isEqualTo(2);
+
+            release.countDown();
+            producer.join(2000);
+            assertThat(producer.isAlive()).isFalse();
+        }
+
+        assertThat(handled).containsExactly(0, 1, 2, 3);
+    }
+
+    @Test
+    void failedItemIsReportedAndStageCarriesOn() throws Exception {
+        List<Integer> failed = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        try (PipelineStage<Integer> stage = new PipelineStage<>("failing", 4, item -> {
+            done.countDown();
+            if (item == 1) {
+                throw new IllegalStateException("bad item");
+            }
+        }, (item, error) -> failed.add(item))) {
+
+            stage.put(1);
+            stage.put(2);
+            assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+            stage.close();
+
+            assertThat(failed).containsExactly(1);
+            assertThat(stage.getFailedCount()).isEqualTo(1);
+            assertThat(stage.getProcessedCount()).isEqualTo(1);
+            assertThat(stage.serviceTimePercentile(0.99)).isNotNull();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
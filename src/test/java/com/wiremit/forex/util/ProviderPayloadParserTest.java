@@ -0,0 +1,81 @@
+package com.wiremit.forex.util;
+
+import com.wiremit.forex.dto.response.ProviderQuotes;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ProviderPayloadParserTest {
+
+    private static final int GBP = CurrencyCode.parse("GBP");
+    private static final int ZAR = CurrencyCode.parse("ZAR");
+
+    @Test
+    void readsExchangeRateApiPayloadKeepingOnlyWantedCurrencies() throws IOException {
+        ProviderQuotes quotes = parse("""
+                {"result":"success","documentation":"https://example.com","base_code":"USD",
+                 "time_last_update_unix":1735689600,
+                 "conversion_rates":{"USD":1,"GBP":0.79,"ZAR":18.25,"JPY":151.3,"XYZ":2}}
+                """, "GBP", "ZAR");
+
+        assertThat(quotes.isSuccess()).isTrue();
+        assertThat(quotes.baseCurrency()).isEqualTo("USD");
+        assertThat(quotes.timestamp()).isEqualTo(1735689600L);
+        assertThat(quotes.quoteCount()).isEqualTo(5);
+        assertThat(quotes.quotes().get(GBP)).isCloseTo(0.79, within(1e-12));
+        assertThat(quotes.quotes().get(ZAR)).isCloseTo(18.25, within(1e-12));
+        assertThat(quotes.quotes().has(CurrencyCode.parse("JPY"))).isFalse();
+    }
+
+    @Test
+    void readsFixerPayloadAgainstItsOwnBase() throws IOException {
+        ProviderQuotes quotes = parse("""
+                {"success":true,"timestamp":1735689600,"base":"EUR","date":"2025-01-01",
+                 "rates":{"USD":1.25,"GBP":0.85}}
+                """, "USD", "GBP");
+
+        assertThat(quotes.isSuccess()).isTrue();
+        assertThat(quotes.quotes().getBase()).isEqualTo(CurrencyCode.EUR);
+        assertThat(quotes.quotes().rebase(CurrencyCode.USD).get(GBP)).isCloseTo(0.68, within(1e-12));
+    }
+
+    @Test
+    void readsOpenExchangeRatesPayloadWithRatesBeforeBase() throws IOException {
+        ProviderQuotes quotes = parse("""
+                {"disclaimer":"Usage subject to terms","license":"https://example.com",
+                 "rates":{"GBP":0.79,"ZAR":18.25},"timestamp":1735689600,"base":"USD"}
+                """, "ZAR");
+
+        assertThat(quotes.isSuccess()).isTrue();
+        assertThat(quotes.quotes().getBase()).isEqualTo(CurrencyCode.USD);
+        assertThat(quotes.quotes().get(ZAR)).isCloseTo(18.25, within(1e-12));
+    }
+
+    @Test
+    void reportsProviderErrors() throws IOException {
+        assertThat(parse("{\"result\":\"error\",\"error-type\":\"invalid-key\"}").errorMessage())
+                .isEqualTo("invalid-key");
+        assertThat(parse("{\"success\":false,\"error\":{\"code\":101,\"type\":\"missing_access_key\","
+                + "\"info\":\"You have not supplied an API Access Key.\"}}").errorMessage())
+                .isEqualTo("You have not supplied an API Access Key.");
+        assertThat(parse("{\"error\":true,\"status\":401,\"message\":\"invalid_app_id\","
+                + "\"description\":\"Invalid App ID provided.\"}").errorMessage())
+                .isEqualTo("Invalid App ID provided.");
+        assertThat(parse("{\"result\":\"success\"}").errorMessage()).isEqualTo("No rates data received");
+        assertThat(parse("[]").isSuccess()).isFalse();
+    }
+
+    private static ProviderQuotes parse(String json, String... currencies) throws IOException {
+        boolean[] wanted = new boolean[CurrencyCode.count()];
+        for (String currency : currencies) {
+            wanted[CurrencyCode.ordinal(CurrencyCode.parse(currency))] = true;
+        }
+        return ProviderPayloadParser.parse(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), wanted, "USD");
+    }
+}
@@ -0,0 +1,170 @@
+package com.wiremit.forex.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteBehindQueueTest {
+
+    @Test
+    void drainsItemsInBatches() throws Exception {
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (WriteBehindQueue<Integer> queue = new WriteBehindQueue<>("test", 1000, 100,
+                Duration.ofMillis(10), Duration.ofSeconds(1), batch -> {
+                    awaitQuietly(release);
+                    batches.add(new ArrayList<>(batch));
+                })) {
+            queue.submit(List.of(0));
+            queue.submit(IntStream.range(1, 500).boxed().toList());
+            release.countDown();
+        }
+
+        assertThat(batches.stream().mapToInt(List::size).sum()).isEqualTo(500);
+        assertThat(batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(100));
+        assertThat(batches.size()).isLessThanOrEqualTo(6);
+    }
+
+    @Test
+    void writesOnCallerThreadWhenQueueStaysFull() {
+        List<String> writerThreads = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        WriteBehindQueue<Integer> queue = new WriteBehindQueue<>("test", 2, 10,
+                Duration.ofMillis(10), Duration.ofMillis(20), batch -> {
+                    if (Thread.currentThread().getName().equals("test-writer")) {
+                        awaitQuietly(release);
+                    }
+                    batch.forEach(item -> writerThreads.add(Thread.currentThread().getName()));
+                });
+
+        queue.submit(IntStream.range(0, 10).boxed().toList());
+        assertThat(writerThreads).contains(Thread.currentThread().getName());
+
+        release.countDown();
+        queue.close();
+        assertThat(writerThreads).hasSize(10);
+        assertThat(queue.getWrittenCount()).isEqualTo(10);
+    }
+
+    @Test
+    void closeFlushesPendingItems() {
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        WriteBehindQueue<Integer> queue = new WriteBehindQueue<>("test", 1000, 50,
+                Duration.ofMillis(200), Duration.ofSeconds(1), written::addAll);
+
+        queue.submit(IntStream.range(0, 120).boxed().toList());
+        queue.close();
+
+        assertThat(written).hasSize(120);
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    void oneOfferTimeoutBoundsTheWholeSubmit() {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        WriteBehindQueue<Integer> queue = new WriteBehindQueue<>("test", 1, 10,
+                Duration.ofMillis(10), Duration.ofMillis(200), batch -> {
+                    if (Thread.currentThread().getName().equals("test-writer")) {
+                        awaitQuietly(release);
+                    }
+                    written.addAll(batch);
+                });
+
+        long start = System.nanoTime();
+        queue.submit(IntStream.range(0, 50).boxed().toList());
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // A per item timeout would have blocked for about 10 seconds
+        assertThat(elapsedMillis).isLessThan(2_000);
+        release.countDown();
+        queue.close();
+        assertThat(written).hasSize(50);
+    }
+
+    @Test
+    void itemsSubmittedWhileClosingAreNotLost() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            AtomicInteger written = new AtomicInteger();
+            WriteBehindQueue<Integer> queue = new WriteBehindQueue<>("test", 10_000, 100,
+                    Duration.ofMillis(1), Duration.ofSeconds(1), batch -> written.addAndGet(batch.size()));
+            CountDownLatch started = new CountDownLatch(1);
+            Thread producer = new Thread(() -> {
+                started.countDown();
+                for (int i = 0; i < 2_000; i++) {
+                    queue.submit(List.of(i));
+                }
+            });
+            producer.start();
+            started.await();
+            queue.close();
+            producer.join();
+
+            assertThat(written.get()).isEqualTo(2_000);
+            assertThat(queue.size()).isZero();
+        }
+    }
+
+    @Test
+    void tryOfferDropsInsteadOfBlockingOrWritingOnTheCaller() {
+        List<String> writerThreads = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        WriteBehindQueue<Integer> queue = new WriteBehindQueue<>("test", 2, 10,
+                Duration.ofMillis(10), Duration.ofSeconds(5), batch -> {
+                    writerThreads.add(Thread.currentThread().getName());
+                    awaitQuietly(release);
+                });
+
+        long start = System.nanoTime();
+        long accepted = IntStream.range(0, 10).filter(queue::tryOffer).count();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // At most the item held by the writer plus a full queue
+        assertThat(accepted).isBetween(2L, 3L);
+        assertThat(queue.getDroppedCount()).isEqualTo(10 - accepted);
+        assertThat(elapsedMillis).isLessThan(1_000);
+        assertThat(writerThreads).doesNotContain(Thread.currentThread().getName());
+        release.countDown();
+        queue.close();
+        assertThat(queue.getWrittenCount()).isEqualTo(accepted);
+        assertThat(queue.tryOffer(99)).isFalse();
+    }
+
+    @Test
+    void failingBatchIsRetriedWithBackoffBeforeItIsDropped() {
+        List<Long> attempts = new CopyOnWriteArrayList<>();
+        WriteBehindQueue<Integer> queue = new WriteBehindQueue<>("test", 100, 10,
+                Duration.ofMillis(10), Duration.ofSeconds(1), batch -> {
+                    attempts.add(System.nanoTime());
+                    throw new IllegalStateException("database down");
+                });
+
+        // One item, so the writer cannot split it over several batches
+        queue.submit(List.of(1));
+        queue.close();
+
+        assertThat(queue.getDroppedCount()).isEqualTo(1);
+        assertThat(attempts).hasSize(3);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(attempts.get(1) - attempts.get(0))).isGreaterThanOrEqualTo(200);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(attempts.get(2) - attempts.get(1))).isGreaterThanOrEqualTo(400);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}